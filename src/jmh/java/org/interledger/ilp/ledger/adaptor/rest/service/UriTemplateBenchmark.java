@@ -0,0 +1,126 @@
+package org.interledger.ilp.ledger.adaptor.rest.service;
+
+import org.interledger.ilp.InterledgerAddress;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.util.UriTemplate;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled URI templates used by {@link RestLedgerJsonConverter} with the previous
+ * implementation, which expanded a Spring {@link UriTemplate} with a dummy token on every call to
+ * find the prefix and suffix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UriTemplateBenchmark {
+
+  private static final String BASE_URL = "https://ledger.example.com/ledger";
+  private static final String DUMMY_TOKEN = "9999999999999999999999999";
+
+  private RestLedgerJsonConverter converter;
+  private UriTemplate springAccountTemplate;
+  private UriTemplate springTransferTemplate;
+  private URI accountUri;
+  private URI transferUri;
+  private UUID transferId;
+
+  /**
+   * Builds a converter from typical ledger metadata.
+   */
+  @Setup
+  public void setup() {
+
+    Map<String, String> urls = new HashMap<>();
+    urls.put("account", BASE_URL + "/accounts/:name");
+    urls.put("transfer", BASE_URL + "/transfers/:id");
+    urls.put("transfer_fulfillment", BASE_URL + "/transfers/:id/fulfillment");
+    urls.put("transfer_rejection", BASE_URL + "/transfers/:id/rejection");
+    urls.put("transfer_state", BASE_URL + "/transfers/:id/state");
+
+    JsonLedgerInfo info = new JsonLedgerInfo();
+    info.setId(URI.create(BASE_URL));
+    info.setIlpPrefix("za.zar.ledger.");
+    info.setCurrencyCode("ZAR");
+    info.setPrecision(10);
+    info.setScale(2);
+    info.setUrls(urls);
+
+    converter = new RestLedgerJsonConverter(info);
+    springAccountTemplate = new UriTemplate(BASE_URL + "/accounts/{name}");
+    springTransferTemplate = new UriTemplate(BASE_URL + "/transfers/{id}");
+
+    transferId = UUID.randomUUID();
+    accountUri = URI.create(BASE_URL + "/accounts/alice");
+    transferUri = URI.create(BASE_URL + "/transfers/" + transferId);
+  }
+
+  @Benchmark
+  public InterledgerAddress convertAccountUriToAddress() {
+    return converter.convertAccountUriToAddress(accountUri);
+  }
+
+  @Benchmark
+  public UUID convertTransferUriToUuid() {
+    return converter.convertTransferUriToUuid(transferUri);
+  }
+
+  @Benchmark
+  public URI convertTransferUuidToUri() {
+    return converter.convertTransferUuidToUri(transferId);
+  }
+
+  @Benchmark
+  public InterledgerAddress springConvertAccountUriToAddress() {
+    return InterledgerAddress.fromPrefixAndPath(converter.getLedgerInfo().getAddressPrefix(),
+        springExtractToken(springAccountTemplate, accountUri));
+  }
+
+  @Benchmark
+  public UUID springConvertTransferUriToUuid() {
+    return UUID.fromString(springExtractToken(springTransferTemplate, transferUri));
+  }
+
+  @Benchmark
+  public URI springConvertTransferUuidToUri() {
+    return springTransferTemplate.expand(transferId.toString());
+  }
+
+  /**
+   * The token extraction previously done by <code>RestLedgerJsonConverter.UriBuilder</code>.
+   */
+  private static String springExtractToken(UriTemplate template, URI uri) {
+
+    String dummyUri = template.expand(DUMMY_TOKEN).toString();
+    String tokenUri = uri.toString();
+
+    int start = dummyUri.indexOf(DUMMY_TOKEN);
+    String token = tokenUri.substring(start);
+
+    if (start + DUMMY_TOKEN.length() < dummyUri.length()) {
+      String suffix = dummyUri.substring(start + DUMMY_TOKEN.length());
+      token = token.substring(0, token.indexOf(suffix));
+    }
+
+    return token;
+  }
+
+}
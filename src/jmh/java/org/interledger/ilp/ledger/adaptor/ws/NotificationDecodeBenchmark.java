@@ -0,0 +1,56 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonCodec;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a transfer notification with the cached reader from {@link JsonCodec}, as the
+ * web socket handler now does, against the previous approach of a newly created mapper.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationDecodeBenchmark {
+
+  private static final String NOTIFICATION = "{\"jsonrpc\":\"2.0\",\"id\":null,"
+      + "\"method\":\"notify\",\"params\":{\"event\":\"transfer.update\",\"resource\":{"
+      + "\"id\":\"https://ledger.example.com/transfers/155dff3f-4915-44df-a707-acc4b527bcbd\","
+      + "\"ledger\":\"https://ledger.example.com\","
+      + "\"debits\":[{\"account\":\"https://ledger.example.com/accounts/alice\","
+      + "\"amount\":\"50\",\"authorized\":true}],"
+      + "\"credits\":[{\"account\":\"https://ledger.example.com/accounts/bob\","
+      + "\"amount\":\"50\"}],"
+      + "\"execution_condition\":"
+      + "\"cc:0:3:8ZdpKBDUV-KX_OnFZTsCWB_5mlCFI3DynX5f5H2dN-Y:2\","
+      + "\"state\":\"executed\"}}}";
+
+  private final ObjectReader reader = JsonCodec.readerFor(JsonRpcMessage.class);
+
+  @Benchmark
+  public JsonRpcMessage cachedReader() throws IOException {
+    return reader.readValue(NOTIFICATION);
+  }
+
+  @Benchmark
+  public JsonRpcMessage newMapperPerMessage() throws IOException {
+    return new ObjectMapper().readValue(NOTIFICATION, JsonRpcMessage.class);
+  }
+
+}
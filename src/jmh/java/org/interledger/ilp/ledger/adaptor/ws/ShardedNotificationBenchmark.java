@@ -0,0 +1,200 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.websocket.server.WsSci;
+import org.interledger.ilp.client.events.ClientLedgerTransferEvent;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerInfo;
+import org.interledger.ilp.ledger.adaptor.rest.service.RestLedgerJsonConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServlet;
+import javax.websocket.OnClose;
+import javax.websocket.OnOpen;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+/**
+ * Measures how many transfer notifications per second the adaptor receives, decodes and hands to
+ * its event handler as the number of web socket shards grows.
+ *
+ * <p>A stub ledger runs in an embedded Tomcat on the loopback interface and pushes the same
+ * number of notifications down every connection in parallel, so the client side read and decode
+ * threads are the only thing that changes between runs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardedNotificationBenchmark {
+
+  private static final int NOTIFICATIONS = 12_000;
+  private static final String BASE_URL = "https://ledger.example.com/ledger";
+  private static final String NOTIFICATION = "{\"jsonrpc\":\"2.0\",\"id\":null,"
+      + "\"method\":\"notify\",\"params\":{\"event\":\"transfer.update\",\"resource\":{"
+      + "\"id\":\"" + BASE_URL + "/transfers/155dff3f-4915-44df-a707-acc4b527bcbd\","
+      + "\"ledger\":\"" + BASE_URL + "\","
+      + "\"debits\":[{\"account\":\"" + BASE_URL + "/accounts/alice\","
+      + "\"amount\":\"50\",\"authorized\":true,\"memo\":{\"ilp_header\":{\"account\":"
+      + "\"za.zar.ledger.bob.~psk.ZfiUdFj-KWQ\",\"amount\":\"50\",\"data\":{}}}}],"
+      + "\"credits\":[{\"account\":\"" + BASE_URL + "/accounts/bob\","
+      + "\"amount\":\"50\"}],"
+      + "\"execution_condition\":"
+      + "\"cc:0:3:8ZdpKBDUV-KX_OnFZTsCWB_5mlCFI3DynX5f5H2dN-Y:2\","
+      + "\"state\":\"prepared\"}}}";
+
+  @Param({"1", "2", "4"})
+  public int shards;
+
+  private Tomcat ledger;
+  private ShardedLedgerWebSocketChannel channel;
+  private ExecutorService senders;
+  private volatile CountDownLatch received;
+
+  /**
+   * Starts the stub ledger and connects one channel per shard to it.
+   */
+  @Setup
+  public void setup() throws Exception {
+
+    ledger = new Tomcat();
+    ledger.setBaseDir(Files.createTempDirectory("stub-ledger").toString());
+    ledger.setPort(0);
+    Context context = ledger.addContext("", null);
+    Tomcat.addServlet(context, "default", new HttpServlet() {});
+    context.addServletMappingDecoded("/", "default");
+    context.addServletContainerInitializer(new WsSci(),
+        Collections.singleton(StubLedgerEndpoint.class));
+    ledger.getConnector();
+    ledger.start();
+
+    URI wsUri = URI.create("ws://localhost:" + ledger.getConnector().getLocalPort() + "/websocket");
+    RestLedgerJsonConverter converter = createConverter();
+    List<JsonRpcLedgerWebSocketChannel> channels = new ArrayList<>();
+    for (int i = 0; i < shards; i++) {
+      channels.add(new JsonRpcLedgerWebSocketChannel(wsUri, "token", event -> {
+        if (event instanceof ClientLedgerTransferEvent) {
+          received.countDown();
+        }
+      }, converter));
+    }
+    channel = new ShardedLedgerWebSocketChannel(channels);
+    channel.connectAsync().get(10, TimeUnit.SECONDS);
+
+    // The stub ledger may see the sessions open just after the client does
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (StubLedgerEndpoint.SESSIONS.size() < shards) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("Shards did not connect to the stub ledger.");
+      }
+      Thread.sleep(10);
+    }
+    senders = Executors.newFixedThreadPool(shards);
+  }
+
+  /**
+   * Disconnects the shards and stops the stub ledger.
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+
+    senders.shutdownNow();
+    channel.close();
+    ledger.stop();
+    ledger.destroy();
+    StubLedgerEndpoint.SESSIONS.clear();
+  }
+
+  /**
+   * Pushes a batch of notifications, split evenly across the connections, and waits until the
+   * event handler has seen all of them.
+   */
+  @Benchmark
+  @OperationsPerInvocation(NOTIFICATIONS)
+  public void receiveNotifications() throws InterruptedException {
+
+    received = new CountDownLatch(NOTIFICATIONS);
+    int perSession = NOTIFICATIONS / shards;
+    for (Session session : StubLedgerEndpoint.SESSIONS) {
+      senders.execute(() -> {
+        try {
+          for (int i = 0; i < perSession; i++) {
+            session.getBasicRemote().sendText(NOTIFICATION);
+          }
+        } catch (IOException ioe) {
+          throw new IllegalStateException(ioe);
+        }
+      });
+    }
+    if (!received.await(1, TimeUnit.MINUTES)) {
+      throw new IllegalStateException("Notifications were lost. missing: " + received.getCount());
+    }
+  }
+
+  private static RestLedgerJsonConverter createConverter() {
+
+    Map<String, String> urls = new HashMap<>();
+    urls.put("account", BASE_URL + "/accounts/:name");
+    urls.put("transfer", BASE_URL + "/transfers/:id");
+    urls.put("transfer_fulfillment", BASE_URL + "/transfers/:id/fulfillment");
+    urls.put("transfer_rejection", BASE_URL + "/transfers/:id/rejection");
+    urls.put("transfer_state", BASE_URL + "/transfers/:id/state");
+
+    JsonLedgerInfo info = new JsonLedgerInfo();
+    info.setId(URI.create(BASE_URL));
+    info.setIlpPrefix("za.zar.ledger.");
+    info.setCurrencyCode("ZAR");
+    info.setPrecision(10);
+    info.setScale(2);
+    info.setUrls(urls);
+    return new RestLedgerJsonConverter(info);
+  }
+
+  /**
+   * The web socket endpoint of the stub ledger, which only keeps track of the connected clients.
+   */
+  @ServerEndpoint("/websocket")
+  public static class StubLedgerEndpoint {
+
+    static final List<Session> SESSIONS = new CopyOnWriteArrayList<>();
+
+    @OnOpen
+    public void onOpen(Session session) {
+      SESSIONS.add(session);
+    }
+
+    @OnClose
+    public void onClose(Session session) {
+      SESSIONS.remove(session);
+    }
+  }
+
+}
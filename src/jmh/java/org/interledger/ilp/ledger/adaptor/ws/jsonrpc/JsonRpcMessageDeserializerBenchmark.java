@@ -0,0 +1,74 @@
+package org.interledger.ilp.ledger.adaptor.ws.jsonrpc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass {@link JsonRpcMessageDeserializer} against the previous approach of
+ * reading each frame into a tree and binding the tree, over the frames recorded in the test
+ * resources. Run with <code>-prof gc</code> to compare the allocation per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonRpcMessageDeserializerBenchmark {
+
+  @Param({"transfer_notification", "message_notification", "success_response"})
+  public String frame;
+
+  private final ObjectMapper mapper = JsonCodec.getMapper();
+  private final ObjectReader reader = JsonCodec.readerFor(JsonRpcMessage.class);
+  private String json;
+
+  /**
+   * Loads the frame from the test resources.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    String resource = frame + ".json";
+    try (InputStream in = JsonRpcMessageDeserializerBenchmark.class.getResourceAsStream(resource);
+        Scanner scanner = new Scanner(in, "UTF-8")) {
+      json = scanner.useDelimiter("\\A").next();
+    }
+  }
+
+  @Benchmark
+  public JsonRpcMessage singlePass() throws IOException {
+    return reader.readValue(json);
+  }
+
+  /**
+   * Decodes the frame the way the deserializer did before, by binding an intermediate tree.
+   */
+  @Benchmark
+  public JsonRpcMessage treeThenBind() throws IOException {
+    JsonNode root = mapper.readTree(json);
+    JsonNode methodNode = root.get("method");
+    Class<? extends JsonRpcMessage> rpcClass = methodNode == null
+        ? JsonRpcResponseMessage.class
+        : JsonRpcMessageDeserializer.getRequestType(methodNode.asText());
+    return mapper.treeToValue(root, rpcClass);
+  }
+
+}
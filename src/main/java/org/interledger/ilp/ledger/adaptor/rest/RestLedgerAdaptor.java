@@ -2,14 +2,26 @@ package org.interledger.ilp.ledger.adaptor.rest;
 
 import org.interledger.cryptoconditions.Fulfillment;
 import org.interledger.ilp.InterledgerAddress;
+import org.interledger.ilp.client.events.ClientLedgerTransferEvent;
 import org.interledger.ilp.ledger.LedgerAdaptor;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonCodec;
+import org.interledger.ilp.ledger.adaptor.rest.money.LedgerFormatRegistry;
+import org.interledger.ilp.ledger.adaptor.rest.retry.Retrier;
+import org.interledger.ilp.ledger.adaptor.rest.service.LazyLedgerTransfer;
 import org.interledger.ilp.ledger.adaptor.rest.service.RestLedgerAccountService;
 import org.interledger.ilp.ledger.adaptor.rest.service.RestLedgerAuthTokenService;
 import org.interledger.ilp.ledger.adaptor.rest.service.RestLedgerJsonConverter;
 import org.interledger.ilp.ledger.adaptor.rest.service.RestLedgerMessageService;
 import org.interledger.ilp.ledger.adaptor.rest.service.RestLedgerMetaService;
 import org.interledger.ilp.ledger.adaptor.rest.service.RestLedgerTransferService;
+import org.interledger.ilp.ledger.adaptor.rest.service.TransferResult;
+import org.interledger.ilp.ledger.adaptor.rest.state.TransferState;
+import org.interledger.ilp.ledger.adaptor.rest.state.TransferStateIndex;
+import org.interledger.ilp.ledger.adaptor.rest.transport.HttpTransport;
+import org.interledger.ilp.ledger.adaptor.rest.transport.HttpTransportConfig;
 import org.interledger.ilp.ledger.adaptor.ws.JsonRpcLedgerWebSocketChannel;
+import org.interledger.ilp.ledger.adaptor.ws.PartitionedEventDispatcher;
+import org.interledger.ilp.ledger.adaptor.ws.ShardedLedgerWebSocketChannel;
 import org.interledger.ilp.ledger.events.LedgerEventHandler;
 import org.interledger.ilp.ledger.model.AccountInfo;
 import org.interledger.ilp.ledger.model.LedgerInfo;
@@ -20,16 +32,34 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
 
 /**
  * A ledger adaptor implementation that currently adheres to the API of the Five Bells Ledger (
@@ -42,6 +72,9 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
 
   private static final Logger log = LoggerFactory.getLogger(RestLedgerAdaptor.class);
 
+  public static final int DEFAULT_BULK_CONCURRENCY = 32;
+  public static final int DEFAULT_WEBSOCKET_SHARDS = 1;
+
   private UsernamePasswordAuthenticationToken accountAuthToken = null;
   
   private RestLedgerAccountService accountService;
@@ -50,10 +83,39 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
   private RestLedgerMessageService messageService;
   private RestLedgerMetaService metaService;
 
-  private JsonRpcLedgerWebSocketChannel websocketChannel;
+  private ShardedLedgerWebSocketChannel websocketChannel;
+
+  private int websocketShards = DEFAULT_WEBSOCKET_SHARDS;
 
   private RestTemplateBuilder restTemplateBuilder;
 
+  private URI ledgerBaseUrl;
+
+  private HttpTransportConfig httpTransportConfig;
+
+  private HttpTransport httpTransport;
+
+  private boolean ownsHttpTransport = false;
+
+  private AsyncClientHttpRequestFactory asyncRequestFactory;
+
+  private RestTemplate restTemplate;
+
+  private AsyncRestTemplate asyncRestTemplate;
+
+  private int bulkConcurrency = DEFAULT_BULK_CONCURRENCY;
+
+  private Retrier retrier = new Retrier();
+
+  private PartitionedEventDispatcher eventDispatcher;
+
+  private boolean ownsEventDispatcher = false;
+
+  private final TransferStateIndex transferStateIndex = new TransferStateIndex();
+  private final LedgerFormatRegistry ledgerFormatRegistry = new LedgerFormatRegistry();
+  private final AtomicBoolean reconciling = new AtomicBoolean();
+  private volatile boolean reconcileAgain;
+
   private LedgerEventHandler eventhandler;
 
   private Set<InterledgerAddress> connectors;
@@ -71,7 +133,7 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
   public RestLedgerAdaptor(RestTemplateBuilder restTemplateBuilder, URI ledgerBaseUrl) {
 
     this.restTemplateBuilder = restTemplateBuilder;
-    this.metaService = new RestLedgerMetaService(restTemplateBuilder.build(), ledgerBaseUrl);
+    this.ledgerBaseUrl = ledgerBaseUrl;
   }
 
   /**
@@ -91,12 +153,30 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
    */
   @Override
   public void connect() {
+    connectAsync();
+  }
+
+  /**
+   * Connects the adaptor to the ledger, as {@link #connect()} does, and returns a future that
+   * completes once the web socket is connected. The ledger meta-data and auth token are still
+   * retrieved before this method returns, and their errors thrown from it.
+   *
+   * @return
+   *  A future that completes when every web socket connection is established, or fails if the
+   *      adaptor is disconnected first.
+   */
+  public CompletableFuture<Void> connectAsync() {
+
+    if (metaService == null) {
+      metaService = new RestLedgerMetaService(getRestTemplateBuilder().build(), ledgerBaseUrl);
+    }
 
     metaService.getLedgerInfo(true);
     converter = metaService.getConverter();
+    converter.setLedgerFormatRegistry(ledgerFormatRegistry);
 
     createWebsocket(metaService.getWebsocketUri());
-    websocketChannel.open();
+    return websocketChannel.connectAsync();
   }
 
   @Override
@@ -113,8 +193,11 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
     
     this.websocketChannel = null;
 
-    // Reset meta-data service
-    metaService = new RestLedgerMetaService(restTemplateBuilder.build(), metaService.getBaseUri());
+    // Reset meta-data service, a new one is created when connecting again
+    metaService = null;
+
+    // Notifications may be missed while disconnected
+    transferStateIndex.clear();
  
     //Clear connector list
     connectors = null;
@@ -132,6 +215,20 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
     URI accountId = converter.convertAccountAddressToUri(account);
     return getAccountService().getAccountInfo(accountId);
   }
+
+  /**
+   * Retrieves information about the given account without blocking the calling thread.
+   *
+   * @param account
+   *  The interledger address of the account.
+   * @return
+   *  A future that completes with the account information.
+   */
+  public CompletableFuture<AccountInfo> getAccountInfoAsync(InterledgerAddress account) {
+
+    URI accountId = converter.convertAccountAddressToUri(account);
+    return getAccountService().getAccountInfoAsync(accountId);
+  }
   
   @Override
   public Set<InterledgerAddress> getConnectors() {
@@ -163,10 +260,38 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
     getMessageService().sendMessage(msg);
   }
 
+  /**
+   * Sends a message to the ledger without blocking the calling thread.
+   *
+   * @param msg
+   *  The message to send.
+   * @return
+   *  A future that completes once the ledger has accepted the message.
+   */
+  public CompletableFuture<Void> sendMessageAsync(LedgerMessage msg) {
+
+    return getMessageService().sendMessageAsync(msg);
+  }
+
   @Override
   public void sendTransfer(LedgerTransfer transfer) {
     
     getTransferService().sendTransfer(transfer);
+    recordProposed(transfer);
+  }
+
+  /**
+   * Sends a transfer to the ledger without blocking the calling thread.
+   *
+   * @param transfer
+   *  The transfer to send.
+   * @return
+   *  A future that completes once the ledger has accepted the transfer.
+   */
+  public CompletableFuture<Void> sendTransferAsync(LedgerTransfer transfer) {
+
+    return getTransferService().sendTransferAsync(transfer)
+        .thenRun(() -> recordProposed(transfer));
   }
   
   @Override
@@ -175,6 +300,22 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
     getTransferService().rejectTransfer(transfer, reason);
   }
 
+  /**
+   * Rejects a transfer without blocking the calling thread.
+   *
+   * @param transfer
+   *  The transfer to reject.
+   * @param reason
+   *  The reason for rejecting the transfer.
+   * @return
+   *  A future that completes once the ledger has accepted the rejection.
+   */
+  public CompletableFuture<Void> rejectTransferAsync(LedgerTransfer transfer,
+      TransferRejectedReason reason) {
+
+    return getTransferService().rejectTransferAsync(transfer, reason);
+  }
+
   @Override
   public void fulfillTransfer(UUID transferId, Fulfillment fulfillment) {
     
@@ -182,6 +323,158 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
     getTransferService().fulfillTransfer(transferIdUri, fulfillment);
   }
 
+  /**
+   * Submits the fulfillment of a transfer without blocking the calling thread.
+   *
+   * @param transferId
+   *  The id of the transfer being fulfilled.
+   * @param fulfillment
+   *  The fulfillment to send to the ledger.
+   * @return
+   *  A future that completes once the ledger has accepted the fulfillment.
+   */
+  public CompletableFuture<Void> fulfillTransferAsync(UUID transferId, Fulfillment fulfillment) {
+
+    URI transferIdUri = converter.convertTransferUuidToUri(transferId);
+    return getTransferService().fulfillTransferAsync(transferIdUri, fulfillment);
+  }
+
+  /**
+   * Sends a batch of transfers to the ledger, pipelining the requests with at most
+   * {@link #getBulkConcurrency()} in flight at once.
+   *
+   * @param transfers
+   *  The transfers to send.
+   * @return
+   *  The result of each transfer, keyed by transfer id.
+   */
+  public Map<UUID, TransferResult> sendTransfers(Collection<LedgerTransfer> transfers) {
+
+    Map<UUID, TransferResult> results =
+        getTransferService().sendTransfers(transfers, bulkConcurrency);
+    for (LedgerTransfer transfer : transfers) {
+      TransferResult result = results.get(transfer.getId());
+      if (result != null && result.isSuccess()) {
+        recordProposed(transfer);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Rejects a batch of transfers with the same reason, pipelining the requests with at most
+   * {@link #getBulkConcurrency()} in flight at once.
+   *
+   * @param transfers
+   *  The transfers to reject.
+   * @param reason
+   *  The reason for rejecting the transfers.
+   * @return
+   *  The result of each rejection, keyed by transfer id.
+   */
+  public Map<UUID, TransferResult> rejectTransfers(Collection<LedgerTransfer> transfers,
+      TransferRejectedReason reason) {
+
+    return getTransferService().rejectTransfers(transfers, reason, bulkConcurrency);
+  }
+
+  /**
+   * Submits a batch of fulfillments, pipelining the requests with at most
+   * {@link #getBulkConcurrency()} in flight at once.
+   *
+   * @param fulfillments
+   *  The fulfillments to submit, keyed by the id of the transfer they fulfill.
+   * @return
+   *  The result of each fulfillment, keyed by transfer id.
+   */
+  public Map<UUID, TransferResult> fulfillTransfers(Map<UUID, Fulfillment> fulfillments) {
+
+    return getTransferService().fulfillTransfers(fulfillments, bulkConcurrency);
+  }
+
+  /**
+   * Returns the state of a transfer. The state is answered from the index kept up to date by the
+   * ledger's transfer notifications, and only requested from the ledger if the transfer is not in
+   * the index.
+   *
+   * @param transferId
+   *  The id of the transfer.
+   * @return
+   *  The state of the transfer.
+   */
+  public TransferState getTransferState(UUID transferId) {
+
+    TransferState state = transferStateIndex.get(transferId);
+    if (state != null) {
+      return state;
+    }
+
+    state = getTransferService().getTransferState(transferId);
+    if (state.isFinal()) {
+      // Final states never change, so they are safe to keep for the default time to live
+      transferStateIndex.update(transferId, state, null);
+    }
+    return state;
+  }
+
+  /**
+   * Fetches the metadata of another ledger and registers its amount format, so that amounts in
+   * quotes involving that ledger are read and written with its precision and scale.
+   *
+   * @param otherLedgerBaseUrl
+   *  The base url of the other ledger.
+   * @return
+   *  The metadata of the other ledger.
+   */
+  public LedgerInfo registerLedgerFormat(URI otherLedgerBaseUrl) {
+
+    LedgerInfo otherLedgerInfo = new RestLedgerMetaService(getRestTemplateBuilder().build(),
+        otherLedgerBaseUrl).getLedgerInfo();
+    ledgerFormatRegistry.register(otherLedgerInfo);
+    return otherLedgerInfo;
+  }
+
+  public LedgerFormatRegistry getLedgerFormatRegistry() {
+    return ledgerFormatRegistry;
+  }
+
+  public int getBulkConcurrency() {
+    return bulkConcurrency;
+  }
+
+  /**
+   * Sets the maximum number of requests kept in flight by the bulk transfer operations.
+   *
+   * @param bulkConcurrency
+   *  The size of the concurrency window, must be at least 1.
+   */
+  public void setBulkConcurrency(int bulkConcurrency) {
+
+    if (bulkConcurrency < 1) {
+      throw new IllegalArgumentException("Bulk concurrency must be at least 1.");
+    }
+    this.bulkConcurrency = bulkConcurrency;
+  }
+
+  public Retrier getRetrier() {
+    return retrier;
+  }
+
+  /**
+   * Sets the retry policy and budget applied to transfer, rejection and fulfillment requests.
+   *
+   * @param retrier
+   *  The retrier to use, or a retrier with {@link
+   *      org.interledger.ilp.ledger.adaptor.rest.retry.RetryPolicy#noRetries()} to disable retries.
+   */
+  public void setRetrier(Retrier retrier) {
+
+    this.retrier = retrier;
+    if (this.transferService != null) {
+      this.transferService.setRetrier(retrier);
+    }
+  }
+
   @Override
   public void setEventHandler(LedgerEventHandler eventHandler) {
     
@@ -196,15 +489,139 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
   }
 
 
+  /**
+   * Sets the credentials used to authenticate with the ledger. The services are rebuilt with the
+   * new credentials when next used, and web socket connections use them from their next attempt.
+   *
+   * @param accountAuthToken
+   *  The account name and password.
+   */
   @Autowired(required = false)
   public void setAccountAuthToken(UsernamePasswordAuthenticationToken accountAuthToken) {
     
     this.accountAuthToken = accountAuthToken;
+
+    // Rebuilt with the new credentials when next needed
+    this.restTemplate = null;
+    this.asyncRestTemplate = null;
+    this.accountService = null;
+    this.transferService = null;
+    this.messageService = null;
+    this.authTokenService = null;
+  }
+
+  /**
+   * Sets the pool, timeout and TLS settings of the HTTP transport shared by all of the adaptor's
+   * services. Must be called before the adaptor connects.
+   *
+   * @param httpTransportConfig
+   *  The transport settings.
+   */
+  @Autowired(required = false)
+  public void setHttpTransportConfig(HttpTransportConfig httpTransportConfig) {
+
+    this.httpTransportConfig = httpTransportConfig;
+  }
+
+  /**
+   * Sets the HTTP transport shared by all of the adaptor's services, for example to share one
+   * connection pool between several adaptors. Must be called before the adaptor connects. The
+   * transport is not closed by {@link #shutdown()}, since other adaptors may still be using it.
+   *
+   * @param httpTransport
+   *  The transport to use.
+   */
+  public void setHttpTransport(HttpTransport httpTransport) {
+
+    this.httpTransport = httpTransport;
+    this.ownsHttpTransport = false;
+  }
+
+  /**
+   * Sets the number of web socket connections opened to the ledger. Accounts are spread over the
+   * connections by consistent hash, so notifications for many accounts are decoded on several
+   * threads. Must be called before the adaptor connects.
+   *
+   * @param websocketShards
+   *  The number of connections, 1 by default.
+   */
+  public void setWebsocketShards(int websocketShards) {
+
+    if (websocketShards <= 0) {
+      throw new IllegalArgumentException("websocketShards must be positive.");
+    }
+    this.websocketShards = websocketShards;
+  }
+
+  /**
+   * Sets the dispatcher used to handle ledger notifications off the web socket read thread. Must
+   * be called before the adaptor connects. The dispatcher is not closed by {@link #shutdown()}.
+   *
+   * @param eventDispatcher
+   *  The dispatcher to use.
+   */
+  public void setEventDispatcher(PartitionedEventDispatcher eventDispatcher) {
+
+    this.eventDispatcher = eventDispatcher;
+    this.ownsEventDispatcher = false;
+  }
+
+  /**
+   * Provides access to the dispatcher handling ledger notifications, creating one with the default
+   * settings if none has been set.
+   */
+  public PartitionedEventDispatcher getEventDispatcher() {
+
+    if (eventDispatcher == null) {
+      eventDispatcher = new PartitionedEventDispatcher();
+      ownsEventDispatcher = true;
+    }
+    return eventDispatcher;
+  }
+
+  /**
+   * Releases the pooled connections held by the adaptor's HTTP transport, including those of the
+   * async client, and stops the threads handling ledger notifications. A transport or dispatcher
+   * that was set on the adaptor rather than created by it is left open for its owner to close.
+   */
+  @PreDestroy
+  public void shutdown() {
+
+    if (eventDispatcher != null && ownsEventDispatcher) {
+      eventDispatcher.close();
+      eventDispatcher = null;
+      ownsEventDispatcher = false;
+    }
+
+    if (httpTransport != null && ownsHttpTransport) {
+      try {
+        httpTransport.close();
+      } catch (IOException ioException) {
+        throw new UncheckedIOException("Error while closing HTTP transport.", ioException);
+      }
+      httpTransport = null;
+      ownsHttpTransport = false;
+      restTemplate = null;
+      asyncRestTemplate = null;
+    }
+  }
+
+  /**
+   * Sets the non-blocking request factory used by the asynchronous operations. If none is set the
+   * async request factory of the shared {@link HttpTransport} is used.
+   *
+   * @param asyncRequestFactory
+   *  The async request factory to use.
+   */
+  @Autowired(required = false)
+  public void setAsyncRequestFactory(AsyncClientHttpRequestFactory asyncRequestFactory) {
+
+    this.asyncRequestFactory = asyncRequestFactory;
   }
   
   
   /**
-   * Constructs a web socket channel that will be used for communications with the ledger.
+   * Constructs the web socket channels that will be used for communications with the ledger.
    *
    * @param wsUri
    *  The websocket URI provided by the ledger
@@ -212,12 +629,7 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
   private void createWebsocket(URI wsUri) {
 
     if (this.websocketChannel == null || !this.websocketChannel.isOpen()) {
-      if (this.authTokenService == null) {
-        this.authTokenService = new RestLedgerAuthTokenService(
-            getRestTemplateBuilderWithAuthIfAvailable().build(), metaService.getAuthTokenUri());
-      }
-
-      String token = this.authTokenService.getAuthToken();
+      String token = getAuthTokenService().getAuthToken();
 
       log.debug("Creating Notification Listener Service");
 
@@ -225,11 +637,126 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
         throw new RuntimeException("Invalid websocket URL: " + wsUri);
       }
 
-      this.websocketChannel = new JsonRpcLedgerWebSocketChannel(wsUri, token, eventhandler,
-          converter);
+      List<JsonRpcLedgerWebSocketChannel> shards = new ArrayList<>(websocketShards);
+      for (int i = 0; i < websocketShards; i++) {
+        JsonRpcLedgerWebSocketChannel shard = new JsonRpcLedgerWebSocketChannel(wsUri, token,
+            eventhandler, converter);
+        shard.setTransferStateIndex(transferStateIndex);
+        shard.setEventDispatcher(getEventDispatcher());
+        // Looked up on each use, so new account credentials apply to the next reconnect
+        shard.setAuthTokenSupplier(() -> getAuthTokenService().getAuthToken());
+        shard.setReconnectListener(this::requestReconciliation);
+        shard.setRaiseConnectEvent(i == 0);
+        shards.add(shard);
+      }
+      this.websocketChannel = new ShardedLedgerWebSocketChannel(shards);
     }
   }
 
+  /**
+   * Records a transfer sent by the adaptor as proposed, so that it is among the pending transfers
+   * reconciled after a reconnect even if no notification for it is ever received.
+   */
+  private void recordProposed(LedgerTransfer transfer) {
+    transferStateIndex.update(transfer.getId(), TransferState.PROPOSED, transfer.getExpiresAt());
+  }
+
+  /**
+   * Reconciles the pending transfers once for any number of shards reconnecting together. A shard
+   * that reconnects while a reconciliation is running does not start another, but has the running
+   * one go round again so that changes made before that shard reconnected are not missed.
+   */
+  private void requestReconciliation() {
+    reconcileAgain = true;
+    while (reconcileAgain && reconciling.compareAndSet(false, true)) {
+      try {
+        reconcileAgain = false;
+        reconcilePendingTransfers();
+      } finally {
+        reconciling.set(false);
+      }
+    }
+  }
+
+  /**
+   * Brings the state of pending transfers up to date after the web socket has reconnected. The
+   * state of each transfer not known to be final is checked with the ledger, and the event handler
+   * is notified of those that changed while notifications could not be received, so that
+   * fulfillments and rejections are not missed across a ledger restart.
+   *
+   * <p>The events are handed to the event dispatcher under the same key as the notifications for
+   * the transfer's debit account, so that they are handled in order with those notifications.
+   */
+  private void reconcilePendingTransfers() {
+
+    List<UUID> pending = transferStateIndex.getPendingTransferIds();
+    if (pending.isEmpty() || !isConnected()) {
+      return;
+    }
+
+    log.info("Reconciling {} pending transfers after reconnecting", pending.size());
+    RestLedgerTransferService service = getTransferService();
+    for (UUID transferId : pending) {
+      try {
+        TransferState state = service.getTransferState(transferId);
+        if (state == TransferState.NONEXISTENT || state == transferStateIndex.get(transferId)) {
+          continue;
+        }
+
+        LedgerTransfer transfer = service.getTransfer(transferId);
+        getEventDispatcher().dispatch(getPartitionKey(transfer),
+            () -> handleReconciledTransfer(transfer, state));
+      } catch (RejectedExecutionException ree) {
+        log.warn("Unable to dispatch reconciled transfer {}", transferId, ree);
+      } catch (RuntimeException re) {
+        log.warn("Unable to reconcile transfer {}", transferId, re);
+      }
+    }
+  }
+
+  /**
+   * Records the state of a reconciled transfer and notifies the event handler, unless a
+   * notification handled in the meantime has already brought the transfer to a final state.
+   */
+  private void handleReconciledTransfer(LedgerTransfer transfer, TransferState state) {
+
+    TransferState known = transferStateIndex.get(transfer.getId());
+    if (known == state || (known != null && known.isFinal())) {
+      return;
+    }
+    transferStateIndex.update(transfer.getId(), state, transfer.getExpiresAt());
+    if (eventhandler != null) {
+      eventhandler.handleLedgerEvent(new ClientLedgerTransferEvent(this, transfer));
+    }
+  }
+
+  /**
+   * Returns the key a transfer event is dispatched by, the same URI of the debit account that the
+   * web socket channel uses for the transfer's notifications.
+   */
+  private URI getPartitionKey(LedgerTransfer transfer) {
+
+    if (transfer instanceof LazyLedgerTransfer) {
+      return JsonRpcLedgerWebSocketChannel.getPartitionKey(
+          ((LazyLedgerTransfer) transfer).getJsonTransfer());
+    }
+    return transfer.getFromAccount() == null
+        ? null : converter.convertAccountAddressToUri(transfer.getFromAccount());
+  }
+
+  /**
+   * Convenience method to lazy load the service that retrieves web socket auth tokens.
+   */
+  private RestLedgerAuthTokenService getAuthTokenService() {
+
+    if (this.authTokenService == null) {
+      this.authTokenService = new RestLedgerAuthTokenService(getRestTemplate(),
+          metaService.getAuthTokenUri());
+    }
+
+    return this.authTokenService;
+  }
+
   /**
    * Convenience method to lazy load an account service and ensure that the adaptor is connected.
    *
@@ -242,8 +769,8 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
 
     if (this.accountService == null) {
       log.debug("Creating Account Service");
-      this.accountService = new RestLedgerAccountService(converter,
-          getRestTemplateBuilderWithAuthIfAvailable().build(), this.websocketChannel);
+      this.accountService = new RestLedgerAccountService(converter, getRestTemplate(),
+          getAsyncRestTemplate(), this.websocketChannel);
     }
 
     return this.accountService;
@@ -261,8 +788,8 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
 
     if (this.messageService == null) {
       log.debug("Creating Message Service");
-      this.messageService = new RestLedgerMessageService(converter,
-          getRestTemplateBuilderWithAuthIfAvailable().build(), metaService.getMessageUri());
+      this.messageService = new RestLedgerMessageService(converter, getRestTemplate(),
+          getAsyncRestTemplate(), metaService.getMessageUri());
     }
 
     return this.messageService;
@@ -280,13 +807,54 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
 
     if (this.transferService == null) {
       log.debug("Creating Transfer Service");
-      this.transferService = new RestLedgerTransferService(converter,
-          getRestTemplateBuilderWithAuthIfAvailable().build());
+      this.transferService = new RestLedgerTransferService(converter, getRestTemplate(),
+          getAsyncRestTemplate());
+      this.transferService.setRetrier(retrier);
     }
 
     return this.transferService;
   }
 
+  /**
+   * Convenience method to lazy load the HTTP transport shared by all services.
+   */
+  private HttpTransport getHttpTransport() {
+
+    if (httpTransport == null) {
+      log.debug("Creating HTTP Transport");
+      httpTransport = new HttpTransport(
+          httpTransportConfig != null ? httpTransportConfig : new HttpTransportConfig());
+      ownsHttpTransport = true;
+    }
+
+    return httpTransport;
+  }
+
+  /**
+   * Convenience method to return a rest template builder that uses the shared HTTP transport and
+   * JSON codec.
+   */
+  private RestTemplateBuilder getRestTemplateBuilder() {
+
+    return restTemplateBuilder.requestFactory(getHttpTransport().getRequestFactory())
+        .additionalCustomizers(RestLedgerAdaptor::useSharedJsonCodec);
+  }
+
+  /**
+   * Points the JSON message converters of a rest template at the shared {@link JsonCodec} REST
+   * mapper, so that all rest templates reuse the same serializers rather than each building their
+   * own.
+   */
+  private static void useSharedJsonCodec(RestTemplate restTemplate) {
+
+    for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+      if (converter instanceof MappingJackson2HttpMessageConverter) {
+        ((MappingJackson2HttpMessageConverter) converter)
+            .setObjectMapper(JsonCodec.getRestMapper());
+      }
+    }
+  }
+
   /**
    * Convenience method to return a rest template builder configured with an authorization token
    * if one is available.
@@ -296,11 +864,71 @@ public class RestLedgerAdaptor implements LedgerAdaptor {
     if (accountAuthToken != null
         && (accountAuthToken.getPrincipal() != null && accountAuthToken.getCredentials() != null)) {
 
-      return restTemplateBuilder.basicAuthorization(accountAuthToken.getPrincipal().toString(),
+      return getRestTemplateBuilder().basicAuthorization(
+          accountAuthToken.getPrincipal().toString(),
           accountAuthToken.getCredentials().toString());
     }
 
-    return restTemplateBuilder;
+    return getRestTemplateBuilder();
+  }
+
+  /**
+   * Convenience method to lazy load the rest template, with authorization if available, that is
+   * shared by all services.
+   */
+  private RestTemplate getRestTemplate() {
+
+    if (restTemplate == null) {
+      restTemplate = getRestTemplateBuilderWithAuthIfAvailable().build();
+    }
+
+    return restTemplate;
+  }
+
+  /**
+   * Convenience method to lazy load the non-blocking rest template that is shared by all services.
+   */
+  private AsyncRestTemplate getAsyncRestTemplate() {
+
+    if (asyncRestTemplate == null) {
+      asyncRestTemplate = createAsyncRestTemplate(getRestTemplate());
+    }
+
+    return asyncRestTemplate;
+  }
+
+  /**
+   * Creates a non-blocking rest template that shares the message converters and error handling of
+   * the given rest template, and the same authorization if any is available.
+   *
+   * @param restTemplate
+   *  The synchronous rest template that the async template should mirror.
+   * @return
+   *  An async rest template backed by the non-blocking request factory.
+   */
+  private AsyncRestTemplate createAsyncRestTemplate(RestTemplate restTemplate) {
+
+    AsyncClientHttpRequestFactory factory = asyncRequestFactory != null
+        ? asyncRequestFactory : getHttpTransport().getAsyncRequestFactory();
+
+    AsyncRestTemplate asyncRestTemplate = new AsyncRestTemplate(factory, restTemplate);
+
+    if (accountAuthToken != null
+        && (accountAuthToken.getPrincipal() != null && accountAuthToken.getCredentials() != null)) {
+
+      String credentials = accountAuthToken.getPrincipal().toString() + ":"
+          + accountAuthToken.getCredentials().toString();
+      String authorization = "Basic " + Base64.getEncoder()
+          .encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+
+      AsyncClientHttpRequestInterceptor authInterceptor = (request, body, execution) -> {
+        request.getHeaders().set(HttpHeaders.AUTHORIZATION, authorization);
+        return execution.executeAsync(request, body);
+      };
+      asyncRestTemplate.setInterceptors(Collections.singletonList(authInterceptor));
+    }
+
+    return asyncRestTemplate;
   }
 
   /** validates that the adaptor is connected, otherwise throws a runtime exception. */
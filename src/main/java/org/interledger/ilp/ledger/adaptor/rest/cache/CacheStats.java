@@ -0,0 +1,61 @@
+package org.interledger.ilp.ledger.adaptor.rest.cache;
+
+/**
+ * A snapshot of the usage counters of a {@link ConcurrentLruCache}.
+ */
+public class CacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final int size;
+
+  /**
+   * Constructs a new <code>CacheStats</code> instance.
+   *
+   * @param hitCount
+   *  The number of lookups that found a value.
+   * @param missCount
+   *  The number of lookups that did not find a value.
+   * @param evictionCount
+   *  The number of entries removed to make room or because they expired.
+   * @param size
+   *  The number of entries in the cache.
+   */
+  public CacheStats(long hitCount, long missCount, long evictionCount, int size) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.size = size;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * The fraction of lookups that found a value, or 1 if there were no lookups.
+   */
+  public double getHitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 1.0 : (double) hitCount / requests;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats[hits=" + hitCount + ", misses=" + missCount + ", evictions="
+        + evictionCount + ", size=" + size + "]";
+  }
+}
@@ -0,0 +1,251 @@
+package org.interledger.ilp.ledger.adaptor.rest.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, thread-safe cache that evicts the least recently used entries.
+ *
+ * <p>The cache is split into independently locked segments, each an access-ordered
+ * {@link LinkedHashMap}, so that threads working on different keys rarely contend. Eviction is
+ * per segment, which makes it approximate LRU across the whole cache. Hit, miss and eviction
+ * counts are kept in {@link LongAdder}s so recording them does not add contention either.
+ */
+public class ConcurrentLruCache<K, V> {
+
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+  private final List<Segment> segments;
+  private final int segmentMask;
+  private final int maximumSize;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructs a new <code>ConcurrentLruCache</code> instance with the default concurrency level.
+   *
+   * @param maximumSize
+   *  The maximum number of entries to hold.
+   */
+  public ConcurrentLruCache(int maximumSize) {
+    this(maximumSize, DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * Constructs a new <code>ConcurrentLruCache</code> instance.
+   *
+   * @param maximumSize
+   *  The maximum number of entries to hold.
+   * @param concurrencyLevel
+   *  The expected number of threads using the cache concurrently, used to size the segments.
+   */
+  public ConcurrentLruCache(int maximumSize, int concurrencyLevel) {
+
+    if (maximumSize < 1 || concurrencyLevel < 1) {
+      throw new IllegalArgumentException("maximumSize and concurrencyLevel must be at least 1.");
+    }
+
+    // A power of two number of segments, never more segments than entries
+    int segmentCount = Integer.highestOneBit(Math.min(maximumSize, concurrencyLevel));
+
+    // Spread the remainder so the segment capacities add up to exactly the maximum size
+    this.segments = new ArrayList<>(segmentCount);
+    for (int i = 0; i < segmentCount; i++) {
+      int remainder = i < maximumSize % segmentCount ? 1 : 0;
+      segments.add(new Segment(maximumSize / segmentCount + remainder));
+    }
+    this.segmentMask = segmentCount - 1;
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Returns the value cached for a key, marking it as recently used.
+   *
+   * @param key
+   *  The key to look up.
+   * @return
+   *  The cached value, or null if there is none.
+   */
+  public V get(K key) {
+
+    Segment segment = segmentFor(key);
+    V value;
+    synchronized (segment) {
+      value = segment.get(key);
+    }
+
+    if (value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value cached for a key if it is still valid, marking it as recently used. An
+   * invalid value, such as one that has expired, is removed and counted as a miss and an
+   * eviction.
+   *
+   * @param key
+   *  The key to look up.
+   * @param isValid
+   *  Checks whether a cached value may still be used.
+   * @return
+   *  The cached value, or null if there is none or it is no longer valid.
+   */
+  public V get(K key, Predicate<? super V> isValid) {
+
+    Segment segment = segmentFor(key);
+    V value;
+    synchronized (segment) {
+      value = segment.get(key);
+      if (value != null && !isValid.test(value)) {
+        segment.remove(key);
+        evictions.increment();
+        value = null;
+      }
+    }
+
+    if (value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value cached for a key, computing and caching it if there is none. The value is
+   * computed outside of any lock, so concurrent callers may compute it more than once, in which
+   * case the first value cached is returned to all of them.
+   *
+   * @param key
+   *  The key to look up.
+   * @param loader
+   *  Computes the value on a miss. Must not return null.
+   * @return
+   *  The cached or computed value.
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+
+    V value = get(key);
+    if (value != null) {
+      return value;
+    }
+
+    V computed = loader.apply(key);
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      value = segment.putIfAbsent(key, computed);
+    }
+    return value != null ? value : computed;
+  }
+
+  /**
+   * Caches a value, replacing any existing value for the key.
+   *
+   * @param key
+   *  The key.
+   * @param value
+   *  The value, must not be null.
+   */
+  public void put(K key, V value) {
+
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      segment.put(key, value);
+    }
+  }
+
+  /**
+   * Removes the value cached for a key.
+   *
+   * @param key
+   *  The key.
+   */
+  public void remove(K key) {
+
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      segment.remove(key);
+    }
+  }
+
+  /**
+   * Removes all entries. The counters are not reset.
+   */
+  public void clear() {
+
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /**
+   * The number of entries in the cache.
+   */
+  public int size() {
+
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Returns a snapshot of the cache's usage counters.
+   */
+  public CacheStats getStats() {
+    return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+  }
+
+  private Segment segmentFor(Object key) {
+
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return segments.get(hash & segmentMask);
+  }
+
+  /**
+   * An access-ordered map that drops its eldest entry once it exceeds its capacity.
+   */
+  private final class Segment extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 6284917025342361850L;
+
+    private final int capacity;
+
+    private Segment(int capacity) {
+      super(Math.min(capacity, 1 << 16) * 4 / 3 + 1, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+
+      if (size() > capacity) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+
+}
@@ -8,4 +8,8 @@ public class AdaptorStateException extends RuntimeException {
     super(message);
   }
 
+  public AdaptorStateException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
 }
@@ -0,0 +1,20 @@
+package org.interledger.ilp.ledger.adaptor.rest.exceptions;
+
+/**
+ * Thrown when the ledger does not answer a JSON-RPC request before its deadline.
+ */
+public class JsonRpcTimeoutException extends RuntimeException {
+
+  private static final long serialVersionUID = 6034611298453179212L;
+  private final String requestId;
+
+  public JsonRpcTimeoutException(String requestId, String message) {
+    super(message);
+    this.requestId = requestId;
+  }
+
+  public String getRequestId() {
+    return this.requestId;
+  }
+
+}
@@ -0,0 +1,26 @@
+package org.interledger.ilp.ledger.adaptor.rest.exceptions;
+
+/**
+ * Thrown when a JSON-RPC request cannot be sent, or its connection is lost or closed before a
+ * response is received.
+ */
+public class JsonRpcTransportException extends RuntimeException {
+
+  private static final long serialVersionUID = -5212473317826530913L;
+  private final String requestId;
+
+  public JsonRpcTransportException(String requestId, String message) {
+    super(message);
+    this.requestId = requestId;
+  }
+
+  public JsonRpcTransportException(String requestId, String message, Throwable cause) {
+    super(message, cause);
+    this.requestId = requestId;
+  }
+
+  public String getRequestId() {
+    return this.requestId;
+  }
+
+}
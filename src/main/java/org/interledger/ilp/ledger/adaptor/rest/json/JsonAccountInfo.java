@@ -1,8 +1,6 @@
 package org.interledger.ilp.ledger.adaptor.rest.json;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.net.URI;
 
@@ -116,12 +114,7 @@ public class JsonAccountInfo {
 
   @Override
   public String toString() {
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(this);
-    } catch (JsonProcessingException jpe) {
-      throw new RuntimeException(jpe);
-    }
+    return JsonCodec.toPrettyJson(this);
   }
 
 }
@@ -0,0 +1,143 @@
+package org.interledger.ilp.ledger.adaptor.rest.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The JSON codec shared by the REST services, the web socket channel and the JSON models.
+ *
+ * <p>An {@link ObjectMapper} is expensive to create and caches the serializers and deserializers it
+ * builds, so a single, fully configured instance is shared rather than one being created per call.
+ * Readers are cached per target type so that the root deserializer is resolved only once.
+ *
+ * <p>The mapper is built the same way as the one Spring uses for REST calls, so a model is encoded
+ * identically whether it travels over HTTP or the web socket, except that unknown properties are
+ * rejected, as they were by the plain mappers the models and the web socket channel used before;
+ * models that tolerate unknown properties say so with <code>@JsonIgnoreProperties</code>. The REST
+ * templates use {@link #getRestMapper()}, which keeps Spring's default of ignoring them.
+ *
+ * <p>Mappers, readers and writers are thread-safe once configured, and none of the instances
+ * returned here may be reconfigured.
+ */
+public final class JsonCodec {
+
+  private static final ObjectMapper MAPPER =
+      Jackson2ObjectMapperBuilder.json().failOnUnknownProperties(true).build();
+  private static final ObjectMapper REST_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+  private static final ObjectWriter WRITER = MAPPER.writer();
+  private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+
+  private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+  private JsonCodec() {}
+
+  /**
+   * Returns the shared object mapper, for APIs that need a mapper rather than a reader or writer.
+   * The mapper must not be reconfigured.
+   */
+  public static ObjectMapper getMapper() {
+    return MAPPER;
+  }
+
+  /**
+   * Returns the mapper for the REST message converters, which ignores unknown properties as
+   * Spring's default converter does. The mapper must not be reconfigured.
+   */
+  public static ObjectMapper getRestMapper() {
+    return REST_MAPPER;
+  }
+
+  /**
+   * Returns a cached reader for a type.
+   *
+   * @param type
+   *  The type to read.
+   * @return
+   *  A reader that produces instances of the given type.
+   */
+  public static ObjectReader readerFor(Class<?> type) {
+    return READERS.computeIfAbsent(type, MAPPER::readerFor);
+  }
+
+  /**
+   * Returns the compact writer, which serializes values according to their runtime type.
+   */
+  public static ObjectWriter writer() {
+    return WRITER;
+  }
+
+  /**
+   * Parses a JSON string.
+   *
+   * @param json
+   *  The JSON to parse.
+   * @param type
+   *  The type to read.
+   * @return
+   *  The parsed value.
+   * @throws IOException
+   *  If the JSON is malformed or does not match the type.
+   */
+  public static <T> T fromJson(String json, Class<T> type) throws IOException {
+    return readerFor(type).readValue(json);
+  }
+
+  /**
+   * Serializes a value to compact JSON.
+   *
+   * @param value
+   *  The value to serialize.
+   * @return
+   *  The JSON representation of the value, on a single line.
+   * @throws JsonProcessingException
+   *  If the value cannot be serialized.
+   */
+  public static String toJson(Object value) throws JsonProcessingException {
+    return WRITER.writeValueAsString(value);
+  }
+
+  /**
+   * Serializes a value to indented JSON, as used by the <code>toString()</code> methods of the
+   * JSON models.
+   *
+   * @param value
+   *  The value to serialize.
+   * @return
+   *  The indented JSON representation of the value.
+   * @throws RuntimeException
+   *  If the value cannot be serialized.
+   */
+  public static String toPrettyJson(Object value) {
+
+    try {
+      return PRETTY_WRITER.writeValueAsString(value);
+    } catch (JsonProcessingException jpe) {
+      throw new RuntimeException(jpe);
+    }
+  }
+
+  /**
+   * Converts a value, such as a map read from an untyped JSON property, into a model type without
+   * going through an intermediate JSON string.
+   *
+   * @param value
+   *  The value to convert.
+   * @param type
+   *  The type to convert to.
+   * @return
+   *  The converted value.
+   * @throws IllegalArgumentException
+   *  If the value cannot be converted.
+   */
+  public static <T> T convertValue(Object value, Class<T> type) {
+    return MAPPER.convertValue(value, type);
+  }
+
+}
@@ -1,8 +1,6 @@
 package org.interledger.ilp.ledger.adaptor.rest.json;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * JSON model of an error message that could be sent by the REST ledger.
@@ -13,8 +11,7 @@ public class JsonError {
   private String message;
 
   public static JsonError fromJson(String json) throws Exception {
-    ObjectMapper mapper = new ObjectMapper();
-    return mapper.readValue(json, JsonError.class);
+    return JsonCodec.fromJson(json, JsonError.class);
   }
 
   @JsonProperty(value = "id")
@@ -38,11 +35,6 @@ public class JsonError {
 
   @Override
   public String toString() {
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(this);
-    } catch (JsonProcessingException jpe) {
-      throw new RuntimeException(jpe);
-    }
+    return JsonCodec.toPrettyJson(this);
   }
 }
@@ -2,8 +2,6 @@ package org.interledger.ilp.ledger.adaptor.rest.json;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.net.URI;
 import java.util.List;
@@ -117,12 +115,7 @@ public class JsonLedgerInfo {
 
   @Override
   public String toString() {
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(this);
-    } catch (JsonProcessingException jpe) {
-      throw new RuntimeException(jpe);
-    }
+    return JsonCodec.toPrettyJson(this);
   }
 
 }
@@ -4,8 +4,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRawValue;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.net.URI;
 
@@ -50,6 +49,14 @@ public class JsonLedgerMessage {
     this.to = to;
   }
 
+  /**
+   * Sets the message data. When parsed from JSON, ILQP payloads are bound to their envelope type
+   * by {@link JsonLedgerMessageDataDeserializer}.
+   *
+   * @param data
+   *  The message data.
+   */
+  @JsonDeserialize(using = JsonLedgerMessageDataDeserializer.class)
   public void setData(Object data) {
     this.data = data;
   }
@@ -65,12 +72,7 @@ public class JsonLedgerMessage {
 
   @Override
   public String toString() {
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(this);
-    } catch (JsonProcessingException jpe) {
-      throw new RuntimeException(jpe);
-    }
+    return JsonCodec.toPrettyJson(this);
   }
 
 
@@ -0,0 +1,85 @@
+package org.interledger.ilp.ledger.adaptor.rest.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.interledger.ilqp.json.JsonErrorResponseEnvelope;
+import org.interledger.ilqp.json.JsonMessageEnvelope;
+import org.interledger.ilqp.json.JsonQuoteResponseEnvelope;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deserializes the <code>data</code> of a ledger message, binding ILQP payloads directly to their
+ * envelope type while the message is parsed.
+ *
+ * <p>Ledger messages carry no type information for their data, so the <code>method</code> property
+ * of a JSON object is used to pick the envelope. The object's tokens are copied into a
+ * {@link TokenBuffer} until the method is known and then bound from the buffer, so the payload is
+ * only parsed once and no intermediate tree or string is built. Objects with any other method are
+ * read as a <code>Map</code>, and any other value (typically a base64 encoded string) as is.
+ */
+public class JsonLedgerMessageDataDeserializer extends StdDeserializer<Object> {
+
+  private static final long serialVersionUID = 4181658837315574128L;
+
+  private static final Map<String, Class<? extends JsonMessageEnvelope>> ENVELOPE_TYPES =
+      new HashMap<>();
+
+  static {
+    ENVELOPE_TYPES.put("quote_response", JsonQuoteResponseEnvelope.class);
+    ENVELOPE_TYPES.put("error", JsonErrorResponseEnvelope.class);
+  }
+
+  public JsonLedgerMessageDataDeserializer() {
+    super(Object.class);
+  }
+
+  /**
+   * Returns the envelope type that message data with the given method is bound to.
+   *
+   * @param method
+   *  The value of the <code>method</code> property of the message data.
+   * @return
+   *  The envelope type, or null if data with this method is read as a <code>Map</code>.
+   */
+  public static Class<? extends JsonMessageEnvelope> getEnvelopeType(String method) {
+    return ENVELOPE_TYPES.get(method);
+  }
+
+  @Override
+  public Object deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+
+    if (!jp.isExpectedStartObjectToken()) {
+      return ctxt.readValue(jp, Object.class);
+    }
+
+    TokenBuffer buffer = new TokenBuffer(jp, ctxt);
+    buffer.writeStartObject();
+
+    String method = null;
+    for (JsonToken token = jp.nextToken(); token == JsonToken.FIELD_NAME; token = jp.nextToken()) {
+      String name = jp.getCurrentName();
+      buffer.writeFieldName(name);
+      if (jp.nextToken() == JsonToken.VALUE_STRING && "method".equals(name)) {
+        method = jp.getText();
+      }
+      buffer.copyCurrentStructure(jp);
+    }
+    buffer.writeEndObject();
+
+    JsonParser bufferParser = buffer.asParser(jp);
+    bufferParser.nextToken();
+
+    Class<? extends JsonMessageEnvelope> envelopeType = getEnvelopeType(method);
+    if (envelopeType != null) {
+      return ctxt.readValue(bufferParser, envelopeType);
+    }
+    return ctxt.readValue(bufferParser, Object.class);
+  }
+
+}
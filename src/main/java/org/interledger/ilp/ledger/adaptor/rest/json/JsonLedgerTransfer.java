@@ -4,8 +4,6 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
@@ -27,6 +25,7 @@ public class JsonLedgerTransfer {
   private ZonedDateTime expiresAt;
   private URI id;
   private URI ledgerId;
+  private String state;
 
   @JsonSerialize(contentAs = JsonLedgerTransferAccountEntry.class)
   public List<JsonLedgerTransferAccountEntry> getCredits() {
@@ -98,14 +97,19 @@ public class JsonLedgerTransfer {
     this.ledgerId = ledger;
   }
 
+  @JsonProperty("state")
+  public String getState() {
+    return state;
+  }
+
+  @JsonProperty("state")
+  public void setState(String state) {
+    this.state = state;
+  }
+
   @Override
   public String toString() {
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(this);
-    } catch (JsonProcessingException jpe) {
-      throw new RuntimeException(jpe);
-    }
+    return JsonCodec.toPrettyJson(this);
   }
 
 }
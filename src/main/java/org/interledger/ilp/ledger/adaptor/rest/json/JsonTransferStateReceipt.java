@@ -0,0 +1,82 @@
+package org.interledger.ilp.ledger.adaptor.rest.json;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.net.URI;
+
+/**
+ * JSON model of the signed transfer state receipt returned by the REST ledger.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JsonTransferStateReceipt {
+
+  private String type;
+  private Message message;
+  private URI signer;
+  private String signature;
+
+  @JsonProperty(value = "type")
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  @JsonProperty(value = "message")
+  public Message getMessage() {
+    return message;
+  }
+
+  public void setMessage(Message message) {
+    this.message = message;
+  }
+
+  @JsonProperty(value = "signer")
+  public URI getSigner() {
+    return signer;
+  }
+
+  public void setSigner(URI signer) {
+    this.signer = signer;
+  }
+
+  @JsonProperty(value = "signature")
+  public String getSignature() {
+    return signature;
+  }
+
+  public void setSignature(String signature) {
+    this.signature = signature;
+  }
+
+  /**
+   * The signed part of the receipt.
+   */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class Message {
+
+    private URI id;
+    private String state;
+
+    @JsonProperty(value = "id")
+    public URI getId() {
+      return id;
+    }
+
+    public void setId(URI id) {
+      this.id = id;
+    }
+
+    @JsonProperty(value = "state")
+    public String getState() {
+      return state;
+    }
+
+    public void setState(String state) {
+      this.state = state;
+    }
+  }
+}
@@ -1,11 +1,9 @@
 package org.interledger.ilp.ledger.adaptor.rest.json;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import java.io.IOException;
 
@@ -22,8 +20,7 @@ public class JsonValidator {
   public static boolean isValid(String json) {
     boolean retValue = true;
     try {
-      JsonParser parser = factory.createParser(json);
-      JsonNode jsonObj = mapper.readTree(parser);
+      READER.readTree(json);
     } catch (JsonParseException jpe) {
       retValue = false;
     } catch (IOException ioe) {
@@ -32,13 +29,8 @@ public class JsonValidator {
     return retValue;
   }
 
-  private static ObjectMapper mapper = new ObjectMapper();
-  private static JsonFactory factory;
-
-  static {
-    mapper.enable(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY);
-    factory = mapper.getFactory();
-  }
+  private static final ObjectReader READER = JsonCodec.readerFor(JsonNode.class)
+      .with(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY);
 }
 
 
@@ -0,0 +1,262 @@
+package org.interledger.ilp.ledger.adaptor.rest.money;
+
+import org.javamoney.moneta.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+
+/**
+ * Parses and formats the decimal amount strings used by a REST ledger, based on the ledger's
+ * currency, precision and scale.
+ *
+ * <p>Amounts are handled as a <code>long</code> number of units of the ledger's scale, for example
+ * "12.34" on a ledger with a scale of 2 is 1234 units. Parsing reads the digits straight into the
+ * <code>long</code> and formatting writes them straight into a character array, so neither creates
+ * a <code>BigDecimal</code> or any formatter state. Amounts that do not fit in a <code>long</code>
+ * fall back to <code>BigDecimal</code>.
+ *
+ * <p>Amounts are never rounded: an amount with more non-zero fraction digits than the ledger's
+ * scale, or with more significant digits than the ledger's precision, is rejected with an
+ * {@link ArithmeticException}. The {@link MonetaryAmount} methods used by the converter go through
+ * {@link #parseUnits(CharSequence)} and {@link #formatUnits(long)} whenever the amount fits in a
+ * <code>long</code>, so both APIs accept and produce exactly the same amounts.
+ */
+public class FixedPointAmountCodec {
+
+  /** The largest scale for which a <code>long</code> can still hold a whole unit. */
+  public static final int MAX_SCALE = 18;
+
+  private static final long NOT_FIXED = Long.MIN_VALUE;
+  private static final long MAX_BEFORE_DIGIT = (Long.MAX_VALUE - 9) / 10;
+  private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private final CurrencyUnit currency;
+  private final int precision;
+  private final int scale;
+  private final long maxUnits;
+  private final long minUnits;
+
+  /**
+   * Constructs a new <code>FixedPointAmountCodec</code> instance.
+   *
+   * @param currency
+   *  The currency of the ledger.
+   * @param precision
+   *  The maximum number of significant digits of amounts on the ledger, including the fraction
+   *      digits.
+   * @param scale
+   *  The number of fraction digits of amounts on the ledger.
+   */
+  public FixedPointAmountCodec(CurrencyUnit currency, int precision, int scale) {
+
+    if (scale < 0 || scale > MAX_SCALE) {
+      throw new IllegalArgumentException("scale must be between 0 and " + MAX_SCALE + ".");
+    }
+    if (precision < Math.max(scale, 1)) {
+      throw new IllegalArgumentException("precision must be at least 1 and the scale.");
+    }
+    this.currency = currency;
+    this.precision = precision;
+    this.scale = scale;
+    this.maxUnits = precision > MAX_SCALE ? Long.MAX_VALUE : POWERS_OF_TEN[precision] - 1;
+    this.minUnits = precision > MAX_SCALE ? Long.MIN_VALUE : -maxUnits;
+  }
+
+  public CurrencyUnit getCurrency() {
+    return currency;
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  /**
+   * Parses an amount string into a number of units of the ledger's scale.
+   *
+   * @param amount
+   *  A decimal amount, such as "12.34".
+   * @return
+   *  The amount as a number of units, such as 1234 for a ledger with a scale of 2.
+   * @throws NumberFormatException
+   *  If the string is not a decimal number.
+   * @throws ArithmeticException
+   *  If the amount has more fraction digits than the ledger's scale, more digits than the ledger's
+   *      precision or does not fit in a <code>long</code>.
+   */
+  public long parseUnits(CharSequence amount) {
+
+    long units = parseFixed(amount);
+    if (units == NOT_FIXED) {
+      units = parseDecimal(amount).unscaledValue().longValueExact();
+    }
+    return checkPrecision(units);
+  }
+
+  /**
+   * Formats a number of units of the ledger's scale as an amount string.
+   *
+   * @param units
+   *  The amount as a number of units.
+   * @return
+   *  A decimal amount with exactly as many fraction digits as the ledger's scale.
+   * @throws ArithmeticException
+   *  If the amount has more digits than the ledger's precision.
+   */
+  public String formatUnits(long units) {
+
+    checkPrecision(units);
+    if (units == Long.MIN_VALUE) {
+      return BigDecimal.valueOf(units, scale).toPlainString();
+    }
+
+    boolean negative = units < 0;
+    long remaining = negative ? -units : units;
+
+    char[] chars = new char[21 + scale];
+    int pos = chars.length;
+    for (int i = 0; i < scale; i++) {
+      chars[--pos] = (char) ('0' + remaining % 10);
+      remaining /= 10;
+    }
+    if (scale > 0) {
+      chars[--pos] = '.';
+    }
+    chars[--pos] = (char) ('0' + remaining % 10);
+    remaining /= 10;
+    while (remaining != 0) {
+      chars[--pos] = (char) ('0' + remaining % 10);
+      remaining /= 10;
+    }
+    if (negative) {
+      chars[--pos] = '-';
+    }
+    return new String(chars, pos, chars.length - pos);
+  }
+
+  /**
+   * Parses an amount string into a {@link MonetaryAmount} in the ledger's currency.
+   *
+   * @param amount
+   *  A decimal amount, such as "12.34".
+   * @return
+   *  An equivalent monetary amount.
+   * @throws NumberFormatException
+   *  If the string is not a decimal number.
+   * @throws ArithmeticException
+   *  If the amount has more fraction digits than the ledger's scale or more digits than the
+   *      ledger's precision.
+   */
+  public MonetaryAmount parse(CharSequence amount) {
+
+    long units = parseFixed(amount);
+    BigDecimal number = units != NOT_FIXED
+        ? BigDecimal.valueOf(checkPrecision(units), scale) : checkPrecision(parseDecimal(amount));
+    return Money.of(number, currency);
+  }
+
+  /**
+   * Formats a {@link MonetaryAmount} as an amount string.
+   *
+   * @param amount
+   *  The amount to format.
+   * @return
+   *  A decimal amount with exactly as many fraction digits as the ledger's scale.
+   * @throws ArithmeticException
+   *  If the amount has more non-zero fraction digits than the ledger's scale or more digits than
+   *      the ledger's precision.
+   */
+  public String format(MonetaryAmount amount) {
+
+    BigDecimal number = amount.getNumber().numberValue(BigDecimal.class)
+        .setScale(scale, RoundingMode.UNNECESSARY);
+    if (number.precision() <= MAX_SCALE) {
+      return formatUnits(number.unscaledValue().longValue());
+    }
+    return checkPrecision(number).toPlainString();
+  }
+
+  private long checkPrecision(long units) {
+
+    if (units > maxUnits || units < minUnits) {
+      throw new ArithmeticException("Amount exceeds the ledger's precision of " + precision + ".");
+    }
+    return units;
+  }
+
+  private BigDecimal checkPrecision(BigDecimal number) {
+
+    if (number.precision() > precision) {
+      throw new ArithmeticException("Amount exceeds the ledger's precision of " + precision + ".");
+    }
+    return number;
+  }
+
+  /**
+   * Parses an amount with <code>BigDecimal</code>, at exactly the ledger's scale.
+   */
+  private BigDecimal parseDecimal(CharSequence amount) {
+    return new BigDecimal(amount.toString()).setScale(scale, RoundingMode.UNNECESSARY);
+  }
+
+  /**
+   * Reads a plain decimal string into a number of units, or returns {@link #NOT_FIXED} if the
+   * string has to be handled by <code>BigDecimal</code> instead.
+   */
+  private long parseFixed(CharSequence amount) {
+
+    int length = amount.length();
+    int pos = 0;
+    boolean negative = false;
+    if (length > 0 && (amount.charAt(0) == '-' || amount.charAt(0) == '+')) {
+      negative = amount.charAt(0) == '-';
+      pos = 1;
+    }
+
+    long units = 0;
+    int fractionDigits = -1;
+    boolean hasDigits = false;
+    for (; pos < length; pos++) {
+      char ch = amount.charAt(pos);
+      if (ch >= '0' && ch <= '9') {
+        if (fractionDigits == scale || units > MAX_BEFORE_DIGIT) {
+          return NOT_FIXED;
+        }
+        if (fractionDigits >= 0) {
+          fractionDigits++;
+        }
+        units = units * 10 + (ch - '0');
+        hasDigits = true;
+      } else if (ch == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+      } else {
+        return NOT_FIXED;
+      }
+    }
+
+    if (!hasDigits) {
+      return NOT_FIXED;
+    }
+
+    long multiplier = POWERS_OF_TEN[scale - Math.max(fractionDigits, 0)];
+    if (units > Long.MAX_VALUE / multiplier) {
+      return NOT_FIXED;
+    }
+    units *= multiplier;
+    return negative ? -units : units;
+  }
+
+}
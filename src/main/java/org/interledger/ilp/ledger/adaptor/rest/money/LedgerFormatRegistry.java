@@ -0,0 +1,143 @@
+package org.interledger.ilp.ledger.adaptor.rest.money;
+
+import org.interledger.ilp.InterledgerAddress;
+import org.interledger.ilp.ledger.model.LedgerInfo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.money.format.MonetaryAmountFormat;
+
+/**
+ * A thread-safe registry of the monetary amount formats of other ledgers, keyed by ledger prefix.
+ *
+ * <p>Amounts in quotes are expressed in the format of the ledger they are relevant on, which is
+ * often not the local ledger. Formats are registered from the metadata of those ledgers and expire
+ * after a time to live, so that changes to a remote ledger's precision or scale are eventually
+ * picked up. Lookups find the format of the longest registered prefix of an address, so both a
+ * ledger prefix and an account address on that ledger resolve to the ledger's format.
+ */
+public class LedgerFormatRegistry {
+
+  public static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
+  private final ConcurrentMap<String, Entry> formats = new ConcurrentHashMap<>();
+  private final Duration defaultTtl;
+  private final Clock clock;
+
+  /**
+   * Constructs a new <code>LedgerFormatRegistry</code> instance with the default time to live.
+   */
+  public LedgerFormatRegistry() {
+    this(DEFAULT_TTL, Clock.systemUTC());
+  }
+
+  /**
+   * Constructs a new <code>LedgerFormatRegistry</code> instance.
+   *
+   * @param defaultTtl
+   *  How long a registered format is used for before it expires.
+   * @param clock
+   *  The clock used to expire formats.
+   */
+  public LedgerFormatRegistry(Duration defaultTtl, Clock clock) {
+    this.defaultTtl = defaultTtl;
+    this.clock = clock;
+  }
+
+  /**
+   * Registers the format of a ledger from its metadata, for the default time to live.
+   *
+   * @param ledgerInfo
+   *  The metadata of the ledger.
+   */
+  public void register(LedgerInfo ledgerInfo) {
+    register(ledgerInfo.getAddressPrefix(), ledgerInfo.getMonetaryAmountFormat(), defaultTtl);
+  }
+
+  /**
+   * Registers the format of a ledger, replacing any format already registered for the prefix.
+   *
+   * @param ledgerPrefix
+   *  The ILP prefix of the ledger.
+   * @param format
+   *  The format of amounts on the ledger.
+   * @param ttl
+   *  How long to use the format for, or null if it never expires.
+   */
+  public void register(InterledgerAddress ledgerPrefix, MonetaryAmountFormat format,
+      Duration ttl) {
+
+    long expiresAt = ttl == null ? Long.MAX_VALUE : clock.millis() + ttl.toMillis();
+    formats.put(ledgerPrefix.toString(), new Entry(format, expiresAt));
+  }
+
+  /**
+   * Finds the format of the ledger with the longest registered prefix of an address.
+   *
+   * @param address
+   *  A ledger prefix or an account address.
+   * @return
+   *  The format of the matching ledger, or null if no unexpired format matches.
+   */
+  public MonetaryAmountFormat find(InterledgerAddress address) {
+
+    if (formats.isEmpty()) {
+      return null;
+    }
+
+    String value = address.toString();
+    long now = clock.millis();
+    for (int end = value.lastIndexOf('.'); end >= 0; end = value.lastIndexOf('.', end - 1)) {
+      String prefix = value.substring(0, end + 1);
+      Entry entry = formats.get(prefix);
+      if (entry != null) {
+        if (entry.expiresAt > now) {
+          return entry.format;
+        }
+        formats.remove(prefix, entry);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes the format registered for a ledger prefix.
+   *
+   * @param ledgerPrefix
+   *  The ILP prefix of the ledger.
+   */
+  public void remove(InterledgerAddress ledgerPrefix) {
+    formats.remove(ledgerPrefix.toString());
+  }
+
+  /**
+   * Removes all expired formats.
+   */
+  public void evictExpired() {
+
+    long now = clock.millis();
+    formats.entrySet().removeIf(entry -> entry.getValue().expiresAt <= now);
+  }
+
+  /**
+   * The number of registered formats, including expired formats that have not been removed yet.
+   */
+  public int size() {
+    return formats.size();
+  }
+
+  private static final class Entry {
+
+    private final MonetaryAmountFormat format;
+    private final long expiresAt;
+
+    private Entry(MonetaryAmountFormat format, long expiresAt) {
+      this.format = format;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+}
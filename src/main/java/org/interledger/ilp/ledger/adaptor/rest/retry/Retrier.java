@@ -0,0 +1,216 @@
+package org.interledger.ilp.ledger.adaptor.rest.retry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Executes idempotent requests, retrying transient failures according to a {@link RetryPolicy}
+ * as long as the shared {@link RetryBudget} allows it.
+ *
+ * <p>Blocking calls sleep on the calling thread between attempts. Asynchronous calls schedule the
+ * next attempt on a scheduler and never block.
+ */
+public class Retrier {
+
+  private static final Logger log = LoggerFactory.getLogger(Retrier.class);
+
+  private static final ScheduledExecutorService DEFAULT_SCHEDULER = createDefaultScheduler();
+
+  private final RetryPolicy policy;
+  private final RetryBudget budget;
+  private final ScheduledExecutorService scheduler;
+
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder budgetExhausted = new LongAdder();
+
+  /**
+   * Constructs a new <code>Retrier</code> instance with the default policy and budget.
+   */
+  public Retrier() {
+    this(new RetryPolicy(), new RetryBudget());
+  }
+
+  /**
+   * Constructs a new <code>Retrier</code> instance that schedules asynchronous retries on a shared
+   * daemon thread.
+   *
+   * @param policy
+   *  Decides which failures are retried and how long to wait.
+   * @param budget
+   *  Limits the total number of retries.
+   */
+  public Retrier(RetryPolicy policy, RetryBudget budget) {
+    this(policy, budget, DEFAULT_SCHEDULER);
+  }
+
+  /**
+   * Constructs a new <code>Retrier</code> instance.
+   *
+   * @param policy
+   *  Decides which failures are retried and how long to wait.
+   * @param budget
+   *  Limits the total number of retries.
+   * @param scheduler
+   *  The scheduler used to delay asynchronous retries.
+   */
+  public Retrier(RetryPolicy policy, RetryBudget budget, ScheduledExecutorService scheduler) {
+    this.policy = policy;
+    this.budget = budget;
+    this.scheduler = scheduler;
+  }
+
+  public RetryPolicy getPolicy() {
+    return policy;
+  }
+
+  public RetryBudget getBudget() {
+    return budget;
+  }
+
+  /** The number of retries made so far. */
+  public long getRetryCount() {
+    return retries.sum();
+  }
+
+  /** The number of retryable failures that were not retried because the budget was empty. */
+  public long getBudgetExhaustedCount() {
+    return budgetExhausted.sum();
+  }
+
+  /**
+   * Executes a blocking request, retrying it on transient failures.
+   *
+   * @param description
+   *  A description of the request for logging.
+   * @param request
+   *  The request to execute. Must be idempotent.
+   * @return
+   *  The result of the first successful attempt.
+   */
+  public <T> T execute(String description, Supplier<T> request) {
+
+    budget.onRequest();
+
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return request.get();
+      } catch (RuntimeException ex) {
+        if (!shouldRetry(description, ex, attempt)) {
+          throw ex;
+        }
+        try {
+          Thread.sleep(policy.getBackoffMillis(attempt));
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw ex;
+        }
+      }
+    }
+  }
+
+  /**
+   * Executes an asynchronous request, retrying it on transient failures.
+   *
+   * @param description
+   *  A description of the request for logging.
+   * @param request
+   *  Starts a new attempt of the request. Must be idempotent.
+   * @return
+   *  A future that completes with the result of the first successful attempt, or exceptionally
+   *      with the error of the last attempt.
+   */
+  public <T> CompletableFuture<T> executeAsync(String description,
+      Supplier<CompletableFuture<T>> request) {
+
+    budget.onRequest();
+
+    CompletableFuture<T> result = new CompletableFuture<>();
+    attemptAsync(description, request, 1, result);
+    return result;
+  }
+
+  private <T> void attemptAsync(String description, Supplier<CompletableFuture<T>> request,
+      int attempt, CompletableFuture<T> result) {
+
+    if (result.isDone()) {
+      // Cancelled by the caller
+      return;
+    }
+
+    CompletableFuture<T> future;
+    try {
+      future = request.get();
+    } catch (RuntimeException ex) {
+      result.completeExceptionally(ex);
+      return;
+    }
+
+    future.whenComplete((value, ex) -> {
+      if (ex == null) {
+        result.complete(value);
+        return;
+      }
+
+      Throwable cause = unwrap(ex);
+      if (!shouldRetry(description, cause, attempt)) {
+        result.completeExceptionally(cause);
+        return;
+      }
+
+      try {
+        scheduler.schedule(() -> attemptAsync(description, request, attempt + 1, result),
+            policy.getBackoffMillis(attempt), TimeUnit.MILLISECONDS);
+      } catch (RuntimeException rejected) {
+        result.completeExceptionally(cause);
+      }
+    });
+  }
+
+  private boolean shouldRetry(String description, Throwable ex, int attempt) {
+
+    if (attempt >= policy.getMaxAttempts() || !policy.isRetryable(ex)) {
+      return false;
+    }
+
+    if (!budget.tryAcquireRetry()) {
+      budgetExhausted.increment();
+      log.debug("Not retrying {}, retry budget exhausted: {}", description, ex.getMessage());
+      return false;
+    }
+
+    retries.increment();
+    log.debug("Retrying {} after attempt {} failed: {}", description, attempt, ex.getMessage());
+    return true;
+  }
+
+  private static Throwable unwrap(Throwable ex) {
+
+    Throwable cause = ex;
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  private static ScheduledExecutorService createDefaultScheduler() {
+
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "ledger-retry-scheduler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+}
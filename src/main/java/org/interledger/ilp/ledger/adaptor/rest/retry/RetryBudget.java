@@ -0,0 +1,89 @@
+package org.interledger.ilp.ledger.adaptor.rest.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket that limits retries to a fraction of the requests sent, so that retries cannot
+ * multiply the load on a ledger that is already failing.
+ *
+ * <p>Every first attempt deposits <code>retryRatio</code> of a token and every retry withdraws a
+ * whole token. The bucket starts full and holds at most <code>maxTokens</code>, which allows short
+ * bursts of retries after a quiet period. Once it is empty, failures are returned to the caller
+ * without being retried until enough new requests have refilled it.
+ */
+public class RetryBudget {
+
+  public static final double DEFAULT_RETRY_RATIO = 0.2;
+  public static final int DEFAULT_MAX_TOKENS = 100;
+
+  // Tokens are held in thousandths so the bucket can be updated atomically
+  private static final long SCALE = 1000;
+
+  private final long deposit;
+  private final long capacity;
+  private final AtomicLong balance;
+
+  /**
+   * Constructs a new <code>RetryBudget</code> instance with the default ratio and capacity.
+   */
+  public RetryBudget() {
+    this(DEFAULT_RETRY_RATIO, DEFAULT_MAX_TOKENS);
+  }
+
+  /**
+   * Constructs a new <code>RetryBudget</code> instance.
+   *
+   * @param retryRatio
+   *  The number of retries allowed per request sent, e.g. 0.2 allows one retry per five requests.
+   * @param maxTokens
+   *  The maximum number of retries that can be saved up.
+   */
+  public RetryBudget(double retryRatio, int maxTokens) {
+
+    if (retryRatio < 0 || maxTokens < 0) {
+      throw new IllegalArgumentException("retryRatio and maxTokens must not be negative.");
+    }
+    this.deposit = Math.round(retryRatio * SCALE);
+    this.capacity = maxTokens * SCALE;
+    this.balance = new AtomicLong(capacity);
+  }
+
+  /**
+   * Records that a first attempt was made.
+   */
+  public void onRequest() {
+
+    while (true) {
+      long current = balance.get();
+      if (current >= capacity
+          || balance.compareAndSet(current, Math.min(capacity, current + deposit))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Withdraws a token for a retry, if one is available.
+   *
+   * @return
+   *  True if the retry may go ahead.
+   */
+  public boolean tryAcquireRetry() {
+
+    while (true) {
+      long current = balance.get();
+      if (current < SCALE) {
+        return false;
+      }
+      if (balance.compareAndSet(current, current - SCALE)) {
+        return true;
+      }
+    }
+  }
+
+  /** The number of whole retries currently available. */
+  public long getAvailableRetries() {
+    return balance.get() / SCALE;
+  }
+
+}
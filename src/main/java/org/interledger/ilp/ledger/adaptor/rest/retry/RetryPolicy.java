@@ -0,0 +1,133 @@
+package org.interledger.ilp.ledger.adaptor.rest.retry;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.NoHttpResponseException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.EOFException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Settings that decide whether, and after how long, a failed idempotent request to the ledger is
+ * retried.
+ *
+ * <p>Failures are retryable if the ledger answered with a 5xx status other than
+ * <code>501 Not Implemented</code>, or if the request failed with a transient I/O error (connection
+ * refused or reset, read or connect timeout, connection closed without a response), which the rest
+ * templates report as a {@link ResourceAccessException}. Errors the ledger reports with a 4xx
+ * status are never retried, and neither are I/O errors caused by misconfiguration, such as an
+ * unknown host or a failed TLS handshake.
+ *
+ * <p>The delay before each retry is drawn uniformly between zero and a capped exponential bound
+ * ("full jitter"), so that clients that failed together do not retry together.
+ */
+public class RetryPolicy {
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 4;
+  public static final long DEFAULT_BASE_DELAY_MILLIS = 100;
+  public static final long DEFAULT_MAX_DELAY_MILLIS = 5000;
+
+  private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+  private long baseDelayMillis = DEFAULT_BASE_DELAY_MILLIS;
+  private long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+
+  /**
+   * Returns a policy that never retries.
+   */
+  public static RetryPolicy noRetries() {
+
+    RetryPolicy policy = new RetryPolicy();
+    policy.setMaxAttempts(1);
+    return policy;
+  }
+
+  /** The maximum number of attempts, including the first one. */
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /** The upper bound of the delay before the first retry. */
+  public long getBaseDelayMillis() {
+    return baseDelayMillis;
+  }
+
+  /** The cap on the upper bound of the delay before any retry. */
+  public long getMaxDelayMillis() {
+    return maxDelayMillis;
+  }
+
+  /**
+   * Sets the maximum number of attempts, including the first one.
+   *
+   * @param maxAttempts
+   *  The number of attempts, at least 1.
+   */
+  public void setMaxAttempts(int maxAttempts) {
+
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("maxAttempts must be at least 1.");
+    }
+    this.maxAttempts = maxAttempts;
+  }
+
+  public void setBaseDelayMillis(long baseDelayMillis) {
+    this.baseDelayMillis = baseDelayMillis;
+  }
+
+  public void setMaxDelayMillis(long maxDelayMillis) {
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * Determines if a failed request may be retried.
+   *
+   * @param ex
+   *  The exception the request failed with.
+   * @return
+   *  True if the failure is transient.
+   */
+  public boolean isRetryable(Throwable ex) {
+
+    if (ex instanceof HttpServerErrorException) {
+      return ((HttpServerErrorException) ex).getStatusCode() != HttpStatus.NOT_IMPLEMENTED;
+    }
+    return ex instanceof ResourceAccessException && isTransient(ex.getCause());
+  }
+
+  /**
+   * Determines if the I/O error behind a {@link ResourceAccessException} may go away by itself.
+   * Socket errors and timeouts do, while an <code>UnknownHostException</code> or
+   * <code>SSLException</code> points at a configuration problem that retrying cannot fix.
+   */
+  private static boolean isTransient(Throwable cause) {
+
+    return cause instanceof SocketException
+        || cause instanceof InterruptedIOException
+        || cause instanceof EOFException
+        || cause instanceof NoHttpResponseException
+        || cause instanceof ConnectionClosedException;
+  }
+
+  /**
+   * Calculates the delay before a retry.
+   *
+   * @param retry
+   *  The number of the retry, starting at 1 for the first retry.
+   * @return
+   *  A random delay between zero and <code>min(maxDelay, baseDelay * 2^(retry - 1))</code>.
+   */
+  public long getBackoffMillis(int retry) {
+
+    int shift = Math.min(Math.max(retry - 1, 0), 30);
+    long bound = Math.min(maxDelayMillis, baseDelayMillis << shift);
+    if (bound <= 0) {
+      return 0;
+    }
+    return ThreadLocalRandom.current().nextLong(bound + 1);
+  }
+
+}
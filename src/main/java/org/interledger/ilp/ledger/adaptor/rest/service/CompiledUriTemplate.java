@@ -0,0 +1,223 @@
+package org.interledger.ilp.ledger.adaptor.rest.service;
+
+import org.springframework.web.util.UriTemplate;
+import org.springframework.web.util.UriUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A URI template with a single variable, such as <code>http://example.com/accounts/{name}</code>,
+ * compiled once into the literal prefix and suffix around the variable.
+ *
+ * <p>Expanding the template is a concatenation, and extracting the variable from a URI is a check
+ * of the prefix and suffix followed by a substring, or no allocation at all when parsing a UUID.
+ * Values are encoded as Spring's {@link UriTemplate} encodes a path, so a '/' in a value is kept
+ * as is while '?', '#' and non-ASCII characters are percent-encoded. Templates with no variable
+ * or more than one variable are handled by Spring's {@link UriTemplate} instead.
+ */
+public class CompiledUriTemplate {
+
+  private final String template;
+  private final String prefix;
+  private final String suffix;
+  private final UriTemplate fallback;
+
+  /**
+   * Constructs a new <code>CompiledUriTemplate</code> instance.
+   *
+   * @param uriTemplate
+   *  The URI template string, with the variable in <code>{name}</code> form.
+   */
+  public CompiledUriTemplate(String uriTemplate) {
+
+    this.template = uriTemplate;
+
+    int open = uriTemplate.indexOf('{');
+    int close = uriTemplate.indexOf('}', open + 1);
+    boolean single = open >= 0 && close > open && uriTemplate.indexOf('{', close) < 0;
+
+    if (single) {
+      this.prefix = uriTemplate.substring(0, open);
+      this.suffix = uriTemplate.substring(close + 1);
+      this.fallback = null;
+    } else {
+      this.prefix = null;
+      this.suffix = null;
+      this.fallback = new UriTemplate(uriTemplate);
+    }
+  }
+
+  /**
+   * Creates a full URI based on the template and variable value.
+   *
+   * @param value
+   *  A value to substitute the template placeholder in the URI. Characters that are not allowed
+   *      in a path are percent-encoded.
+   * @return
+   *  A URI with the template replaced with the given value.
+   */
+  public URI getUri(String value) {
+
+    if (fallback != null) {
+      return fallback.expand(value);
+    }
+
+    String segment = isPathSafe(value) ? value : encodePath(value);
+    return URI.create(new StringBuilder(prefix.length() + segment.length() + suffix.length())
+        .append(prefix).append(segment).append(suffix).toString());
+  }
+
+  /**
+   * Extracts the variable from a URI, for example given <code>http://example.com/{name}</code> and
+   * <code>http://example.com/bob</code>, the method will return 'bob'. The value is returned as
+   * it appears in the URI, without decoding.
+   *
+   * @param uri
+   *  A URI matching the template.
+   * @return
+   *  The value of the variable embedded in the URI.
+   * @throws IllegalArgumentException
+   *  If the URI does not match the template.
+   */
+  public String extractToken(URI uri) {
+
+    String value = uri.toString();
+
+    if (fallback != null) {
+      Map<String, String> variables = fallback.match(value);
+      List<String> names = fallback.getVariableNames();
+      if (variables.isEmpty() || names.isEmpty()) {
+        throw new IllegalArgumentException("URI " + value + " does not match " + template);
+      }
+      return variables.get(names.get(names.size() - 1));
+    }
+
+    return value.substring(tokenStart(value), tokenEnd(value));
+  }
+
+  /**
+   * Extracts a UUID from a URI without allocating an intermediate string.
+   *
+   * @param uri
+   *  A URI matching the template, with a UUID as the variable.
+   * @return
+   *  The UUID embedded in the URI.
+   * @throws IllegalArgumentException
+   *  If the URI does not match the template or the variable is not a UUID.
+   */
+  public UUID extractUuid(URI uri) {
+
+    if (fallback != null) {
+      return UUID.fromString(extractToken(uri));
+    }
+
+    String value = uri.toString();
+    return parseUuid(value, tokenStart(value), tokenEnd(value));
+  }
+
+  @Override
+  public String toString() {
+    return template;
+  }
+
+  private int tokenStart(String value) {
+
+    if (!value.startsWith(prefix)) {
+      throw new IllegalArgumentException("URI " + value + " does not match " + template);
+    }
+    return prefix.length();
+  }
+
+  private int tokenEnd(String value) {
+
+    int end = value.length() - suffix.length();
+    if (end < prefix.length() || !value.startsWith(suffix, end)) {
+      throw new IllegalArgumentException("URI " + value + " does not match " + template);
+    }
+    return end;
+  }
+
+  /**
+   * Parses the canonical 8-4-4-4-12 form of a UUID from a region of a string.
+   */
+  static UUID parseUuid(String value, int start, int end) {
+
+    if (end - start != 36 || value.charAt(start + 8) != '-' || value.charAt(start + 13) != '-'
+        || value.charAt(start + 18) != '-' || value.charAt(start + 23) != '-') {
+      throw new IllegalArgumentException(
+          "Invalid UUID string: " + value.substring(start, Math.max(start, end)));
+    }
+
+    long msb = parseHex(value, start, start + 8);
+    msb = (msb << 16) | parseHex(value, start + 9, start + 13);
+    msb = (msb << 16) | parseHex(value, start + 14, start + 18);
+    long lsb = parseHex(value, start + 19, start + 23);
+    lsb = (lsb << 48) | parseHex(value, start + 24, start + 36);
+    return new UUID(msb, lsb);
+  }
+
+  private static long parseHex(String value, int start, int end) {
+
+    long result = 0;
+    for (int i = start; i < end; i++) {
+      int digit = Character.digit(value.charAt(i), 16);
+      if (digit < 0) {
+        throw new IllegalArgumentException(
+            "Invalid UUID string: " + value.substring(start, end));
+      }
+      result = (result << 4) | digit;
+    }
+    return result;
+  }
+
+  /**
+   * Checks if a value only contains characters that may appear unencoded in a path.
+   */
+  private static boolean isPathSafe(String value) {
+
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')) {
+        continue;
+      }
+      switch (ch) {
+        case '-':
+        case '.':
+        case '_':
+        case '~':
+        case '!':
+        case '$':
+        case '&':
+        case '\'':
+        case '(':
+        case ')':
+        case '*':
+        case '+':
+        case ',':
+        case ';':
+        case '=':
+        case ':':
+        case '@':
+        case '/':
+          continue;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private static String encodePath(String value) {
+
+    try {
+      return UriUtils.encodePath(value, "UTF-8");
+    } catch (UnsupportedEncodingException uee) {
+      throw new IllegalStateException(uee);
+    }
+  }
+
+}
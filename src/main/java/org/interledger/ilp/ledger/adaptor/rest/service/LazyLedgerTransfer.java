@@ -0,0 +1,287 @@
+package org.interledger.ilp.ledger.adaptor.rest.service;
+
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.ilp.InterledgerAddress;
+import org.interledger.ilp.client.model.ClientLedgerTransfer;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransfer;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransferAccountEntry;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import javax.money.MonetaryAmount;
+
+/**
+ * A ledger transfer backed by the JSON model received from the ledger, which decodes each property
+ * the first time it is read.
+ *
+ * <p>Decoding a transfer involves parsing crypto-condition URIs, decoding the memo, parsing the
+ * amount and resolving the account URIs. Event handlers that only look at a few properties, such
+ * as the id, only pay for those. Decoded values are memoized, and a value set through a setter
+ * replaces the decoded value, as for a {@link ClientLedgerTransfer}.
+ *
+ * <p>Instances are safe to read from several threads. A property is decoded at most once.
+ */
+public class LazyLedgerTransfer extends ClientLedgerTransfer {
+
+  private static final int ID = 1;
+  private static final int FROM_ACCOUNT = 1 << 1;
+  private static final int TO_ACCOUNT = 1 << 2;
+  private static final int AMOUNT = 1 << 3;
+  private static final int INVOICE = 1 << 4;
+  private static final int DATA = 1 << 5;
+  private static final int AUTHORIZED = 1 << 6;
+  private static final int EXECUTION_CONDITION = 1 << 7;
+  private static final int CANCELLATION_CONDITION = 1 << 8;
+  private static final int EXPIRES_AT = 1 << 9;
+  private static final int REJECTED = 1 << 10;
+  private static final int REJECTION_MESSAGE = 1 << 11;
+
+  private final RestLedgerJsonConverter converter;
+  private final JsonLedgerTransfer jsonTransfer;
+  private final JsonLedgerTransferAccountEntry creditEntry;
+  private final JsonLedgerTransferAccountEntry debitEntry;
+
+  private volatile int decoded;
+
+  /**
+   * Constructs a new <code>LazyLedgerTransfer</code> instance.
+   *
+   * @param converter
+   *  The converter used to decode the properties of the transfer.
+   * @param jsonTransfer
+   *  The JSON model of the transfer, with exactly one credit and one debit.
+   */
+  LazyLedgerTransfer(RestLedgerJsonConverter converter, JsonLedgerTransfer jsonTransfer) {
+
+    this.converter = converter;
+    this.jsonTransfer = jsonTransfer;
+    // FIXME Process the debit and credit entries fully
+    this.creditEntry = jsonTransfer.getCredits().get(0);
+    this.debitEntry = jsonTransfer.getDebits().get(0);
+  }
+
+  /**
+   * Provides access to the JSON model the transfer was received as.
+   */
+  public JsonLedgerTransfer getJsonTransfer() {
+    return jsonTransfer;
+  }
+
+  @Override
+  public UUID getId() {
+    decodeIfNeeded(ID);
+    return super.getId();
+  }
+
+  @Override
+  public synchronized void setId(UUID id) {
+    super.setId(id);
+    decoded |= ID;
+  }
+
+  @Override
+  public InterledgerAddress getFromAccount() {
+    decodeIfNeeded(FROM_ACCOUNT);
+    return super.getFromAccount();
+  }
+
+  @Override
+  public synchronized void setFromAccount(InterledgerAddress fromAccount) {
+    super.setFromAccount(fromAccount);
+    decoded |= FROM_ACCOUNT;
+  }
+
+  @Override
+  public InterledgerAddress getToAccount() {
+    decodeIfNeeded(TO_ACCOUNT);
+    return super.getToAccount();
+  }
+
+  @Override
+  public synchronized void setToAccount(InterledgerAddress toAccount) {
+    super.setToAccount(toAccount);
+    decoded |= TO_ACCOUNT;
+  }
+
+  @Override
+  public MonetaryAmount getAmount() {
+    decodeIfNeeded(AMOUNT);
+    return super.getAmount();
+  }
+
+  @Override
+  public synchronized void setAmount(MonetaryAmount amount) {
+    super.setAmount(amount);
+    decoded |= AMOUNT;
+  }
+
+  @Override
+  public String getInvoice() {
+    decodeIfNeeded(INVOICE);
+    return super.getInvoice();
+  }
+
+  @Override
+  public synchronized void setInvoice(String invoice) {
+    super.setInvoice(invoice);
+    decoded |= INVOICE;
+  }
+
+  @Override
+  public byte[] getData() {
+    decodeIfNeeded(DATA);
+    return super.getData();
+  }
+
+  @Override
+  public synchronized void setData(byte[] data) {
+    super.setData(data);
+    decoded |= DATA;
+  }
+
+  @Override
+  public boolean isAuthorized() {
+    decodeIfNeeded(AUTHORIZED);
+    return super.isAuthorized();
+  }
+
+  @Override
+  public synchronized void setAuthorized(boolean authorized) {
+    super.setAuthorized(authorized);
+    decoded |= AUTHORIZED;
+  }
+
+  @Override
+  public Condition getExecutionCondition() {
+    decodeIfNeeded(EXECUTION_CONDITION);
+    return super.getExecutionCondition();
+  }
+
+  @Override
+  public synchronized void setExecutionCondition(Condition executionCondition) {
+    super.setExecutionCondition(executionCondition);
+    decoded |= EXECUTION_CONDITION;
+  }
+
+  @Override
+  public Condition getCancellationCondition() {
+    decodeIfNeeded(CANCELLATION_CONDITION);
+    return super.getCancellationCondition();
+  }
+
+  @Override
+  public synchronized void setCancellationCondition(Condition cancellationCondition) {
+    super.setCancellationCondition(cancellationCondition);
+    decoded |= CANCELLATION_CONDITION;
+  }
+
+  @Override
+  public ZonedDateTime getExpiresAt() {
+    decodeIfNeeded(EXPIRES_AT);
+    return super.getExpiresAt();
+  }
+
+  @Override
+  public synchronized void setExpiresAt(ZonedDateTime expiresAt) {
+    super.setExpiresAt(expiresAt);
+    decoded |= EXPIRES_AT;
+  }
+
+  @Override
+  public boolean isRejected() {
+    decodeIfNeeded(REJECTED);
+    return super.isRejected();
+  }
+
+  @Override
+  public synchronized void setRejected(boolean rejected) {
+    super.setRejected(rejected);
+    decoded |= REJECTED;
+  }
+
+  @Override
+  public String getRejectionMessage() {
+    decodeIfNeeded(REJECTION_MESSAGE);
+    return super.getRejectionMessage();
+  }
+
+  @Override
+  public synchronized void setRejectionMessage(String rejectionMessage) {
+    super.setRejectionMessage(rejectionMessage);
+    decoded |= REJECTION_MESSAGE;
+  }
+
+  /**
+   * Decodes a property unless it has already been decoded or set. The check is a single volatile
+   * read once the property is available, so repeated reads are cheap.
+   */
+  private void decodeIfNeeded(int property) {
+
+    if ((decoded & property) == 0) {
+      decode(property);
+    }
+  }
+
+  private synchronized void decode(int property) {
+
+    if ((decoded & property) != 0) {
+      return;
+    }
+
+    switch (property) {
+      case ID:
+        super.setId(converter.convertTransferUriToUuid(jsonTransfer.getId()));
+        break;
+      case FROM_ACCOUNT:
+        super.setFromAccount(converter.convertAccountUriToAddress(debitEntry.getAccount()));
+        break;
+      case TO_ACCOUNT:
+        super.setToAccount(converter.convertAccountUriToAddress(creditEntry.getAccount()));
+        break;
+      case AMOUNT:
+        super.setAmount(converter.convertJsonFormattedAmount(debitEntry.getAmount()));
+        break;
+      case INVOICE:
+        if (debitEntry.getInvoice() != null) {
+          super.setInvoice(debitEntry.getInvoice().toString());
+        }
+        break;
+      case DATA:
+        if (debitEntry.getMemo() != null) {
+          super.setData(converter.convertJsonTransferMemo(debitEntry.getMemo()));
+        }
+        break;
+      case AUTHORIZED:
+        super.setAuthorized(debitEntry.isAuthorized());
+        break;
+      case EXECUTION_CONDITION:
+        if (jsonTransfer.getExecutionCondition() != null) {
+          super.setExecutionCondition(converter.convertJsonCondition(
+              jsonTransfer.getExecutionCondition(), "execution", jsonTransfer.getExpiresAt()));
+        }
+        break;
+      case CANCELLATION_CONDITION:
+        if (jsonTransfer.getCancellationCondition() != null) {
+          super.setCancellationCondition(converter.convertJsonCondition(
+              jsonTransfer.getCancellationCondition(), "cancellation",
+              jsonTransfer.getExpiresAt()));
+        }
+        break;
+      case EXPIRES_AT:
+        super.setExpiresAt(jsonTransfer.getExpiresAt());
+        break;
+      case REJECTED:
+        super.setRejected(debitEntry.isRejected());
+        break;
+      case REJECTION_MESSAGE:
+        super.setRejectionMessage(debitEntry.getRejectionMessage());
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown property: " + property);
+    }
+
+    decoded |= property;
+  }
+
+}
@@ -4,19 +4,16 @@ import org.interledger.ilp.ledger.adaptor.rest.exceptions.AdaptorStateException;
 import org.interledger.ilp.ledger.adaptor.rest.exceptions.RestServiceException;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonAccountInfo;
 import org.interledger.ilp.ledger.adaptor.ws.JsonRpcLedgerWebSocketChannel;
-import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcResponseMessage;
-import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcSubscribeAccountRequest;
-import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcSubscribeAccountRequestParams;
+import org.interledger.ilp.ledger.adaptor.ws.ShardedLedgerWebSocketChannel;
 import org.interledger.ilp.ledger.model.AccountInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This service provides methods to interact with the REST ledger for account related activity.
@@ -25,10 +22,11 @@ public class RestLedgerAccountService extends RestServiceBase {
   
   private static final Logger log = LoggerFactory.getLogger(RestLedgerAccountService.class);
 
-  private JsonRpcLedgerWebSocketChannel websocketChannel;
+  private ShardedLedgerWebSocketChannel websocketChannel;
 
   /**
-   * Constructs a new <code>RestLedgerAccountService</code> instance.
+   * Constructs a new <code>RestLedgerAccountService</code> instance using a single web socket
+   * channel for all accounts.
    * 
    * @param converter
    *  A converter used to translate between the JSON based ledger models and the standard models
@@ -41,7 +39,44 @@ public class RestLedgerAccountService extends RestServiceBase {
   public RestLedgerAccountService(RestLedgerJsonConverter converter, RestTemplate restTemplate,
       JsonRpcLedgerWebSocketChannel websocketChannel) {
     
-    super(converter, restTemplate);
+    this(converter, restTemplate, null,
+        websocketChannel == null ? null : new ShardedLedgerWebSocketChannel(websocketChannel));
+  }
+
+  /**
+   * Constructs a new <code>RestLedgerAccountService</code> instance.
+   * 
+   * @param converter
+   *  A converter used to translate between the JSON based ledger models and the standard models
+   *      defined in ilp-core.
+   * @param restTemplate
+   *  The rest template to use when interacting with the REST ledger.
+   * @param websocketChannel
+   *  The web socket channels to use when interacting with the ledger over websocket.
+   */
+  public RestLedgerAccountService(RestLedgerJsonConverter converter, RestTemplate restTemplate,
+      ShardedLedgerWebSocketChannel websocketChannel) {
+    
+    this(converter, restTemplate, null, websocketChannel);
+  }
+
+  /**
+   * Constructs a new <code>RestLedgerAccountService</code> instance.
+   * 
+   * @param converter
+   *  A converter used to translate between the JSON based ledger models and the standard models
+   *      defined in ilp-core.
+   * @param restTemplate
+   *  The rest template to use when interacting with the REST ledger.
+   * @param asyncRestTemplate
+   *  The non-blocking rest template to use for asynchronous interactions with the REST ledger.
+   * @param websocketChannel
+   *  The web socket channels to use when interacting with the ledger over websocket.
+   */
+  public RestLedgerAccountService(RestLedgerJsonConverter converter, RestTemplate restTemplate,
+      AsyncRestTemplate asyncRestTemplate, ShardedLedgerWebSocketChannel websocketChannel) {
+    
+    super(converter, restTemplate, asyncRestTemplate);
     this.websocketChannel = websocketChannel;
   }
 
@@ -64,61 +99,81 @@ public class RestLedgerAccountService extends RestServiceBase {
 
       return getConverter().convertJsonAccountInfo(jsonAccount);
     } catch (HttpStatusCodeException sce) {
-      switch (sce.getStatusCode()) {
-        case BAD_REQUEST:
-        // deliberately fall through
-        case NOT_FOUND:
-          throw parseRestException(sce);
-        default:
-          throw sce;
-      }
+      throw translateAccountException(sce);
+    }
+  }
+
+  /**
+   * Retrieves information about the given account from the ledger without blocking the calling
+   * thread.
+   *
+   * @param accountId
+   *  The account identifier, as represented by a URI on the REST ledger
+   * @return
+   *  A future that completes with the account information, or exceptionally with the same
+   *      exception {@link #getAccountInfo(URI)} would throw.
+   */
+  public CompletableFuture<AccountInfo> getAccountInfoAsync(URI accountId) {
+
+    log.debug("GET Account (async): name = " + accountId);
+
+    try {
+      return toCompletableFuture(
+          getAsyncRestTemplate().getForEntity(accountId, JsonAccountInfo.class),
+          this::translateAccountException)
+          .thenApply(rsp -> getConverter().convertJsonAccountInfo(rsp.getBody()));
+    } catch (RuntimeException ex) {
+      return failedFuture(ex);
     }
   }
 
   /**
-   * Subscribes the web socket channel to receive account notifications for the given account from
-   * the ledger.
+   * Subscribes the web socket channel of the given account to receive its notifications from the
+   * ledger. Subscriptions made within a short window are sent to the ledger together.
    *
    * @param accountId
    *  The account to subscribe to for notifications, as represented by a URI on the REST ledger.
+   * @return
+   *  A future that completes when the ledger has acknowledged the subscription.
    */
-  public void subscribeToAccountNotifications(URI accountId) throws AdaptorStateException {
+  public CompletableFuture<Void> subscribeToAccountNotifications(URI accountId)
+      throws AdaptorStateException {
 
-    if (!websocketChannel.canSend()) {
+    if (!websocketChannel.canSend(accountId)) {
       throw new AdaptorStateException("Websocket is disconnected. No session available to send.");
     }
 
     log.debug("Subscribing to notifications for: " + accountId.toString());
+    return websocketChannel.subscribe(accountId);
+  }
 
-    // TODO Generate JsonRpcRequests from a factory
-    JsonRpcSubscribeAccountRequest subscribeRequest = new JsonRpcSubscribeAccountRequest();
-    subscribeRequest.setId(UUID.randomUUID().toString());
-
-    JsonRpcSubscribeAccountRequestParams params = new JsonRpcSubscribeAccountRequestParams();
-    subscribeRequest.setParams(params);
-
-    List<URI> accParam = new ArrayList<>();
-    params.setAccounts(accParam);
-    accParam.add(accountId);
-
-    params.setEventType("*");
-
-    websocketChannel.sendRpcRequest(subscribeRequest, (request, response) -> {
-      if (response.getError() != null) {
-        log.error("JsonRpcResponseMessage error: " + response.getError().getMessage());
-        //TODO: shoudlnt we raise an exception here? silently failing is probably wrong
-        return;
-      }
+  /**
+   * Stops receiving account notifications for the given account.
+   *
+   * @param accountId
+   *  The account to unsubscribe from, as represented by a URI on the REST ledger.
+   * @return
+   *  A future that completes when the ledger has acknowledged the change.
+   */
+  public CompletableFuture<Void> unsubscribeFromAccountNotifications(URI accountId) {
 
-      if (JsonRpcResponseMessage.isSuccess(response)) {
-        log.info("Subscribed to notifications for: " + accountId);
-      } else {
-        log.error("Unable to subscribe to notifications for: " + accountId);
-        //TODO: as above - if subscription fails, we should be more vocal.
-      }
+    log.debug("Unsubscribing from notifications for: " + accountId.toString());
+    return websocketChannel.unsubscribe(accountId);
+  }
 
-      log.debug(response.getResult().toString());
-    });
+  /**
+   * Maps the HTTP errors returned when retrieving account information.
+   */
+  private RuntimeException translateAccountException(HttpStatusCodeException sce) {
+
+    switch (sce.getStatusCode()) {
+      case BAD_REQUEST:
+      // deliberately fall through
+      case NOT_FOUND:
+        return parseRestException(sce);
+      default:
+        return sce;
+    }
   }
 
 }
@@ -1,8 +1,8 @@
 package org.interledger.ilp.ledger.adaptor.rest.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.interledger.cryptoconditions.Condition;
 import org.interledger.cryptoconditions.uri.CryptoConditionUri;
 import org.interledger.cryptoconditions.uri.UriEncodingException;
 import org.interledger.ilp.InterledgerAddress;
@@ -10,14 +10,19 @@ import org.interledger.ilp.client.exceptions.DataModelTranslationException;
 import org.interledger.ilp.client.model.ClientAccountInfo;
 import org.interledger.ilp.client.model.ClientLedgerInfo;
 import org.interledger.ilp.client.model.ClientLedgerMessage;
-import org.interledger.ilp.client.model.ClientLedgerTransfer;
 import org.interledger.ilp.ledger.adaptor.rest.ServiceUrl;
+import org.interledger.ilp.ledger.adaptor.rest.cache.CacheStats;
+import org.interledger.ilp.ledger.adaptor.rest.cache.ConcurrentLruCache;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonAccountInfo;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonCodec;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerInfo;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerMessage;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerMessageDataDeserializer;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransfer;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransferAccountEntry;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonValidator;
+import org.interledger.ilp.ledger.adaptor.rest.money.FixedPointAmountCodec;
+import org.interledger.ilp.ledger.adaptor.rest.money.LedgerFormatRegistry;
 import org.interledger.ilp.ledger.model.AccountInfo;
 import org.interledger.ilp.ledger.model.LedgerInfo;
 import org.interledger.ilp.ledger.model.LedgerMessage;
@@ -32,19 +37,18 @@ import org.interledger.ilqp.json.JsonQuoteRequestEnvelope;
 import org.interledger.ilqp.json.JsonQuoteResponse;
 import org.interledger.ilqp.json.JsonQuoteResponseEnvelope;
 import org.interledger.quoting.model.QuoteRequest;
-import org.springframework.web.util.UriTemplate;
 
-import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import javax.money.CurrencyUnit;
@@ -60,14 +64,27 @@ import javax.money.format.MonetaryAmountFormat;
  */
 public class RestLedgerJsonConverter {
 
+  public static final int DEFAULT_ACCOUNT_CACHE_SIZE = 4096;
+  public static final int DEFAULT_CONDITION_CACHE_SIZE = 4096;
+  public static final long DEFAULT_CONDITION_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
   private static final Pattern urlTemplateRegex = Pattern.compile("/\\:([A-Za-z0-9-]+)");
   
-  private UriBuilder transferIdUriBuilder;
-  private UriBuilder accountIdUriBuilder;
-  private UriBuilder rejectTransferUriBuilder;
-  private UriBuilder transferFulfillmentUriBuilder;
-
-  private Map<InterledgerAddress, MonetaryAmountFormat> formats;
+  private CompiledUriTemplate transferIdUriBuilder;
+  private CompiledUriTemplate accountIdUriBuilder;
+  private CompiledUriTemplate rejectTransferUriBuilder;
+  private CompiledUriTemplate transferFulfillmentUriBuilder;
+  private CompiledUriTemplate transferStateUriBuilder;
+
+  private final ConcurrentLruCache<URI, InterledgerAddress> accountAddressCache =
+      new ConcurrentLruCache<>(DEFAULT_ACCOUNT_CACHE_SIZE);
+  private final ConcurrentLruCache<InterledgerAddress, URI> accountUriCache =
+      new ConcurrentLruCache<>(DEFAULT_ACCOUNT_CACHE_SIZE);
+  private final ConcurrentLruCache<URI, CachedCondition> conditionCache =
+      new ConcurrentLruCache<>(DEFAULT_CONDITION_CACHE_SIZE);
+
+  private LedgerFormatRegistry ledgerFormats;
+  private FixedPointAmountCodec amountCodec;
   private URI ledgerId;
   private LedgerInfo ledgerInfo;
   
@@ -83,22 +100,29 @@ public class RestLedgerJsonConverter {
     // Ideally the ledger would use rfc 6570 compatible templates
     Map<String, String> metaUrls = jsonLedgerInfo.getUrls();
 
-    transferIdUriBuilder = new UriBuilder(
+    transferIdUriBuilder = new CompiledUriTemplate(
         fixUriTemplates(metaUrls.get(ServiceUrl.TRANSFER.getName())));
     
-    transferFulfillmentUriBuilder = new UriBuilder(
+    transferFulfillmentUriBuilder = new CompiledUriTemplate(
         fixUriTemplates(metaUrls.get(ServiceUrl.TRANSFER_FULFILLMENT.getName())));
     
-    rejectTransferUriBuilder = new UriBuilder(
+    rejectTransferUriBuilder = new CompiledUriTemplate(
         fixUriTemplates(metaUrls.get(ServiceUrl.TRANSFER_REJECTION.getName())));
     
-    accountIdUriBuilder = new UriBuilder(
+    accountIdUriBuilder = new CompiledUriTemplate(
         fixUriTemplates(metaUrls.get(ServiceUrl.ACCOUNT.getName())));
     
+    if (metaUrls.containsKey(ServiceUrl.TRANSFER_STATE.getName())) {
+      transferStateUriBuilder = new CompiledUriTemplate(
+          fixUriTemplates(metaUrls.get(ServiceUrl.TRANSFER_STATE.getName())));
+    }
+    
     this.ledgerInfo = convertJsonLedgerInfo(jsonLedgerInfo);
     
-    this.formats = new HashMap<>();
-    this.formats.put(ledgerInfo.getAddressPrefix(), ledgerInfo.getMonetaryAmountFormat());
+    setLedgerFormatRegistry(new LedgerFormatRegistry());
+    this.amountCodec = new FixedPointAmountCodec(
+        Monetary.getCurrency(jsonLedgerInfo.getCurrencyCode()), jsonLedgerInfo.getPrecision(),
+        jsonLedgerInfo.getScale());
     this.ledgerId = jsonLedgerInfo.getId();
   }
   
@@ -139,6 +163,36 @@ public class RestLedgerJsonConverter {
   public LedgerInfo getLedgerInfo() {
     return this.ledgerInfo;
   }
+
+  /**
+   * Provides access to the registry of the amount formats of other ledgers, used for amounts in
+   * quotes.
+   */
+  public LedgerFormatRegistry getLedgerFormatRegistry() {
+    return this.ledgerFormats;
+  }
+
+  /**
+   * Sets the registry of the amount formats of other ledgers, allowing one registry to be shared
+   * by several converters. The local ledger's format is registered in it without expiry.
+   *
+   * @param ledgerFormats
+   *  The registry to use.
+   */
+  public void setLedgerFormatRegistry(LedgerFormatRegistry ledgerFormats) {
+
+    ledgerFormats.register(ledgerInfo.getAddressPrefix(), ledgerInfo.getMonetaryAmountFormat(),
+        null);
+    this.ledgerFormats = ledgerFormats;
+  }
+
+  /**
+   * Provides access to the codec used for amounts on the local ledger, for callers that work with
+   * amounts as a number of units rather than as a {@link MonetaryAmount}.
+   */
+  public FixedPointAmountCodec getAmountCodec() {
+    return this.amountCodec;
+  }
   
   /**
    * Translates an account id represented by the REST ledgers URI format into an interledger 
@@ -151,8 +205,14 @@ public class RestLedgerJsonConverter {
    */
   public InterledgerAddress convertAccountUriToAddress(URI accountId) {
     
-    String account = accountIdUriBuilder.extractToken(accountId);
-    return InterledgerAddress.fromPrefixAndPath(ledgerInfo.getAddressPrefix(), account);
+    InterledgerAddress address = accountAddressCache.get(accountId);
+    if (address == null) {
+      String account = accountIdUriBuilder.extractToken(accountId);
+      address = InterledgerAddress.fromPrefixAndPath(ledgerInfo.getAddressPrefix(), account);
+      accountAddressCache.put(accountId, address);
+      accountUriCache.put(address, accountId);
+    }
+    return address;
   }
   
   /**
@@ -165,10 +225,37 @@ public class RestLedgerJsonConverter {
    */
   public URI convertAccountAddressToUri(InterledgerAddress account) {
     
-    String accountSuffix = account.trimPrefix(ledgerInfo.getAddressPrefix()).toString();
-    return accountIdUriBuilder.getUri(accountSuffix);
-  }  
-  
+    URI accountId = accountUriCache.get(account);
+    if (accountId == null) {
+      String accountSuffix = account.trimPrefix(ledgerInfo.getAddressPrefix()).toString();
+      accountId = accountIdUriBuilder.getUri(accountSuffix);
+      accountUriCache.put(account, accountId);
+      accountAddressCache.put(accountId, account);
+    }
+    return accountId;
+  }
+
+  /**
+   * Returns the usage counters of the cache used to translate account URIs to addresses.
+   */
+  public CacheStats getAccountAddressCacheStats() {
+    return accountAddressCache.getStats();
+  }
+
+  /**
+   * Returns the usage counters of the cache used to translate addresses to account URIs.
+   */
+  public CacheStats getAccountUriCacheStats() {
+    return accountUriCache.getStats();
+  }
+
+  /**
+   * Returns the usage counters of the cache used to translate condition URIs to conditions.
+   */
+  public CacheStats getConditionCacheStats() {
+    return conditionCache.getStats();
+  }
+
   /**
    * Translates a transfer id to a URI for the transfer on the REST ledger.
    *
@@ -192,8 +279,7 @@ public class RestLedgerJsonConverter {
    */
   public UUID convertTransferUriToUuid(URI transferId) {
     
-    String uuidString = transferIdUriBuilder.extractToken(transferId);
-    return UUID.fromString(uuidString);
+    return transferIdUriBuilder.extractUuid(transferId);
   }
   
   /**
@@ -222,9 +308,30 @@ public class RestLedgerJsonConverter {
     return transferFulfillmentUriBuilder.getUri(transferId.toString());
   }
   
+  /**
+   * Translates a transfer id to the URI of the transfer's state receipt on the REST ledger.
+   *
+   * @param transferId
+   *  The id representing the transfer.
+   * @return
+   *  A URI representing the transfer state on the REST ledger.
+   */
+  public URI convertTransferStateToUri(UUID transferId) {
+    
+    if (transferStateUriBuilder == null) {
+      throw new DataModelTranslationException("The ledger does not publish a transfer state URL.",
+          transferId);
+    }
+    return transferStateUriBuilder.getUri(transferId.toString());
+  }
+  
   /**
    * Translates a JSON ledger transfer model to a {@link LedgerTransfer} object.
    *
+   * <p>The returned transfer is a {@link LazyLedgerTransfer}, which decodes each property from the
+   * JSON model the first time it is read. Errors decoding a property, such as a malformed
+   * condition, are therefore raised by the property's getter rather than by this method.
+   *
    * @param jsonTransfer
    *  The JSON ledger transfer object.
    * @return
@@ -236,61 +343,72 @@ public class RestLedgerJsonConverter {
       throw new RuntimeException("Only single transaction transfers are supported.");
     }
 
-    JsonLedgerTransferAccountEntry creditEntry = jsonTransfer.getCredits().get(0);
-    JsonLedgerTransferAccountEntry debitEntry = jsonTransfer.getDebits().get(0);
+    return new LazyLedgerTransfer(this, jsonTransfer);
+  }
 
-    ClientLedgerTransfer transfer = new ClientLedgerTransfer();
-    transfer.setId(convertTransferUriToUuid(jsonTransfer.getId()));
-    
-    // FIXME Process the debit and credit entries fully
-    transfer.setToAccount(convertAccountUriToAddress(creditEntry.getAccount()));
-    transfer.setFromAccount(convertAccountUriToAddress(debitEntry.getAccount()));
-    
-    transfer.setAmount(this.convertJsonFormattedAmount(debitEntry.getAmount()));
-    transfer.setAuthorized(debitEntry.isAuthorized());
-    
-    if (debitEntry.getInvoice() != null) {
-      transfer.setInvoice(debitEntry.getInvoice().toString());
-    }
-    
-    if (debitEntry.getMemo() != null) {
-      Object data = debitEntry.getMemo();
-      if (data instanceof Map) {
-        try {
-          ObjectMapper mapper = new ObjectMapper();
-          String dataValue = mapper.writeValueAsString(data);
-          transfer.setData(dataValue.getBytes(Charset.forName("UTF-8")));
-        } catch (JsonProcessingException jpe) {
-          throw new RuntimeException("Unable to reserialize transfer data.", jpe);
-        }
-      } else {
-        transfer.setData(Base64.getDecoder().decode(data.toString()));
-      }
-    }
-    transfer.setRejected(debitEntry.isRejected());
-    transfer.setRejectionMessage(debitEntry.getRejectionMessage());
+  /**
+   * Translates the memo of a JSON ledger transfer entry to the transfer data. JSON memos are
+   * reserialized, anything else is assumed to be a base64 encoded string.
+   *
+   * @param memo
+   *  The memo of the transfer entry.
+   * @return
+   *  The transfer data.
+   */
+  byte[] convertJsonTransferMemo(Object memo) {
 
-    if (jsonTransfer.getCancellationCondition() != null) {
+    if (memo instanceof Map) {
       try {
-        transfer.setCancellationCondition(
-            CryptoConditionUri.parse(jsonTransfer.getCancellationCondition()));
-      } catch (UriEncodingException uee) {
-        throw new RuntimeException("Error parsing cancellation condition.", uee);
+        return JsonCodec.toJson(memo).getBytes(Charset.forName("UTF-8"));
+      } catch (JsonProcessingException jpe) {
+        throw new RuntimeException("Unable to reserialize transfer data.", jpe);
       }
     }
-    
-    if (jsonTransfer.getExecutionCondition() != null) {
-      try {
-        transfer.setExecutionCondition(
-            CryptoConditionUri.parse(jsonTransfer.getExecutionCondition()));
-      } catch (UriEncodingException uee) {
-        throw new RuntimeException("Error parsing execution condition.", uee);
-      }
+    return Base64.getDecoder().decode(memo.toString());
+  }
+
+  /**
+   * Translates a crypto-condition URI of a JSON ledger transfer to a {@link Condition}.
+   *
+   * <p>The same condition is typically seen several times per payment, in our own outgoing
+   * transfer and in the prepare and execute notifications, so parsed conditions are cached until
+   * the transfer expires.
+   *
+   * @param conditionUri
+   *  The condition URI.
+   * @param name
+   *  The name of the condition, used in error messages.
+   * @param expiresAt
+   *  The expiry of the transfer holding the condition, or null if it has none.
+   * @return
+   *  The parsed condition.
+   */
+  Condition convertJsonCondition(URI conditionUri, String name, ZonedDateTime expiresAt) {
+
+    long now = System.currentTimeMillis();
+    CachedCondition cached = conditionCache.get(conditionUri, entry -> entry.expiresAt > now);
+    if (cached != null) {
+      return cached.condition;
     }
-    
-    transfer.setExpiresAt(jsonTransfer.getExpiresAt());
 
-    return transfer;    
+    Condition condition;
+    try {
+      condition = CryptoConditionUri.parse(conditionUri);
+    } catch (UriEncodingException uee) {
+      throw new RuntimeException("Error parsing " + name + " condition.", uee);
+    }
+    cacheCondition(conditionUri, condition, expiresAt, now);
+    return condition;
+  }
+
+  private void cacheCondition(URI conditionUri, Condition condition, ZonedDateTime expiresAt,
+      long now) {
+
+    long expiry = expiresAt != null
+        ? expiresAt.toInstant().toEpochMilli() : now + DEFAULT_CONDITION_TTL_MILLIS;
+    if (expiry > now) {
+      conditionCache.put(conditionUri, new CachedCondition(condition, expiry));
+    }
   }
   
   /**
@@ -352,12 +470,20 @@ public class RestLedgerJsonConverter {
     debits.add(jsonDebitEntry);
     jsonTransfer.setDebits(debits);
 
+    // The ledger will notify us of this transfer, so seed the cache with its conditions
+    long now = System.currentTimeMillis();
     if (transfer.getCancellationCondition() != null) {
-      jsonTransfer.setCancellationCondition(transfer.getCancellationCondition().getUri());
+      URI conditionUri = transfer.getCancellationCondition().getUri();
+      jsonTransfer.setCancellationCondition(conditionUri);
+      cacheCondition(conditionUri, transfer.getCancellationCondition(), transfer.getExpiresAt(),
+          now);
     }
     
     if (transfer.getExecutionCondition() != null) {
-      jsonTransfer.setExecutionCondition(transfer.getExecutionCondition().getUri());
+      URI conditionUri = transfer.getExecutionCondition().getUri();
+      jsonTransfer.setExecutionCondition(conditionUri);
+      cacheCondition(conditionUri, transfer.getExecutionCondition(), transfer.getExpiresAt(),
+          now);
     }
     
     jsonTransfer.setExpiresAt(transfer.getExpiresAt());
@@ -384,72 +510,71 @@ public class RestLedgerJsonConverter {
      * FIXME Would be great if message had some type info for data so we didn't have to "detect" the
      * type.
      * See https://github.com/interledger/rfcs/issues/127#issuecomment-270411273 
-     * For now we do "duck typing"
+     * For now we do "duck typing" on the method, which JsonLedgerMessageDataDeserializer already
+     * used to bind ILQP payloads when the message was parsed.
      */
     Object data = jsonMessage.getData();
-    
+
     if (data instanceof Map) {
-      //Looks like this is JSON data
-      @SuppressWarnings("unchecked")
-      Map<String, Object> jsonData = (Map<String, Object>) data;
-      try {
-        //TODO We're re-encoding the Map and then decoding. Not efficient
-        ObjectMapper mapper = new ObjectMapper();
-        String json = mapper.writeValueAsString(data);
-        String method = (String) jsonData.get("method");
-        
-        if ("quote_response".equals(method)) {
-          JsonQuoteResponseEnvelope messageData = mapper.readValue(json,
-              JsonQuoteResponseEnvelope.class);
+      // Data that was set directly rather than parsed has not been bound yet
+      Object method = ((Map<?, ?>) data).get("method");
+      Class<?> envelopeType = method instanceof String
+          ? JsonLedgerMessageDataDeserializer.getEnvelopeType((String) method) : null;
+      if (envelopeType != null) {
+        try {
+          data = JsonCodec.convertValue(data, envelopeType);
+        } catch (IllegalArgumentException iae) {
+          throw new RuntimeException("Unable to convert message data.", iae);
+        }
+      }
+    }
 
-          clientMessage.setId(UUID.fromString(messageData.getId()));
-          clientMessage.setType("quote_response");
+    if (data instanceof JsonQuoteResponseEnvelope) {
+      JsonQuoteResponseEnvelope messageData = (JsonQuoteResponseEnvelope) data;
 
-          JsonQuoteResponse jsonResponse = messageData.getData();
+      clientMessage.setId(UUID.fromString(messageData.getId()));
+      clientMessage.setType("quote_response");
 
-          ClientQuoteResponse quoteResponse = new ClientQuoteResponse();
-          quoteResponse.setSourceConnectorAccount(
-              new InterledgerAddress(jsonResponse.getSourceConnectorAccount()));
+      JsonQuoteResponse jsonResponse = messageData.getData();
 
-          quoteResponse
-              .setDestinationLedger(new InterledgerAddress(jsonResponse.getDestinationLedger()));
+      ClientQuoteResponse quoteResponse = new ClientQuoteResponse();
+      quoteResponse.setSourceConnectorAccount(
+          new InterledgerAddress(jsonResponse.getSourceConnectorAccount()));
 
-          quoteResponse.setSourceLedger(new InterledgerAddress(jsonResponse.getSourceLedger()));
+      quoteResponse
+          .setDestinationLedger(new InterledgerAddress(jsonResponse.getDestinationLedger()));
 
-          quoteResponse.setDestinationExpiryDuration(
-              Duration.of(jsonResponse.getDestinationExpiryDuration(), ChronoUnit.MILLIS));
+      quoteResponse.setSourceLedger(new InterledgerAddress(jsonResponse.getSourceLedger()));
 
-          quoteResponse.setSourceExpiryDuration(
-              Duration.of(jsonResponse.getSourceExpiryDuration(), ChronoUnit.MILLIS));
+      quoteResponse.setDestinationExpiryDuration(
+          Duration.of(jsonResponse.getDestinationExpiryDuration(), ChronoUnit.MILLIS));
 
-          quoteResponse.setDestinationAmount(convertJsonFormattedAmount(
-              jsonResponse.getDestinationAmount(), quoteResponse.getDestinationLedger()));
+      quoteResponse.setSourceExpiryDuration(
+          Duration.of(jsonResponse.getSourceExpiryDuration(), ChronoUnit.MILLIS));
 
-          quoteResponse.setSourceAmount(convertJsonFormattedAmount(jsonResponse.getSourceAmount()));
+      quoteResponse.setDestinationAmount(convertJsonFormattedAmount(
+          jsonResponse.getDestinationAmount(), quoteResponse.getDestinationLedger()));
 
-          clientMessage.setData(quoteResponse);
-        } else if ("error".equals(method)) {
-          JsonErrorResponseEnvelope messageData = mapper.readValue(json,
-              JsonErrorResponseEnvelope.class);
+      quoteResponse.setSourceAmount(convertJsonFormattedAmount(jsonResponse.getSourceAmount()));
 
-          clientMessage.setId(UUID.fromString(messageData.getId()));
-          clientMessage.setType("error");
+      clientMessage.setData(quoteResponse);
+    } else if (data instanceof JsonErrorResponseEnvelope) {
+      JsonErrorResponseEnvelope messageData = (JsonErrorResponseEnvelope) data;
 
-          JsonErrorResponse jsonResponse = messageData.getData();
+      clientMessage.setId(UUID.fromString(messageData.getId()));
+      clientMessage.setType("error");
 
-          ClientQuoteErrorResponse errorResponse = new ClientQuoteErrorResponse();
-          errorResponse.setId(jsonResponse.getId());
-          errorResponse.setMessage(jsonResponse.getMessage());
+      JsonErrorResponse jsonResponse = messageData.getData();
 
-          clientMessage.setData(errorResponse);
-        } else {
-          clientMessage.setData(jsonData);
-        }
-      } catch (IOException ioe) {
-        throw new RuntimeException("Unable to reserialize message data.", ioe);
-      }
+      ClientQuoteErrorResponse errorResponse = new ClientQuoteErrorResponse();
+      errorResponse.setId(jsonResponse.getId());
+      errorResponse.setMessage(jsonResponse.getMessage());
+
+      clientMessage.setData(errorResponse);
+    } else if (data instanceof Map) {
+      clientMessage.setData(data);
     } else {
-      //the data isnt a map, we assume its a base64 encoded string
+      //the data isnt JSON, we assume its a base64 encoded string
       clientMessage.setData(Base64.getDecoder().decode(data.toString()));
     }
     
@@ -498,9 +623,9 @@ public class RestLedgerJsonConverter {
       }
 
       if (quoteReq.getDestinationAmount() != null) {
-        // FIXME: This is using the source ledger formatting rules because the quote request doesn't
-        // provide currency, precision, scale.
-        jsonQuote.setDestinationAmount(convertMonetaryAmount(quoteReq.getDestinationAmount()));
+        // Uses the destination ledger's format if it has been registered, otherwise the local one
+        jsonQuote.setDestinationAmount(convertMonetaryAmount(quoteReq.getDestinationAmount(),
+            quoteReq.getDestinationAddress()));
       }
       
       JsonQuoteRequestEnvelope envelope = new JsonQuoteRequestEnvelope();
@@ -577,7 +702,7 @@ public class RestLedgerJsonConverter {
    */
   protected MonetaryAmount convertJsonFormattedAmount(String amount) {
     
-    return ledgerInfo.getMonetaryAmountFormat().parse(amount);
+    return amountCodec.parse(amount);
   }
   
   /**
@@ -587,17 +712,14 @@ public class RestLedgerJsonConverter {
    * @param amount
    *  The amount to convert.
    * @param ledger
-   *  The ledger on which the amount is relevant.
+   *  The ledger on which the amount is relevant, or an account on that ledger.
    * @return
    *  An equivalent MonetaryAmount in the representation for the ledger if possible.
    */
   public MonetaryAmount convertJsonFormattedAmount(String amount, InterledgerAddress ledger) {
     
-    MonetaryAmountFormat format = formats.get(ledger);
-    if (format == null) {
-      format = ledgerInfo.getMonetaryAmountFormat();
-    }
-    return format.parse(amount);
+    MonetaryAmountFormat format = findRemoteFormat(ledger);
+    return format == null ? amountCodec.parse(amount) : format.parse(amount);
   }
   
   /**
@@ -610,7 +732,37 @@ public class RestLedgerJsonConverter {
    */
   public String convertMonetaryAmount(MonetaryAmount amount) {
     
-    return ledgerInfo.getMonetaryAmountFormat().format(amount);
+    return amountCodec.format(amount);
+  }
+
+  /**
+   * Translates the {@link MonetaryAmount} to a string in the monetary format of the ledger
+   * specified, or the local ledger, if the ledger format is unknown.
+   *
+   * @param amount
+   *  The amount to convert.
+   * @param ledger
+   *  The ledger on which the amount is relevant, or an account on that ledger.
+   * @return
+   *  A string representing the same amount value in the format of the ledger.
+   */
+  public String convertMonetaryAmount(MonetaryAmount amount, InterledgerAddress ledger) {
+
+    MonetaryAmountFormat format = findRemoteFormat(ledger);
+    return format == null ? amountCodec.format(amount) : format.format(amount);
+  }
+
+  /**
+   * Finds the format of another ledger, returning null for the local ledger, which is handled by
+   * the amount codec, or if the ledger is unknown.
+   */
+  private MonetaryAmountFormat findRemoteFormat(InterledgerAddress ledger) {
+
+    if (ledger == null || ledger.equals(ledgerInfo.getAddressPrefix())) {
+      return null;
+    }
+    MonetaryAmountFormat format = ledgerFormats.find(ledger);
+    return format == ledgerInfo.getMonetaryAmountFormat() ? null : format;
   }
   
   /**
@@ -626,65 +778,19 @@ public class RestLedgerJsonConverter {
     
     return urlTemplateRegex.matcher(input.toString()).replaceAll("/\\{$1\\}");
   }
-  
+
   /**
-   * Creates URI's from templates and tokens or extracts tokens from URIs.
+   * A parsed condition and the time after which it is no longer cached.
    */
-  public class UriBuilder extends UriTemplate {
-    
-    private static final String DUMMY_TOKEN = "9999999999999999999999999";
+  private static final class CachedCondition {
 
-    private static final long serialVersionUID = -8207346321737500503L;
+    private final Condition condition;
+    private final long expiresAt;
 
-    /**
-     * Constructs a new <code>UriBuilder</code> instance.
-     * 
-     * @param uriTemplate
-     *  The URI template string
-     */
-    public UriBuilder(String uriTemplate) {
-      super(uriTemplate);
-    }
-    
-    /**
-     * Creates a full URI based on the template and token.
-     *
-     * @param value
-     *  A value to substitute the template placeholder in the URI.
-     * @return
-     *  A URI with the template replaced with the given value.
-     */
-    public URI getUri(String value) {
-      
-      return expand(value);
+    private CachedCondition(Condition condition, long expiresAt) {
+      this.condition = condition;
+      this.expiresAt = expiresAt;
     }
-    
-    /**
-     * Extracts a token (or placeholder) from a URI, for example given http://example.com/{name},
-     * the method will return 'name'
-     *
-     * @param uri
-     *  A URI containing a token.
-     * @return
-     *  The token embedded in the URI.
-     */
-    public String extractToken(URI uri) {
-
-      String dummyUri = getUri(DUMMY_TOKEN).toString();
-      String tokenUri = uri.toString();
-
-      int start = dummyUri.indexOf(DUMMY_TOKEN);
-      String token = tokenUri.substring(start);
-
-      if (start + DUMMY_TOKEN.length() < dummyUri.length()) {
-        // Need to strip a suffix
-        String suffix = dummyUri.substring(start + DUMMY_TOKEN.length());
-        token = token.substring(0, token.indexOf(suffix));
-      }
-
-      return token;
-    }
-    
   }
   
 }
@@ -3,12 +3,16 @@ package org.interledger.ilp.ledger.adaptor.rest.service;
 import org.interledger.ilp.ledger.adaptor.rest.exceptions.RestServiceException;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerMessage;
 import org.interledger.ilp.ledger.model.LedgerMessage;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This service provides methods to interact with the REST ledger for sending messages.
@@ -31,7 +35,26 @@ public class RestLedgerMessageService extends RestServiceBase {
   public RestLedgerMessageService(RestLedgerJsonConverter converter, RestTemplate restTemplate,
       URI uri) {
     
-    super(converter, restTemplate);
+    this(converter, restTemplate, null, uri);
+  }
+
+  /**
+   * Constructs a new <code>RestLedgerMessageService</code> instance.
+   * 
+   * @param converter
+   *  A converter to use when translating between ilp-core models and the native JSON models used
+   *      by the REST ledger.
+   * @param restTemplate
+   *  A rest template to use for interacting with the REST ledger.
+   * @param asyncRestTemplate
+   *  A non-blocking rest template to use for asynchronous interactions with the REST ledger.
+   * @param uri
+   *  The URI of the messaging service provideded by the REST ledger.
+   */
+  public RestLedgerMessageService(RestLedgerJsonConverter converter, RestTemplate restTemplate,
+      AsyncRestTemplate asyncRestTemplate, URI uri) {
+    
+    super(converter, restTemplate, asyncRestTemplate);
     this.uri = uri;
   }
 
@@ -57,17 +80,55 @@ public class RestLedgerMessageService extends RestServiceBase {
       // TODO Handle response?
 
     } catch (HttpStatusCodeException sce) {
-      switch (sce.getStatusCode()) {
-        case BAD_REQUEST:
-          throw parseRestException(sce);
-        case UNPROCESSABLE_ENTITY:
-          throw new RestServiceException(
-              "No listeners subscribed for messages to " + message.getTo(), sce);
-        default:
-          throw sce;
-      }
+      throw translateMessageException(message, sce);
+    }
+
+  }
+
+  /**
+   * Sends a message to the ledger without blocking the calling thread.
+   *
+   * @param message
+   *  The message to send.
+   * @return
+   *  A future that completes when the ledger has accepted the message, or exceptionally with the
+   *      same exception {@link #sendMessage(LedgerMessage)} would throw.
+   */
+  public CompletableFuture<Void> sendMessageAsync(LedgerMessage message) {
+
+    try {
+      JsonLedgerMessage jsonMessage = getConverter().convertLedgerMessage(message);
+
+      log.debug("POST message (async)");
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+
+      return toCompletableFuture(
+          getAsyncRestTemplate().postForEntity(uri, new HttpEntity<>(jsonMessage, headers),
+              String.class),
+          sce -> translateMessageException(message, sce))
+          .thenAccept(rsp -> { });
+    } catch (RuntimeException ex) {
+      return failedFuture(ex);
     }
+  }
 
+  /**
+   * Maps the HTTP errors returned when sending a message.
+   */
+  private RuntimeException translateMessageException(LedgerMessage message,
+      HttpStatusCodeException sce) {
+
+    switch (sce.getStatusCode()) {
+      case BAD_REQUEST:
+        return parseRestException(sce);
+      case UNPROCESSABLE_ENTITY:
+        return new RestServiceException(
+            "No listeners subscribed for messages to " + message.getTo(), sce);
+      default:
+        return sce;
+    }
   }
 
 }
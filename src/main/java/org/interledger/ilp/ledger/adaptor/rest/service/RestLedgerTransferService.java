@@ -2,6 +2,9 @@ package org.interledger.ilp.ledger.adaptor.rest.service;
 
 import org.interledger.cryptoconditions.Fulfillment;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransfer;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonTransferStateReceipt;
+import org.interledger.ilp.ledger.adaptor.rest.retry.Retrier;
+import org.interledger.ilp.ledger.adaptor.rest.state.TransferState;
 import org.interledger.ilp.ledger.model.LedgerTransfer;
 import org.interledger.ilp.ledger.model.TransferRejectedReason;
 import org.slf4j.Logger;
@@ -12,11 +15,25 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
 
 /**
  * This service provides methods to interact with the REST ledger for transfers.
@@ -25,6 +42,8 @@ public class RestLedgerTransferService extends RestServiceBase {
   
   private static final Logger log = LoggerFactory.getLogger(RestLedgerTransferService.class);
 
+  private Retrier retrier = new Retrier();
+
   /**
    * Constructs a new <code>RestLedgerTransferService</code> instance.
    * 
@@ -38,6 +57,37 @@ public class RestLedgerTransferService extends RestServiceBase {
     super(converter, restTemplate);
   }
 
+  /**
+   * Constructs a new <code>RestLedgerTransferService</code> instance.
+   * 
+   * @param converter
+   *  A converter to use when translating from ilp-core models to the ledgers native JSON model.
+   * @param restTemplate
+   *  A rest template to use for interacting with the REST ledger.
+   * @param asyncRestTemplate
+   *  A non-blocking rest template to use for asynchronous interactions with the REST ledger.
+   */
+  public RestLedgerTransferService(RestLedgerJsonConverter converter, RestTemplate restTemplate,
+      AsyncRestTemplate asyncRestTemplate) {
+    
+    super(converter, restTemplate, asyncRestTemplate);
+  }
+
+  public Retrier getRetrier() {
+    return retrier;
+  }
+
+  /**
+   * Sets the retrier used for the transfer, rejection and fulfillment PUTs. These requests are
+   * idempotent, as they address the transfer by its id, so transient failures are retried with
+   * backoff. Defaults to a {@link Retrier} with the default policy and budget.
+   *
+   * @param retrier
+   *  The retrier to use.
+   */
+  public void setRetrier(Retrier retrier) {
+    this.retrier = retrier;
+  }
 
   /**
    * Sends a transfer to the ledger.
@@ -47,29 +97,55 @@ public class RestLedgerTransferService extends RestServiceBase {
    */
   public void sendTransfer(LedgerTransfer transfer) {
     
-    try {
+    JsonLedgerTransfer jsonTransfer = getConverter().convertLedgerTransfer(transfer);
 
+    log.debug("PUT Transfer - id : {}", jsonTransfer.getId());
+
+    RequestEntity<JsonLedgerTransfer> request = RequestEntity.put(jsonTransfer.getId())
+        .contentType(MediaType.APPLICATION_JSON_UTF8)
+        .body(jsonTransfer, JsonLedgerTransfer.class);
+
+    ResponseEntity<JsonLedgerTransfer> rsp = retrier.execute("PUT Transfer " + transfer.getId(),
+        () -> {
+          try {
+            return getRestTemplate().exchange(request, JsonLedgerTransfer.class);
+          } catch (HttpStatusCodeException sce) {
+            throw translateTransferException(sce);
+          }
+        });
+
+    log.trace("Transfer Response: " + rsp.getBody());
+  }
+
+  /**
+   * Sends a transfer to the ledger without blocking the calling thread.
+   *
+   * @param transfer
+   *  The transfer to send.
+   * @return
+   *  A future that completes when the ledger has accepted the transfer, or exceptionally with the
+   *      same exception {@link #sendTransfer(LedgerTransfer)} would throw.
+   */
+  public CompletableFuture<Void> sendTransferAsync(LedgerTransfer transfer) {
+
+    try {
       JsonLedgerTransfer jsonTransfer = getConverter().convertLedgerTransfer(transfer);
 
-      log.debug("PUT Transfer - id : {}", jsonTransfer.getId());
+      log.debug("PUT Transfer (async) - id : {}", jsonTransfer.getId());
 
-      RequestEntity<JsonLedgerTransfer> request = RequestEntity.put(jsonTransfer.getId())
-          .contentType(MediaType.APPLICATION_JSON_UTF8)
-          .body(jsonTransfer, JsonLedgerTransfer.class);
-      
-      ResponseEntity<JsonLedgerTransfer> rsp = getRestTemplate().exchange(request,
-          JsonLedgerTransfer.class);
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
 
-      log.trace("Transfer Response: " + rsp.getBody());
+      HttpEntity<JsonLedgerTransfer> request = new HttpEntity<>(jsonTransfer, headers);
 
-    } catch (HttpStatusCodeException sce) {
-      switch (sce.getStatusCode()) {
-        case BAD_REQUEST:
-        case NOT_FOUND:
-          throw parseRestException(sce);
-        default:
-          throw sce;
-      }
+      return retrier.executeAsync("PUT Transfer " + transfer.getId(),
+          () -> toCompletableFuture(
+              getAsyncRestTemplate().exchange(jsonTransfer.getId(), HttpMethod.PUT, request,
+                  JsonLedgerTransfer.class),
+              this::translateTransferException))
+          .thenAccept(rsp -> log.trace("Transfer Response: " + rsp.getBody()));
+    } catch (RuntimeException ex) {
+      return failedFuture(ex);
     }
   }
 
@@ -85,26 +161,57 @@ public class RestLedgerTransferService extends RestServiceBase {
 
     log.debug("Rejecting Transfer - id : {}", transfer.getId());
 
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.TEXT_PLAIN);
+
+    HttpEntity<Object> rejectionRequest = new HttpEntity<>(reason.toString(), headers);
+
+    URI rejectTransferUri = getConverter().convertRejectTransferToUri(transfer.getId());
+
+    retrier.execute("PUT Rejection " + transfer.getId(), () -> {
+      try {
+        return getRestTemplate().exchange(
+            rejectTransferUri,
+            HttpMethod.PUT, rejectionRequest, String.class);
+      } catch (HttpStatusCodeException sce) {
+        throw translateTransferException(sce);
+      }
+    });
+  }
+
+  /**
+   * Rejects the transfer with the given reason without blocking the calling thread.
+   *
+   * @param transfer
+   *  The transfer to reject.
+   * @param reason
+   *  The reason for rejecting the transfer.
+   * @return
+   *  A future that completes when the ledger has accepted the rejection, or exceptionally with the
+   *      same exception {@link #rejectTransfer(LedgerTransfer, TransferRejectedReason)} would
+   *      throw.
+   */
+  public CompletableFuture<Void> rejectTransferAsync(LedgerTransfer transfer,
+      TransferRejectedReason reason) {
+
+    log.debug("Rejecting Transfer (async) - id : {}", transfer.getId());
+
     try {
       HttpHeaders headers = new HttpHeaders();
       headers.setContentType(MediaType.TEXT_PLAIN);
 
       HttpEntity<Object> rejectionRequest = new HttpEntity<>(reason.toString(), headers);
-      
+
       URI rejectTransferUri = getConverter().convertRejectTransferToUri(transfer.getId());
-      
-      getRestTemplate().exchange(
-          rejectTransferUri,
-          HttpMethod.PUT, rejectionRequest, String.class);
 
-    } catch (HttpStatusCodeException sce) {
-      switch (sce.getStatusCode()) {
-        case BAD_REQUEST:
-        case NOT_FOUND:
-          throw parseRestException(sce);
-        default:
-          throw sce;
-      }
+      return retrier.executeAsync("PUT Rejection " + transfer.getId(),
+          () -> toCompletableFuture(
+              getAsyncRestTemplate().exchange(rejectTransferUri, HttpMethod.PUT, rejectionRequest,
+                  String.class),
+              this::translateTransferException))
+          .thenAccept(rsp -> { });
+    } catch (RuntimeException ex) {
+      return failedFuture(ex);
     }
   }
   
@@ -120,25 +227,271 @@ public class RestLedgerTransferService extends RestServiceBase {
 
     log.debug("Submitting Fulfillment for Transfer - id : {}", transferIdUri);
 
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.TEXT_PLAIN);
+
+    String fulfillmentBase64url = Base64.getUrlEncoder().encodeToString(fulfillment.getEncoded());
+    HttpEntity<Object> fulfillmentRequest = new HttpEntity<>(fulfillmentBase64url, headers);
+
+    retrier.execute("PUT Fulfillment " + transferIdUri, () -> {
+      try {
+        return getRestTemplate().exchange(
+            transferIdUri,
+            HttpMethod.PUT, fulfillmentRequest, String.class);
+      } catch (HttpStatusCodeException sce) {
+        throw translateFulfillmentException(sce);
+      }
+    });
+  }
+
+  /**
+   * Notifies the ledger of a fulfillment of a transfer without blocking the calling thread.
+   *
+   * @param transferIdUri
+   *  The URI of the transfer on the ledger.
+   * @param fulfillment
+   *  The fulfillment to send to the ledger.
+   * @return
+   *  A future that completes when the ledger has accepted the fulfillment, or exceptionally with
+   *      the same exception {@link #fulfillTransfer(URI, Fulfillment)} would throw.
+   */
+  public CompletableFuture<Void> fulfillTransferAsync(URI transferIdUri, Fulfillment fulfillment) {
+
+    log.debug("Submitting Fulfillment (async) for Transfer - id : {}", transferIdUri);
+
     try {
       HttpHeaders headers = new HttpHeaders();
       headers.setContentType(MediaType.TEXT_PLAIN);
 
       String fulfillmentBase64url = Base64.getUrlEncoder().encodeToString(fulfillment.getEncoded());
       HttpEntity<Object> fulfillmentRequest = new HttpEntity<>(fulfillmentBase64url, headers);
-      
-      getRestTemplate().exchange(
-          transferIdUri,
-          HttpMethod.PUT, fulfillmentRequest, String.class);
 
+      return retrier.executeAsync("PUT Fulfillment " + transferIdUri,
+          () -> toCompletableFuture(
+              getAsyncRestTemplate().exchange(transferIdUri, HttpMethod.PUT, fulfillmentRequest,
+                  String.class),
+              this::translateFulfillmentException))
+          .thenAccept(rsp -> { });
+    } catch (RuntimeException ex) {
+      return failedFuture(ex);
+    }
+  }
+
+  /**
+   * Retrieves a transfer from the ledger.
+   *
+   * @param transferId
+   *  The id of the transfer.
+   * @return
+   *  The transfer, as currently recorded by the ledger.
+   */
+  public LedgerTransfer getTransfer(UUID transferId) {
+
+    URI transferUri = getConverter().convertTransferUuidToUri(transferId);
+
+    log.debug("GET Transfer - id : {}", transferId);
+
+    try {
+      JsonLedgerTransfer transfer = getRestTemplate().getForObject(transferUri,
+          JsonLedgerTransfer.class);
+
+      return getConverter().convertJsonLedgerTransfer(transfer);
     } catch (HttpStatusCodeException sce) {
-      switch (sce.getStatusCode()) {
-        case BAD_REQUEST:
-        case UNPROCESSABLE_ENTITY:
-          throw parseRestException(sce);
-        default:
-          throw sce;
+      throw translateTransferException(sce);
+    }
+  }
+
+  /**
+   * Retrieves the current state of a transfer from the ledger.
+   *
+   * @param transferId
+   *  The id of the transfer.
+   * @return
+   *  The state of the transfer, {@link TransferState#NONEXISTENT} if the ledger does not know it.
+   */
+  public TransferState getTransferState(UUID transferId) {
+
+    URI stateUri = getConverter().convertTransferStateToUri(transferId);
+
+    log.debug("GET Transfer State - id : {}", transferId);
+
+    try {
+      JsonTransferStateReceipt receipt = getRestTemplate().getForObject(stateUri,
+          JsonTransferStateReceipt.class);
+
+      return TransferState.fromName(receipt.getMessage().getState());
+    } catch (HttpStatusCodeException sce) {
+      throw translateTransferException(sce);
+    }
+  }
+
+  /**
+   * Sends a batch of transfers to the ledger, keeping at most <code>maxInFlight</code> requests
+   * outstanding at any time. A failure of one transfer does not affect the others.
+   *
+   * @param transfers
+   *  The transfers to send.
+   * @param maxInFlight
+   *  The maximum number of requests to have in flight concurrently.
+   * @return
+   *  The result for each transfer keyed by transfer id, in the order the transfers were given.
+   * @throws IllegalArgumentException
+   *  If two transfers have the same id, in which case none of them is sent.
+   */
+  public Map<UUID, TransferResult> sendTransfers(Collection<LedgerTransfer> transfers,
+      int maxInFlight) {
+
+    return pipeline(transfers, LedgerTransfer::getId, this::sendTransferAsync, maxInFlight);
+  }
+
+  /**
+   * Rejects a batch of transfers with the same reason, keeping at most <code>maxInFlight</code>
+   * requests outstanding at any time. A failure of one rejection does not affect the others.
+   *
+   * @param transfers
+   *  The transfers to reject.
+   * @param reason
+   *  The reason for rejecting the transfers.
+   * @param maxInFlight
+   *  The maximum number of requests to have in flight concurrently.
+   * @return
+   *  The result for each transfer keyed by transfer id, in the order the transfers were given.
+   * @throws IllegalArgumentException
+   *  If two transfers have the same id, in which case none of them is rejected.
+   */
+  public Map<UUID, TransferResult> rejectTransfers(Collection<LedgerTransfer> transfers,
+      TransferRejectedReason reason, int maxInFlight) {
+
+    return pipeline(transfers, LedgerTransfer::getId,
+        transfer -> rejectTransferAsync(transfer, reason), maxInFlight);
+  }
+
+  /**
+   * Submits a batch of fulfillments, keeping at most <code>maxInFlight</code> requests outstanding
+   * at any time. A failure of one fulfillment does not affect the others.
+   *
+   * @param fulfillments
+   *  The fulfillments to submit, keyed by the id of the transfer they fulfill.
+   * @param maxInFlight
+   *  The maximum number of requests to have in flight concurrently.
+   * @return
+   *  The result for each transfer keyed by transfer id, in the iteration order of the given map.
+   */
+  public Map<UUID, TransferResult> fulfillTransfers(Map<UUID, Fulfillment> fulfillments,
+      int maxInFlight) {
+
+    return pipeline(fulfillments.entrySet(), Map.Entry::getKey,
+        entry -> fulfillTransferAsync(getConverter().convertTransferUuidToUri(entry.getKey()),
+            entry.getValue()),
+        maxInFlight);
+  }
+
+  /**
+   * Applies an asynchronous operation to each item, bounding the number of outstanding requests
+   * with a semaphore, and waits for every submitted operation to complete. Results are keyed by
+   * id, so items sharing an id are rejected before anything is sent.
+   */
+  private <T> Map<UUID, TransferResult> pipeline(Collection<T> items, Function<T, UUID> idOf,
+      Function<T, CompletableFuture<Void>> operation, int maxInFlight) {
+
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be at least 1.");
+    }
+
+    Set<UUID> ids = new HashSet<>();
+    for (T item : items) {
+      UUID id = idOf.apply(item);
+      if (!ids.add(id)) {
+        throw new IllegalArgumentException("Duplicate transfer id in batch: " + id);
+      }
+    }
+
+    Semaphore window = new Semaphore(maxInFlight);
+    Map<UUID, CompletableFuture<TransferResult>> pending = new LinkedHashMap<>();
+    List<UUID> notSubmitted = new ArrayList<>();
+
+    for (T item : items) {
+      UUID id = idOf.apply(item);
+      if (Thread.currentThread().isInterrupted()) {
+        notSubmitted.add(id);
+        continue;
+      }
+
+      try {
+        window.acquire();
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        notSubmitted.add(id);
+        continue;
       }
+
+      CompletableFuture<Void> future;
+      try {
+        future = operation.apply(item);
+      } catch (RuntimeException ex) {
+        future = failedFuture(ex);
+      }
+
+      pending.put(id, future.handle((result, ex) -> {
+        window.release();
+        return new TransferResult(id, unwrap(ex));
+      }));
+    }
+
+    Map<UUID, TransferResult> results = new LinkedHashMap<>();
+    for (Map.Entry<UUID, CompletableFuture<TransferResult>> entry : pending.entrySet()) {
+      results.put(entry.getKey(), entry.getValue().join());
+    }
+    for (UUID id : notSubmitted) {
+      results.put(id, new TransferResult(id,
+          new CancellationException("Interrupted before the request was submitted.")));
+    }
+
+    log.debug("Bulk operation completed - {} items, {} in flight max", results.size(),
+        maxInFlight);
+
+    return results;
+  }
+
+  /**
+   * Strips the completion wrapper from an asynchronous failure.
+   */
+  private static RuntimeException unwrap(Throwable ex) {
+
+    if (ex instanceof CompletionException && ex.getCause() != null) {
+      ex = ex.getCause();
+    }
+    if (ex == null || ex instanceof RuntimeException) {
+      return (RuntimeException) ex;
+    }
+    return new CompletionException(ex);
+  }
+
+  /**
+   * Maps the HTTP errors returned when sending or rejecting a transfer.
+   */
+  private RuntimeException translateTransferException(HttpStatusCodeException sce) {
+
+    switch (sce.getStatusCode()) {
+      case BAD_REQUEST:
+      case NOT_FOUND:
+        return parseRestException(sce);
+      default:
+        return sce;
+    }
+  }
+
+  /**
+   * Maps the HTTP errors returned when fulfilling a transfer.
+   */
+  private RuntimeException translateFulfillmentException(HttpStatusCodeException sce) {
+
+    switch (sce.getStatusCode()) {
+      case BAD_REQUEST:
+      case UNPROCESSABLE_ENTITY:
+        return parseRestException(sce);
+      default:
+        return sce;
     }
   }
 }
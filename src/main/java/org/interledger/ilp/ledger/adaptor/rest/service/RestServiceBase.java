@@ -1,12 +1,22 @@
 package org.interledger.ilp.ledger.adaptor.rest.service;
 
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.AdaptorStateException;
 import org.interledger.ilp.ledger.adaptor.rest.exceptions.RestServiceException;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
 /**
  * Base class intended for interactions with the REST ledger.
  */
@@ -15,6 +25,7 @@ public abstract class RestServiceBase {
   protected static final Logger log = LoggerFactory.getLogger(RestServiceBase.class);
 
   private RestTemplate restTemplate;
+  private AsyncRestTemplate asyncRestTemplate;
   private RestLedgerJsonConverter converter;
   
   /**
@@ -37,7 +48,24 @@ public abstract class RestServiceBase {
    *  The rest template to use for interacting with the REST ledger.
    */
   public RestServiceBase(RestLedgerJsonConverter converter, RestTemplate restTemplate) {
+    this(converter, restTemplate, null);
+  }
+
+  /**
+   * Constructs a new <code>RestServiceBase</code> instance.
+   * 
+   * @param converter
+   *  A converter to use when translating between the ilp-core models and the native JSON models
+   *      of the ledger.
+   * @param restTemplate
+   *  The rest template to use for interacting with the REST ledger.
+   * @param asyncRestTemplate
+   *  The non-blocking rest template to use for asynchronous interactions with the REST ledger.
+   */
+  public RestServiceBase(RestLedgerJsonConverter converter, RestTemplate restTemplate,
+      AsyncRestTemplate asyncRestTemplate) {
     this.restTemplate = restTemplate;
+    this.asyncRestTemplate = asyncRestTemplate;
     this.converter = converter;
   }
   
@@ -49,6 +77,22 @@ public abstract class RestServiceBase {
     return this.restTemplate;
   }
 
+  /**
+   * Provides the non-blocking rest template used for asynchronous calls.
+   *
+   * @return
+   *  The async rest template.
+   * @throws AdaptorStateException
+   *  If the service was constructed without an async rest template.
+   */
+  public AsyncRestTemplate getAsyncRestTemplate() throws AdaptorStateException {
+    
+    if (this.asyncRestTemplate == null) {
+      throw new AdaptorStateException("No async rest template available to this service.");
+    }
+    return this.asyncRestTemplate;
+  }
+
   /**
    * Inspects an Http exception thrown by the rest template for a JSON encoded error message sent
    * by the REST ledger.
@@ -74,4 +118,60 @@ public abstract class RestServiceBase {
     return new RestServiceException(error, knownException);
   }
 
+  /**
+   * Adapts a future returned by the async rest template to a {@link CompletableFuture}, mapping
+   * any failure in the same way as the equivalent synchronous call.
+   *
+   * @param future
+   *  The future returned by the async rest template.
+   * @param exceptionTranslator
+   *  Translates HTTP status code errors into the exception the synchronous call would throw.
+   * @return
+   *  A future that completes with the result, or exceptionally with the translated error.
+   */
+  protected <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> future,
+      Function<HttpStatusCodeException, RuntimeException> exceptionTranslator) {
+
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.addCallback(result::complete,
+        ex -> result.completeExceptionally(translateAsyncException(ex, exceptionTranslator)));
+    return result;
+  }
+
+  /**
+   * Convenience method for a future that has already failed, used when a request cannot even be
+   * built.
+   */
+  protected static <T> CompletableFuture<T> failedFuture(Throwable ex) {
+
+    CompletableFuture<T> result = new CompletableFuture<>();
+    result.completeExceptionally(ex);
+    return result;
+  }
+
+  /**
+   * Unwraps the failure reported by the async rest template and maps it to the exception the
+   * synchronous rest template would have thrown.
+   */
+  private Throwable translateAsyncException(Throwable ex,
+      Function<HttpStatusCodeException, RuntimeException> exceptionTranslator) {
+
+    Throwable cause = ex;
+    while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+
+    if (cause instanceof HttpStatusCodeException) {
+      return exceptionTranslator.apply((HttpStatusCodeException) cause);
+    }
+
+    if (cause instanceof IOException) {
+      return new ResourceAccessException("I/O error on async request: " + cause.getMessage(),
+          (IOException) cause);
+    }
+
+    return cause;
+  }
+
 }
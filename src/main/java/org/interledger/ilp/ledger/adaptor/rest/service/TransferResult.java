@@ -0,0 +1,47 @@
+package org.interledger.ilp.ledger.adaptor.rest.service;
+
+import java.util.UUID;
+
+/**
+ * The outcome of a single transfer operation that was submitted as part of a bulk request.
+ */
+public class TransferResult {
+
+  private final UUID transferId;
+  private final RuntimeException error;
+
+  /**
+   * Constructs a new <code>TransferResult</code> instance.
+   *
+   * @param transferId
+   *  The id of the transfer the operation was applied to.
+   * @param error
+   *  The error the operation failed with, or null if it succeeded.
+   */
+  public TransferResult(UUID transferId, RuntimeException error) {
+    this.transferId = transferId;
+    this.error = error;
+  }
+
+  public UUID getTransferId() {
+    return transferId;
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+
+  /**
+   * The error the operation failed with. Errors reported by the ledger are surfaced as a
+   * {@link org.interledger.ilp.ledger.adaptor.rest.exceptions.RestServiceException}, any other
+   * HTTP or I/O failure is returned as thrown by the rest template.
+   */
+  public RuntimeException getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    return "TransferResult[" + transferId + ", " + (error == null ? "success" : error) + "]";
+  }
+}
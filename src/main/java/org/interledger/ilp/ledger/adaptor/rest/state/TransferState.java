@@ -0,0 +1,47 @@
+package org.interledger.ilp.ledger.adaptor.rest.state;
+
+/**
+ * Enumerates the states of a transfer on the REST ledger.
+ */
+public enum TransferState {
+  PROPOSED("proposed"),
+  PREPARED("prepared"),
+  EXECUTED("executed"),
+  REJECTED("rejected"),
+  NONEXISTENT("nonexistent");
+
+  private String name;
+
+  private TransferState(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Indicates if the transfer can no longer change state.
+   */
+  public boolean isFinal() {
+    return this == EXECUTED || this == REJECTED;
+  }
+
+  /**
+   * Returns the TransferState associated with the given name.
+   *
+   * @param name
+   *  The name of the state as used by the ledger.
+   * @return
+   *  The matching TransferState if the name matches. Throws an exception otherwise.
+   */
+  public static TransferState fromName(String name) {
+    for (TransferState state : TransferState.values()) {
+      if (state.getName().equals(name)) {
+        return state;
+      }
+    }
+    throw new IllegalArgumentException("Unknown transfer state: " + name);
+  }
+
+}
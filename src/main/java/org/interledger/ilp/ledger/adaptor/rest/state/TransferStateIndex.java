@@ -0,0 +1,430 @@
+package org.interledger.ilp.ledger.adaptor.rest.state;
+
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * An in-memory index of the last known state of transfers, keyed by transfer id.
+ *
+ * <p>Entries are held in a primitive open-addressing hash table (linear probing, backward-shift
+ * deletion), with each UUID stored as two longs, so that tracking a transfer costs no objects
+ * beyond the table itself. Lookups are lock-free in the common case, using an optimistic read
+ * that is retried under a read lock if a concurrent update is detected.
+ *
+ * <p>Each entry expires at the transfer's <code>expiresAt</code>, or after a default time to live
+ * for transfers without one. A final state reported after the transfer has already expired is
+ * kept for the default time to live, so that a late rejection is still recorded. Expired entries
+ * are no longer returned and are swept from the table in place periodically as new entries are
+ * added; the table only shrinks once it has become mostly empty.
+ */
+public class TransferStateIndex {
+
+  public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+  public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  private static final long SWEEP_INTERVAL_MILLIS = 1000;
+  private static final int SHRINK_RATIO = 8;
+
+  private static final byte EMPTY = 0;
+  private static final TransferState[] STATES = TransferState.values();
+
+  private final StampedLock lock = new StampedLock();
+  private final int initialCapacity;
+  private final long defaultTtlMillis;
+  private final Clock clock;
+
+  private volatile Table table;
+  private int size;
+  private long nextSweepMillis;
+
+  /**
+   * Constructs a new <code>TransferStateIndex</code> instance with the default settings.
+   */
+  public TransferStateIndex() {
+    this(DEFAULT_INITIAL_CAPACITY, DEFAULT_TTL_MILLIS, Clock.systemUTC());
+  }
+
+  /**
+   * Constructs a new <code>TransferStateIndex</code> instance.
+   *
+   * @param initialCapacity
+   *  The number of transfers the index can hold before it first grows.
+   * @param defaultTtlMillis
+   *  How long to keep the state of transfers that have no expiry.
+   * @param clock
+   *  The clock used to expire entries.
+   */
+  public TransferStateIndex(int initialCapacity, long defaultTtlMillis, Clock clock) {
+
+    this.initialCapacity = tableSizeFor(initialCapacity * 2);
+    this.defaultTtlMillis = defaultTtlMillis;
+    this.clock = clock;
+    this.table = new Table(this.initialCapacity);
+  }
+
+  /**
+   * Returns the last known state of a transfer.
+   *
+   * @param transferId
+   *  The id of the transfer.
+   * @return
+   *  The state of the transfer, or null if the transfer is unknown or its entry has expired.
+   */
+  public TransferState get(UUID transferId) {
+
+    long msb = transferId.getMostSignificantBits();
+    long lsb = transferId.getLeastSignificantBits();
+    long now = clock.millis();
+
+    long stamp = lock.tryOptimisticRead();
+    byte state = lookup(table, msb, lsb, now);
+
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        state = lookup(table, msb, lsb, now);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    return state == EMPTY ? null : STATES[state - 1];
+  }
+
+  /**
+   * Records the state of a transfer. A final state (executed or rejected) is never replaced, and
+   * a notification that arrives out of order cannot move a transfer back to an earlier state. A
+   * final state is recorded even if the transfer has already expired, and is kept at least until
+   * its own expiry even if an earlier state arrives afterwards with an expiry in the past.
+   *
+   * @param transferId
+   *  The id of the transfer.
+   * @param state
+   *  The state of the transfer.
+   * @param expiresAt
+   *  The expiry of the transfer, or null to keep the entry for the default time to live.
+   */
+  public void update(UUID transferId, TransferState state, ZonedDateTime expiresAt) {
+
+    long msb = transferId.getMostSignificantBits();
+    long lsb = transferId.getLeastSignificantBits();
+    long now = clock.millis();
+    long expiry = expiresAt != null ? expiresAt.toInstant().toEpochMilli() : now + defaultTtlMillis;
+    if (expiry <= now && state.isFinal()) {
+      expiry = now + defaultTtlMillis;
+    }
+
+    long stamp = lock.writeLock();
+    try {
+      if (now >= nextSweepMillis) {
+        sweep(now);
+      }
+
+      Table tbl = table;
+      int slot = find(tbl, msb, lsb);
+      if (slot >= 0 && tbl.expiry[slot] <= now) {
+        deleteSlot(tbl, slot);
+        slot = -1;
+      }
+
+      if (slot >= 0 && STATES[tbl.states[slot] - 1].isFinal()) {
+        tbl.expiry[slot] = Math.max(tbl.expiry[slot], expiry);
+        return;
+      }
+
+      if (expiry <= now) {
+        if (slot >= 0) {
+          deleteSlot(tbl, slot);
+        }
+        return;
+      }
+
+      if (slot >= 0) {
+        if (rank(state) >= rank(STATES[tbl.states[slot] - 1])) {
+          tbl.states[slot] = (byte) (state.ordinal() + 1);
+        }
+        tbl.expiry[slot] = expiry;
+        return;
+      }
+
+      if ((size + 1) * 2 > tbl.states.length) {
+        tbl = resize(tbl.states.length * 2, now);
+      }
+      insert(tbl, msb, lsb, (byte) (state.ordinal() + 1), expiry);
+      size++;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns the ids of the transfers whose last known state is not final, for example to check
+   * them with the ledger after notifications may have been missed.
+   */
+  public List<UUID> getPendingTransferIds() {
+
+    List<UUID> pending = new ArrayList<>();
+    long now = clock.millis();
+    long stamp = lock.readLock();
+    try {
+      Table tbl = table;
+      for (int i = 0; i < tbl.states.length; i++) {
+        byte state = tbl.states[i];
+        if (state != EMPTY && tbl.expiry[i] > now && !STATES[state - 1].isFinal()) {
+          pending.add(new UUID(tbl.msb[i], tbl.lsb[i]));
+        }
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    return pending;
+  }
+
+  /**
+   * Removes the state of a transfer from the index.
+   *
+   * @param transferId
+   *  The id of the transfer.
+   */
+  public void remove(UUID transferId) {
+
+    long stamp = lock.writeLock();
+    try {
+      removeEntry(transferId.getMostSignificantBits(), transferId.getLeastSignificantBits());
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes all expired entries now rather than waiting for the next periodic sweep.
+   */
+  public void evictExpired() {
+
+    long stamp = lock.writeLock();
+    try {
+      sweep(clock.millis());
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+
+    long stamp = lock.writeLock();
+    try {
+      table = new Table(initialCapacity);
+      size = 0;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * The number of entries in the index, including expired entries that have not been swept yet.
+   */
+  public int size() {
+
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private static byte lookup(Table tbl, long msb, long lsb, long now) {
+
+    int mask = tbl.mask;
+    int slot = hash(msb, lsb) & mask;
+    for (int probes = 0; probes <= mask; probes++) {
+      byte state = tbl.states[slot];
+      if (state == EMPTY) {
+        return EMPTY;
+      }
+      if (tbl.msb[slot] == msb && tbl.lsb[slot] == lsb) {
+        return tbl.expiry[slot] > now ? state : EMPTY;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return EMPTY;
+  }
+
+  private static int find(Table tbl, long msb, long lsb) {
+
+    int slot = hash(msb, lsb) & tbl.mask;
+    while (tbl.states[slot] != EMPTY) {
+      if (tbl.msb[slot] == msb && tbl.lsb[slot] == lsb) {
+        return slot;
+      }
+      slot = (slot + 1) & tbl.mask;
+    }
+    return -1;
+  }
+
+  private static void insert(Table tbl, long msb, long lsb, byte state, long expiry) {
+
+    int slot = hash(msb, lsb) & tbl.mask;
+    while (tbl.states[slot] != EMPTY) {
+      slot = (slot + 1) & tbl.mask;
+    }
+    tbl.msb[slot] = msb;
+    tbl.lsb[slot] = lsb;
+    tbl.states[slot] = state;
+    tbl.expiry[slot] = expiry;
+  }
+
+  /**
+   * Removes an entry and shifts back any entries in the same probe run, so that no tombstones
+   * are needed.
+   */
+  private void removeEntry(long msb, long lsb) {
+
+    Table tbl = table;
+    int slot = find(tbl, msb, lsb);
+    if (slot >= 0) {
+      deleteSlot(tbl, slot);
+    }
+  }
+
+  private void deleteSlot(Table tbl, int hole) {
+
+    int slot = hole;
+    while (true) {
+      slot = (slot + 1) & tbl.mask;
+      if (tbl.states[slot] == EMPTY) {
+        break;
+      }
+      int home = hash(tbl.msb[slot], tbl.lsb[slot]) & tbl.mask;
+      // Move the entry into the hole unless its home slot lies cyclically in (hole, slot]
+      boolean stays = hole <= slot
+          ? (home > hole && home <= slot)
+          : (home > hole || home <= slot);
+      if (!stays) {
+        tbl.msb[hole] = tbl.msb[slot];
+        tbl.lsb[hole] = tbl.lsb[slot];
+        tbl.states[hole] = tbl.states[slot];
+        tbl.expiry[hole] = tbl.expiry[slot];
+        hole = slot;
+      }
+    }
+    tbl.states[hole] = EMPTY;
+    size--;
+  }
+
+  /**
+   * Deletes expired entries in place, and shrinks the table only if it has become mostly empty.
+   *
+   * <p>The scan starts just after an empty slot so that every probe run is visited from its start.
+   * Deleting a slot only shifts later entries of the same run back into it, so the slot is checked
+   * again before the scan moves on.
+   */
+  private void sweep(long now) {
+
+    nextSweepMillis = now + SWEEP_INTERVAL_MILLIS;
+
+    Table tbl = table;
+    if (size == 0) {
+      return;
+    }
+
+    int start = 0;
+    while (tbl.states[start] != EMPTY) {
+      start++;
+    }
+
+    int slot = (start + 1) & tbl.mask;
+    int visited = 0;
+    while (visited < tbl.mask) {
+      if (tbl.states[slot] != EMPTY && tbl.expiry[slot] <= now) {
+        deleteSlot(tbl, slot);
+      } else {
+        slot = (slot + 1) & tbl.mask;
+        visited++;
+      }
+    }
+
+    if (tbl.states.length > initialCapacity && size * SHRINK_RATIO < tbl.states.length) {
+      resize(Math.max(initialCapacity, tableSizeFor(size * 2)), now);
+    }
+  }
+
+  /**
+   * Rehashes all live entries into a new table of the given capacity.
+   */
+  private Table resize(int capacity, long now) {
+
+    Table old = table;
+    Table tbl = new Table(capacity);
+    int live = 0;
+    for (int i = 0; i < old.states.length; i++) {
+      if (old.states[i] != EMPTY && old.expiry[i] > now) {
+        insert(tbl, old.msb[i], old.lsb[i], old.states[i], old.expiry[i]);
+        live++;
+      }
+    }
+    size = live;
+    table = tbl;
+    return tbl;
+  }
+
+  private static int rank(TransferState state) {
+
+    switch (state) {
+      case PROPOSED:
+        return 1;
+      case PREPARED:
+        return 2;
+      case EXECUTED:
+      case REJECTED:
+        return 3;
+      default:
+        return 0;
+    }
+  }
+
+  private static int hash(long msb, long lsb) {
+
+    long mixed = msb * 0x9E3779B97F4A7C15L ^ lsb;
+    mixed ^= mixed >>> 33;
+    mixed *= 0xFF51AFD7ED558CCDL;
+    mixed ^= mixed >>> 33;
+    return (int) mixed;
+  }
+
+  private static int tableSizeFor(int capacity) {
+
+    int tableSize = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+    return Math.max(tableSize, 16);
+  }
+
+  /**
+   * The parallel arrays backing the index. A new table is created, rather than the arrays being
+   * replaced, so that an optimistic reader always sees arrays of the same length.
+   */
+  private static final class Table {
+
+    private final long[] msb;
+    private final long[] lsb;
+    private final long[] expiry;
+    private final byte[] states;
+    private final int mask;
+
+    private Table(int capacity) {
+      this.msb = new long[capacity];
+      this.lsb = new long[capacity];
+      this.expiry = new long[capacity];
+      this.states = new byte[capacity];
+      this.mask = capacity - 1;
+    }
+  }
+
+}
@@ -0,0 +1,25 @@
+package org.interledger.ilp.ledger.adaptor.rest.transport;
+
+/**
+ * The HTTP protocol versions the {@link HttpTransport} can use to talk to the ledger.
+ */
+public enum HttpProtocol {
+
+  /**
+   * HTTP/1.1 over a pool of keep-alive connections (Apache HttpClient). This is the default.
+   */
+  HTTP_1_1,
+
+  /**
+   * HTTP/2 negotiated via ALPN on TLS connections, multiplexing all requests over a few
+   * connections per host (OkHttp). Falls back to HTTP/1.1 when the ledger, or the JVM, does not
+   * negotiate h2, and for plain <code>http</code> URIs.
+   */
+  HTTP_2,
+
+  /**
+   * HTTP/2 over cleartext with prior knowledge (h2c). There is no fallback, so this should only be
+   * used with ledgers, proxies or test servers that are known to accept h2c.
+   */
+  H2C
+}
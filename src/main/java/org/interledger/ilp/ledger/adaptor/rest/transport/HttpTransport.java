@@ -0,0 +1,281 @@
+package org.interledger.ilp.ledger.adaptor.rest.transport;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContexts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * A pooled HTTP transport that is shared by all of the REST ledger services so that connections
+ * and TLS sessions are reused between them.
+ *
+ * <p>In {@link HttpProtocol#HTTP_1_1} mode the transport is built on Apache HttpClient, with a
+ * pool of keep-alive connections. The blocking and non-blocking request factories share the same
+ * SSL context, timeouts and connection limits. Connection state tracking is disabled so that
+ * connections opened by one service can be leased by any other. Both pools close connections that
+ * have been idle for longer than the configured timeout.
+ *
+ * <p>In {@link HttpProtocol#HTTP_2} and {@link HttpProtocol#H2C} mode the transport is built on
+ * OkHttp, which multiplexes concurrent requests as streams over a single connection per host. A
+ * single OkHttp client backs both the blocking and non-blocking request factories.
+ */
+public class HttpTransport implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(HttpTransport.class);
+
+  private final HttpTransportConfig config;
+  private final SSLContext sslContext;
+
+  // HTTP/1.1 mode
+  private RequestConfig requestConfig;
+  private PoolingHttpClientConnectionManager connectionManager;
+  private CloseableHttpClient httpClient;
+  private HttpComponentsAsyncClientHttpRequestFactory asyncRequestFactory;
+  private ScheduledExecutorService asyncIdleConnectionEvictor;
+
+  // HTTP/2 mode
+  private OkHttpClient okHttpClient;
+
+  private ClientHttpRequestFactory requestFactory;
+
+  /**
+   * Constructs a new <code>HttpTransport</code> instance with the default settings.
+   */
+  public HttpTransport() {
+    this(new HttpTransportConfig());
+  }
+
+  /**
+   * Constructs a new <code>HttpTransport</code> instance.
+   *
+   * @param config
+   *  The protocol, pool, timeout and TLS settings for the transport.
+   */
+  public HttpTransport(HttpTransportConfig config) {
+
+    this.config = config;
+    this.sslContext = config.getSslContext() != null
+        ? config.getSslContext() : SSLContexts.createSystemDefault();
+
+    if (config.getProtocol() == HttpProtocol.HTTP_1_1) {
+      initHttpComponents();
+    } else {
+      initOkHttp();
+    }
+  }
+
+  private void initHttpComponents() {
+
+    this.requestConfig = RequestConfig.custom()
+        .setConnectTimeout(config.getConnectTimeoutMillis())
+        .setSocketTimeout(config.getSocketTimeoutMillis())
+        .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis())
+        .build();
+
+    Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder
+        .<ConnectionSocketFactory>create()
+        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+        .register("https", new SSLConnectionSocketFactory(sslContext))
+        .build();
+
+    this.connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+    this.connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+    this.connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+    this.connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivityMillis());
+
+    this.httpClient = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .disableConnectionState()
+        .evictExpiredConnections()
+        .evictIdleConnections(config.getIdleConnectionTimeoutMillis(), TimeUnit.MILLISECONDS)
+        .build();
+
+    this.requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+  }
+
+  private void initOkHttp() {
+
+    // With HTTP/2 the connection count stays low, so the pool limits become limits on the number
+    // of concurrent requests (streams) instead.
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(config.getMaxConnectionsTotal());
+    dispatcher.setMaxRequestsPerHost(config.getMaxConnectionsTotal());
+
+    OkHttpClient.Builder builder = new OkHttpClient.Builder()
+        .dispatcher(dispatcher)
+        .connectionPool(new ConnectionPool(config.getMaxConnectionsPerRoute(),
+            config.getIdleConnectionTimeoutMillis(), TimeUnit.MILLISECONDS))
+        .connectTimeout(config.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+        .readTimeout(config.getSocketTimeoutMillis(), TimeUnit.MILLISECONDS)
+        .writeTimeout(config.getSocketTimeoutMillis(), TimeUnit.MILLISECONDS)
+        .retryOnConnectionFailure(true);
+
+    if (config.getProtocol() == HttpProtocol.H2C) {
+      builder.protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+    } else {
+      builder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+    }
+
+    if (config.getSslContext() != null) {
+      if (config.getTrustManager() == null) {
+        throw new IllegalArgumentException(
+            "A trust manager must be set with the SSL context in HTTP/2 mode.");
+      }
+      builder.sslSocketFactory(sslContext.getSocketFactory(), config.getTrustManager());
+    }
+
+    this.okHttpClient = builder.build();
+    this.requestFactory = new OkHttp3ClientHttpRequestFactory(okHttpClient);
+  }
+
+  /** The request factory to use for all blocking rest templates. */
+  public ClientHttpRequestFactory getRequestFactory() {
+    return requestFactory;
+  }
+
+  /**
+   * The request factory to use for all non-blocking rest templates. In HTTP/1.1 mode the
+   * underlying async client is created on first use.
+   */
+  public synchronized AsyncClientHttpRequestFactory getAsyncRequestFactory() {
+
+    if (okHttpClient != null) {
+      return (AsyncClientHttpRequestFactory) requestFactory;
+    }
+
+    if (asyncRequestFactory == null) {
+      PoolingNHttpClientConnectionManager asyncConnectionManager = createAsyncConnectionManager();
+      CloseableHttpAsyncClient asyncClient = HttpAsyncClients.custom()
+          .setConnectionManager(asyncConnectionManager)
+          .setDefaultRequestConfig(requestConfig)
+          .disableConnectionState()
+          .build();
+      startIdleConnectionEviction(asyncConnectionManager);
+      asyncRequestFactory = new HttpComponentsAsyncClientHttpRequestFactory(httpClient,
+          asyncClient);
+      asyncRequestFactory.afterPropertiesSet();
+    }
+    return asyncRequestFactory;
+  }
+
+  private PoolingNHttpClientConnectionManager createAsyncConnectionManager() {
+
+    Registry<SchemeIOSessionStrategy> sessionStrategies = RegistryBuilder
+        .<SchemeIOSessionStrategy>create()
+        .register("http", NoopIOSessionStrategy.INSTANCE)
+        .register("https", new SSLIOSessionStrategy(sslContext))
+        .build();
+
+    PoolingNHttpClientConnectionManager asyncConnectionManager;
+    try {
+      asyncConnectionManager = new PoolingNHttpClientConnectionManager(
+          new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT), sessionStrategies);
+    } catch (IOReactorException ioReactorException) {
+      throw new UncheckedIOException("Unable to create async I/O reactor.", ioReactorException);
+    }
+    asyncConnectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+    asyncConnectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+    return asyncConnectionManager;
+  }
+
+  /**
+   * The async client has no built-in eviction, unlike the blocking one, so expired and idle
+   * connections are closed from a daemon thread, checked as often as the blocking client does.
+   */
+  private void startIdleConnectionEviction(PoolingNHttpClientConnectionManager manager) {
+
+    long idleTimeout = config.getIdleConnectionTimeoutMillis();
+    if (idleTimeout <= 0) {
+      return;
+    }
+    asyncIdleConnectionEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "HttpTransportIdleConnectionEvictor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    asyncIdleConnectionEvictor.scheduleWithFixedDelay(() -> {
+      manager.closeExpiredConnections();
+      manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    }, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+  }
+
+  public HttpTransportConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Returns a snapshot of the connection pool usage. In HTTP/2 mode the limit is on concurrent
+   * requests rather than connections, so the leased count is the number of requests running, the
+   * pending count the number queued by the dispatcher and the maximum the dispatcher's request
+   * limit. The available count is the number of idle connections.
+   */
+  public PoolStats getPoolStats() {
+
+    if (okHttpClient != null) {
+      Dispatcher dispatcher = okHttpClient.dispatcher();
+      return new PoolStats(dispatcher.runningCallsCount(), dispatcher.queuedCallsCount(),
+          okHttpClient.connectionPool().idleConnectionCount(), dispatcher.getMaxRequests());
+    }
+    return connectionManager.getTotalStats();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+
+    log.debug("Closing HTTP transport");
+    if (okHttpClient != null) {
+      okHttpClient.dispatcher().executorService().shutdown();
+      okHttpClient.connectionPool().evictAll();
+      return;
+    }
+    if (asyncIdleConnectionEvictor != null) {
+      asyncIdleConnectionEvictor.shutdownNow();
+      asyncIdleConnectionEvictor = null;
+    }
+    if (asyncRequestFactory != null) {
+      asyncRequestFactory.getHttpAsyncClient().close();
+      asyncRequestFactory = null;
+    }
+    httpClient.close();
+  }
+
+}
@@ -0,0 +1,133 @@
+package org.interledger.ilp.ledger.adaptor.rest.transport;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * Settings for the pooled HTTP transport shared by the REST ledger services.
+ */
+public class HttpTransportConfig {
+
+  public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 200;
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+  public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+  public static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 30000;
+  public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS = 5000;
+  public static final long DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS = 30000;
+  public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+  private HttpProtocol protocol = HttpProtocol.HTTP_1_1;
+  private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+  private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+  private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+  private int socketTimeoutMillis = DEFAULT_SOCKET_TIMEOUT_MILLIS;
+  private int connectionRequestTimeoutMillis = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS;
+  private long idleConnectionTimeoutMillis = DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS;
+  private int validateAfterInactivityMillis = DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS;
+  private SSLContext sslContext;
+  private X509TrustManager trustManager;
+
+  /** The HTTP protocol version to use, HTTP/1.1 by default. */
+  public HttpProtocol getProtocol() {
+    return protocol;
+  }
+
+  /**
+   * The maximum number of pooled connections across all routes. In HTTP/2 mode this is the
+   * maximum number of concurrent asynchronous requests instead.
+   */
+  public int getMaxConnectionsTotal() {
+    return maxConnectionsTotal;
+  }
+
+  /**
+   * The maximum number of pooled connections to a single host. In HTTP/2 mode this is the maximum
+   * number of idle connections kept open.
+   */
+  public int getMaxConnectionsPerRoute() {
+    return maxConnectionsPerRoute;
+  }
+
+  /** The time allowed to establish a TCP connection. */
+  public int getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  /** The maximum period of inactivity while waiting for response data. */
+  public int getSocketTimeoutMillis() {
+    return socketTimeoutMillis;
+  }
+
+  /** The time allowed to wait for a connection to be leased from the pool. */
+  public int getConnectionRequestTimeoutMillis() {
+    return connectionRequestTimeoutMillis;
+  }
+
+  /** Connections idle for longer than this are closed by the background evictor. */
+  public long getIdleConnectionTimeoutMillis() {
+    return idleConnectionTimeoutMillis;
+  }
+
+  /** Pooled connections idle for longer than this are checked for staleness before reuse. */
+  public int getValidateAfterInactivityMillis() {
+    return validateAfterInactivityMillis;
+  }
+
+  /**
+   * The SSL context used for all TLS connections. Sharing one context is what allows TLS sessions
+   * to be resumed across connections. Defaults to the system SSL context if not set.
+   */
+  public SSLContext getSslContext() {
+    return sslContext;
+  }
+
+  /**
+   * The trust manager the SSL context was initialized with. The HTTP/2 modes need it alongside the
+   * context, since OkHttp cannot read it back out of the context, so it must be set whenever an
+   * SSL context is set in those modes.
+   */
+  public X509TrustManager getTrustManager() {
+    return trustManager;
+  }
+
+  public void setProtocol(HttpProtocol protocol) {
+    this.protocol = protocol;
+  }
+
+  public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+    this.maxConnectionsTotal = maxConnectionsTotal;
+  }
+
+  public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+  }
+
+  public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+    this.connectTimeoutMillis = connectTimeoutMillis;
+  }
+
+  public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+    this.socketTimeoutMillis = socketTimeoutMillis;
+  }
+
+  public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+    this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+  }
+
+  public void setIdleConnectionTimeoutMillis(long idleConnectionTimeoutMillis) {
+    this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+  }
+
+  public void setValidateAfterInactivityMillis(int validateAfterInactivityMillis) {
+    this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+  }
+
+  public void setSslContext(SSLContext sslContext) {
+    this.sslContext = sslContext;
+  }
+
+  public void setTrustManager(X509TrustManager trustManager) {
+    this.trustManager = trustManager;
+  }
+
+}
@@ -0,0 +1,284 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.AdaptorStateException;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcResponseMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcSubscribeAccountRequest;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcSubscribeAccountRequestParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the set of accounts the channel should receive notifications for, and sends it to the
+ * ledger in as few <code>subscribe_account</code> calls as possible.
+ *
+ * <p>The ledger replaces its subscriptions with the accounts listed in each
+ * <code>subscribe_account</code> call, so every call carries the full set. Changes made within a
+ * short window are coalesced into a single call, and the futures returned for them complete when
+ * the ledger acknowledges that call. A request that does not change the set is sent again if the
+ * last call failed or the ledger has not acknowledged the accounts, for example after a
+ * reconnect.
+ *
+ * <p>The timer only hands each call to an executor, since writing to the web socket can block
+ * and the timer is shared with the request timeouts and heartbeats of every channel.
+ */
+public class AccountSubscriptionManager {
+
+  public static final long DEFAULT_COALESCE_MILLIS = 100;
+
+  private static final Logger log = LoggerFactory.getLogger(AccountSubscriptionManager.class);
+
+  private final JsonRpcWebSocketChannel channel;
+  private final HashedWheelTimer timer;
+  private final Executor sendExecutor;
+  private final long coalesceMillis;
+
+  private final Set<URI> accounts = new LinkedHashSet<>();
+  private Set<URI> acknowledgedAccounts = Collections.emptySet();
+  private CompletableFuture<Void> nextUpdate;
+  private CompletableFuture<Void> lastUpdate = CompletableFuture.completedFuture(null);
+
+  /**
+   * Constructs a new <code>AccountSubscriptionManager</code> instance with the default coalescing
+   * window.
+   *
+   * @param channel
+   *  The channel to subscribe on.
+   */
+  public AccountSubscriptionManager(JsonRpcWebSocketChannel channel) {
+    this(channel, DEFAULT_COALESCE_MILLIS, HashedWheelTimer.getShared());
+  }
+
+  /**
+   * Constructs a new <code>AccountSubscriptionManager</code> instance.
+   *
+   * @param channel
+   *  The channel to subscribe on.
+   * @param coalesceMillis
+   *  How long to wait for further changes before sending the subscriptions to the ledger.
+   * @param timer
+   *  The timer used to delay sending.
+   */
+  public AccountSubscriptionManager(JsonRpcWebSocketChannel channel, long coalesceMillis,
+      HashedWheelTimer timer) {
+    this(channel, coalesceMillis, timer, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a new <code>AccountSubscriptionManager</code> instance.
+   *
+   * @param channel
+   *  The channel to subscribe on.
+   * @param coalesceMillis
+   *  How long to wait for further changes before sending the subscriptions to the ledger.
+   * @param timer
+   *  The timer used to delay sending.
+   * @param sendExecutor
+   *  The executor on which the subscriptions are sent once the delay has passed.
+   */
+  public AccountSubscriptionManager(JsonRpcWebSocketChannel channel, long coalesceMillis,
+      HashedWheelTimer timer, Executor sendExecutor) {
+
+    this.channel = channel;
+    this.coalesceMillis = coalesceMillis;
+    this.timer = timer;
+    this.sendExecutor = sendExecutor;
+  }
+
+  /**
+   * Adds an account to the subscriptions.
+   *
+   * @param account
+   *  The account to receive notifications for, as represented by a URI on the REST ledger.
+   * @return
+   *  A future that completes when the ledger has acknowledged the subscription.
+   */
+  public CompletableFuture<Void> subscribe(URI account) {
+    return subscribe(Collections.singleton(account));
+  }
+
+  /**
+   * Adds accounts to the subscriptions.
+   *
+   * @param accountsToAdd
+   *  The accounts to receive notifications for, as represented by URIs on the REST ledger.
+   * @return
+   *  A future that completes when the ledger has acknowledged the subscriptions.
+   */
+  public synchronized CompletableFuture<Void> subscribe(Collection<URI> accountsToAdd) {
+    return accounts.addAll(accountsToAdd)
+        ? scheduleUpdate() : pendingUpdate(acknowledgedAccounts.containsAll(accountsToAdd));
+  }
+
+  /**
+   * Removes an account from the subscriptions.
+   *
+   * @param account
+   *  The account to stop receiving notifications for.
+   * @return
+   *  A future that completes when the ledger has acknowledged the change.
+   */
+  public CompletableFuture<Void> unsubscribe(URI account) {
+    return unsubscribe(Collections.singleton(account));
+  }
+
+  /**
+   * Removes accounts from the subscriptions.
+   *
+   * @param accountsToRemove
+   *  The accounts to stop receiving notifications for.
+   * @return
+   *  A future that completes when the ledger has acknowledged the change.
+   */
+  public synchronized CompletableFuture<Void> unsubscribe(Collection<URI> accountsToRemove) {
+    return accounts.removeAll(accountsToRemove) ? scheduleUpdate()
+        : pendingUpdate(Collections.disjoint(acknowledgedAccounts, accountsToRemove));
+  }
+
+  /**
+   * Sends the full set of accounts to the ledger again, typically after reconnecting since the
+   * ledger forgets the subscriptions of a closed connection.
+   *
+   * @return
+   *  A future that completes when the ledger has acknowledged the subscriptions.
+   */
+  public synchronized CompletableFuture<Void> resubscribe() {
+
+    acknowledgedAccounts = Collections.emptySet();
+    return accounts.isEmpty() ? CompletableFuture.completedFuture(null) : scheduleUpdate();
+  }
+
+  /**
+   * Records that the connection was lost, and with it the subscriptions held by the ledger.
+   */
+  synchronized void onDisconnected() {
+    acknowledgedAccounts = Collections.emptySet();
+  }
+
+  /**
+   * Returns the accounts that notifications should be received for, including changes the ledger
+   * has not acknowledged yet.
+   */
+  public synchronized Set<URI> getAccounts() {
+    return new LinkedHashSet<>(accounts);
+  }
+
+  /**
+   * Returns the accounts included in the last subscription acknowledged by the ledger.
+   */
+  public synchronized Set<URI> getAcknowledgedAccounts() {
+    return acknowledgedAccounts;
+  }
+
+  /**
+   * Returns the future of a request that leaves the set of accounts unchanged. This is the change
+   * waiting to be sent or in flight, which already carries the set, or the last change if it
+   * succeeded and the ledger holds the requested subscriptions. Otherwise the set is sent again,
+   * rather than returning a failed or outdated future.
+   *
+   * @param acknowledged
+   *  Whether the acknowledged accounts already reflect the request.
+   */
+  private CompletableFuture<Void> pendingUpdate(boolean acknowledged) {
+
+    if (nextUpdate != null) {
+      return nextUpdate;
+    }
+    if (!lastUpdate.isDone()) {
+      return lastUpdate;
+    }
+    return acknowledged && !lastUpdate.isCompletedExceptionally() ? lastUpdate : scheduleUpdate();
+  }
+
+  private CompletableFuture<Void> scheduleUpdate() {
+
+    if (nextUpdate == null) {
+      nextUpdate = new CompletableFuture<>();
+      timer.newTimeout(this::dispatchUpdate, coalesceMillis, TimeUnit.MILLISECONDS);
+    }
+    return nextUpdate;
+  }
+
+  /**
+   * Hands the update to the send executor, failing it if the executor does not accept it.
+   */
+  private void dispatchUpdate() {
+
+    try {
+      sendExecutor.execute(this::sendUpdate);
+    } catch (RejectedExecutionException ree) {
+      CompletableFuture<Void> update;
+      synchronized (this) {
+        update = nextUpdate;
+        nextUpdate = null;
+      }
+      log.error("Unable to send subscriptions to the ledger.", ree);
+      update.completeExceptionally(ree);
+    }
+  }
+
+  /**
+   * Sends the full set of accounts to the ledger, completing the futures of all changes made since
+   * the previous call.
+   */
+  private void sendUpdate() {
+
+    CompletableFuture<Void> update;
+    List<URI> snapshot;
+    synchronized (this) {
+      update = nextUpdate;
+      nextUpdate = null;
+      lastUpdate = update;
+      snapshot = new ArrayList<>(accounts);
+    }
+
+    JsonRpcSubscribeAccountRequest request = new JsonRpcSubscribeAccountRequest();
+    JsonRpcSubscribeAccountRequestParams params = new JsonRpcSubscribeAccountRequestParams();
+    params.setAccounts(snapshot);
+    params.setEventType("*");
+    request.setParams(params);
+
+    if (!channel.canSend()) {
+      update.completeExceptionally(
+          new AdaptorStateException("Websocket is disconnected. No session available to send."));
+      return;
+    }
+
+    log.debug("Subscribing to notifications for {} accounts", snapshot.size());
+    channel.call(request).whenComplete((response, error) -> {
+      if (error != null) {
+        log.error("Unable to subscribe to notifications: {}", error.getMessage());
+        update.completeExceptionally(error);
+        return;
+      }
+      if (response.getError() != null || response.getResult() == null
+          || !JsonRpcResponseMessage.isSuccess(response)) {
+        String reason = response.getError() != null
+            ? response.getError().getMessage() : String.valueOf(response.getResult());
+        log.error("Unable to subscribe to notifications: {}", reason);
+        update.completeExceptionally(
+            new AdaptorStateException("Unable to subscribe to notifications: " + reason));
+        return;
+      }
+
+      synchronized (this) {
+        acknowledgedAccounts = Collections.unmodifiableSet(new LinkedHashSet<>(snapshot));
+      }
+      log.info("Subscribed to notifications for {} accounts", snapshot.size());
+      update.complete(null);
+    });
+  }
+
+}
@@ -0,0 +1,33 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+/**
+ * The states of a web socket channel's connection to the ledger.
+ *
+ * <p>A channel starts {@link #CLOSED}, moves to {@link #CONNECTING} when opened and to
+ * {@link #OPEN} once a session is established. When the session is lost it moves to
+ * {@link #RECONNECTING} until a new one is established, or to {@link #CLOSED} if it does not
+ * reconnect. Closing the channel moves it through {@link #CLOSING} to {@link #CLOSED}, for good.
+ */
+public enum ConnectionState {
+
+  /** The first connection is being established. */
+  CONNECTING,
+
+  /** A session is established and requests can be sent. */
+  OPEN,
+
+  /** The session was lost and a new one is being established. */
+  RECONNECTING,
+
+  /** The channel is being closed. */
+  CLOSING,
+
+  /** The channel is not open, or has given up connecting. */
+  CLOSED;
+
+  /** Indicates whether the channel is open, connected or not, in this state. */
+  public boolean isActive() {
+    return this == CONNECTING || this == OPEN || this == RECONNECTING;
+  }
+
+}
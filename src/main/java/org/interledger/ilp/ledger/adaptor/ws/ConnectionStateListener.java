@@ -0,0 +1,23 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+/**
+ * Defines a callback invoked when the connection state of a web socket channel changes.
+ */
+@FunctionalInterface
+public interface ConnectionStateListener {
+
+  /**
+   * Called after the channel has moved to a new state, on the thread that caused the change. It
+   * should return quickly, since it may be called from the web socket read thread.
+   *
+   * @param channel
+   *  The channel whose state changed.
+   * @param previous
+   *  The state the channel left.
+   * @param current
+   *  The state the channel entered.
+   */
+  void onStateChange(JsonRpcWebSocketChannel channel, ConnectionState previous,
+      ConnectionState current);
+
+}
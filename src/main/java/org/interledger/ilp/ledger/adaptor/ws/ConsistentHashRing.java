@@ -0,0 +1,131 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Assigns keys to a fixed list of nodes by consistent hashing.
+ *
+ * <p>Each node is placed on a ring of 64 bit hashes at several points, its virtual nodes, and a
+ * key belongs to the first node found walking clockwise from the hash of the key. The assignment
+ * only depends on the string form of the key and the position of the node in the list, so it is
+ * the same across restarts, and adding a node only moves about <code>1/n</code> of the keys.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public class ConsistentHashRing<T> {
+
+  public static final int DEFAULT_VIRTUAL_NODES = 64;
+
+  private final List<T> nodes;
+  private final long[] points;
+  private final int[] owners;
+
+  /**
+   * Constructs a new <code>ConsistentHashRing</code> instance with the default number of virtual
+   * nodes.
+   *
+   * @param nodes
+   *  The nodes to assign keys to.
+   */
+  public ConsistentHashRing(List<T> nodes) {
+    this(nodes, DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Constructs a new <code>ConsistentHashRing</code> instance.
+   *
+   * @param nodes
+   *  The nodes to assign keys to.
+   * @param virtualNodes
+   *  The number of points each node has on the ring. More points spread keys more evenly.
+   */
+  public ConsistentHashRing(List<T> nodes, int virtualNodes) {
+
+    if (nodes.isEmpty() || virtualNodes <= 0) {
+      throw new IllegalArgumentException("nodes must not be empty and virtualNodes positive.");
+    }
+    this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+
+    long[] sorted = new long[nodes.size() * virtualNodes];
+    int[] unsortedOwners = new int[sorted.length];
+    for (int node = 0, i = 0; node < nodes.size(); node++) {
+      for (int replica = 0; replica < virtualNodes; replica++, i++) {
+        sorted[i] = hash("shard-" + node + "#" + replica);
+        unsortedOwners[i] = node;
+      }
+    }
+
+    // Sort the points, carrying their owners along
+    Integer[] order = new Integer[sorted.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingLong(point -> sorted[point]));
+    this.points = new long[sorted.length];
+    this.owners = new int[sorted.length];
+    for (int i = 0; i < order.length; i++) {
+      points[i] = sorted[order[i]];
+      owners[i] = unsortedOwners[order[i]];
+    }
+  }
+
+  /**
+   * Returns the node a key is assigned to.
+   *
+   * @param key
+   *  The key, identified by its string form.
+   */
+  public T get(Object key) {
+    return nodes.get(indexOf(key));
+  }
+
+  /**
+   * Returns the position in the node list of the node a key is assigned to.
+   *
+   * @param key
+   *  The key, identified by its string form.
+   */
+  public int indexOf(Object key) {
+
+    if (nodes.size() == 1) {
+      return 0;
+    }
+    int pos = Arrays.binarySearch(points, hash(String.valueOf(key)));
+    if (pos < 0) {
+      pos = -pos - 1;
+    }
+    return owners[pos == points.length ? 0 : pos];
+  }
+
+  /**
+   * Provides access to the nodes, in the order they were given.
+   */
+  public List<T> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * A 64 bit FNV-1a hash of the UTF-8 bytes of a string, with a final mix so that keys differing
+   * only in their last characters still land far apart on the ring.
+   */
+  static long hash(String value) {
+
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+}
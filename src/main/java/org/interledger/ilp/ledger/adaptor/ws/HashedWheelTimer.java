@@ -0,0 +1,235 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timer for large numbers of short-lived timeouts, most of which are cancelled before they
+ * expire.
+ *
+ * <p>Timeouts are placed in a ring of buckets, each covering one tick. A single worker thread
+ * advances through the ring once per tick and only looks at the timeouts in the current bucket, so
+ * scheduling and cancelling are constant time regardless of how many timeouts are pending.
+ * Timeouts fire up to one tick late, which is fine for request deadlines.
+ *
+ * <p>Tasks run on the worker thread and must not block. A timer is meant to be shared, see
+ * {@link #getShared()}, rather than created per connection.
+ */
+public class HashedWheelTimer implements Closeable {
+
+  public static final long DEFAULT_TICK_MILLIS = 100;
+  public static final int DEFAULT_WHEEL_SIZE = 512;
+
+  private static final Logger log = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+  private final long tickNanos;
+  private final Queue<Timeout>[] wheel;
+  private final int mask;
+  private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final Thread worker;
+
+  private volatile boolean closed;
+  private long startNanos;
+
+  /**
+   * Constructs a new <code>HashedWheelTimer</code> instance with the default tick and wheel size.
+   *
+   * @param threadName
+   *  The name of the worker thread.
+   */
+  public HashedWheelTimer(String threadName) {
+    this(threadName, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+  }
+
+  /**
+   * Constructs a new <code>HashedWheelTimer</code> instance. The worker thread is a daemon thread
+   * started when the first timeout is scheduled.
+   *
+   * @param threadName
+   *  The name of the worker thread.
+   * @param tick
+   *  The resolution of the timer.
+   * @param unit
+   *  The unit of the tick.
+   * @param wheelSize
+   *  The number of buckets, rounded up to a power of two.
+   */
+  @SuppressWarnings("unchecked")
+  public HashedWheelTimer(String threadName, long tick, TimeUnit unit, int wheelSize) {
+
+    if (tick <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("tick and wheelSize must be positive.");
+    }
+    this.tickNanos = unit.toNanos(tick);
+    int size = Integer.highestOneBit(wheelSize);
+    if (size < wheelSize) {
+      size <<= 1;
+    }
+    this.wheel = new Queue[size];
+    for (int i = 0; i < size; i++) {
+      wheel[i] = new ArrayDeque<>();
+    }
+    this.mask = size - 1;
+    this.worker = new Thread(this::run, threadName);
+    this.worker.setDaemon(true);
+  }
+
+  /**
+   * Provides access to a timer shared by all channels, whose daemon worker thread lives as long as
+   * the JVM.
+   */
+  public static HashedWheelTimer getShared() {
+    return SharedHolder.TIMER;
+  }
+
+  /**
+   * Schedules a task to run once after a delay.
+   *
+   * @param task
+   *  The task to run on the worker thread.
+   * @param delay
+   *  The delay after which to run the task.
+   * @param unit
+   *  The unit of the delay.
+   * @return
+   *  A handle to cancel the task.
+   */
+  public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+
+    if (closed) {
+      throw new IllegalStateException("Timer is closed.");
+    }
+    if (started.compareAndSet(false, true)) {
+      startNanos = System.nanoTime();
+      worker.start();
+    }
+
+    Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+    added.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Stops the worker thread. Pending timeouts are dropped without running.
+   */
+  @Override
+  public void close() {
+
+    closed = true;
+    worker.interrupt();
+  }
+
+  private void run() {
+
+    long tick = 0;
+    while (!closed) {
+      long deadline = startNanos + (tick + 1) * tickNanos;
+      long sleepNanos = deadline - System.nanoTime();
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException ie) {
+          if (closed) {
+            return;
+          }
+        }
+        continue;
+      }
+
+      transferAdded(tick);
+      expire(wheel[(int) (tick & mask)], deadline);
+      tick++;
+    }
+  }
+
+  /**
+   * Moves newly scheduled timeouts into their buckets. Only the worker thread touches the wheel.
+   */
+  private void transferAdded(long currentTick) {
+
+    for (Timeout timeout = added.poll(); timeout != null; timeout = added.poll()) {
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long ticks = Math.max(currentTick, (timeout.deadline - startNanos) / tickNanos);
+      timeout.remainingRounds = (ticks - currentTick) / wheel.length;
+      wheel[(int) (ticks & mask)].add(timeout);
+    }
+  }
+
+  private void expire(Queue<Timeout> bucket, long deadline) {
+
+    for (Iterator<Timeout> it = bucket.iterator(); it.hasNext(); ) {
+      Timeout timeout = it.next();
+      if (timeout.isCancelled()) {
+        it.remove();
+      } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+        it.remove();
+        timeout.fire();
+      } else {
+        timeout.remainingRounds--;
+      }
+    }
+  }
+
+  /**
+   * A handle on a scheduled task.
+   */
+  public static final class Timeout {
+
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicBoolean done = new AtomicBoolean();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private long remainingRounds;
+
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the task if it has not run yet.
+     *
+     * @return
+     *  True if the task will not run because of this call.
+     */
+    public boolean cancel() {
+      if (done.compareAndSet(false, true)) {
+        cancelled.set(true);
+        return true;
+      }
+      return false;
+    }
+
+    /** Indicates whether the task was cancelled. */
+    public boolean isCancelled() {
+      return cancelled.get();
+    }
+
+    private void fire() {
+      if (done.compareAndSet(false, true)) {
+        try {
+          task.run();
+        } catch (RuntimeException re) {
+          log.warn("Timeout task failed.", re);
+        }
+      }
+    }
+  }
+
+  private static final class SharedHolder {
+
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer("JsonRpcTimeoutTimer");
+  }
+
+}
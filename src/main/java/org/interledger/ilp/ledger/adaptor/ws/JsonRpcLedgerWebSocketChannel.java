@@ -7,6 +7,8 @@ import org.interledger.ilp.client.events.ClientLedgerTransferEvent;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerMessage;
 import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransfer;
 import org.interledger.ilp.ledger.adaptor.rest.service.RestLedgerJsonConverter;
+import org.interledger.ilp.ledger.adaptor.rest.state.TransferState;
+import org.interledger.ilp.ledger.adaptor.rest.state.TransferStateIndex;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcConnectNotification;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcMessage;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcNotification;
@@ -15,10 +17,14 @@ import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcRequestMessageNotifi
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcRequestTransferNotificationParams;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcResponseMessage;
 import org.interledger.ilp.ledger.events.LedgerEventHandler;
+import org.interledger.ilp.ledger.model.LedgerTransfer;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
  * A custom JSON-RPC based web socket channel for communicating with the REST ledger.
@@ -27,7 +33,15 @@ public class JsonRpcLedgerWebSocketChannel extends JsonRpcWebSocketChannel {
 
   private LedgerEventHandler eventHandler;
   private RestLedgerJsonConverter converter;
-  private boolean isConnected = false; // Not thread safe?
+  private TransferStateIndex transferStateIndex;
+  private PartitionedEventDispatcher eventDispatcher;
+  private Supplier<String> authTokenSupplier;
+  private Runnable reconnectListener;
+  private volatile String authToken;
+  private volatile boolean refreshToken = false;
+  private final AccountSubscriptionManager subscriptionManager =
+      new AccountSubscriptionManager(this);
+  private volatile boolean raiseConnectEvent = true;
 
   /**
    * Constructs a new <code>JsonRpcLedgerWebSocketChannel</code> instance.
@@ -45,19 +59,109 @@ public class JsonRpcLedgerWebSocketChannel extends JsonRpcWebSocketChannel {
   public JsonRpcLedgerWebSocketChannel(URI uri, String authToken, LedgerEventHandler eventHandler,
       RestLedgerJsonConverter converter) {
     
-    super(URI.create(uri.toString() + "?token=" + authToken), true, 5);
+    super(uri, true, 0);
+    this.authToken = authToken;
     this.eventHandler = eventHandler;
     this.converter = converter;
+    addStateListener((channel, previous, current) -> {
+      if (current == ConnectionState.OPEN && raiseConnectEvent) {
+        eventHandler.handleLedgerEvent(new ClientLedgerConnectEvent(this));
+      }
+    });
+  }
+
+  /**
+   * Sets the source of fresh authorization tokens, used when reconnecting in case the token the
+   * channel was created with has expired.
+   *
+   * @param authTokenSupplier
+   *  Retrieves a new token from the ledger, or null to always reuse the current token.
+   */
+  public void setAuthTokenSupplier(Supplier<String> authTokenSupplier) {
+    this.authTokenSupplier = authTokenSupplier;
+  }
+
+  /**
+   * Sets a task to run after the channel has reconnected and resubscribed its accounts, typically
+   * to recover transfers whose notifications were missed while disconnected. The task runs on the
+   * common pool.
+   *
+   * @param reconnectListener
+   *  The task to run, or null for none.
+   */
+  public void setReconnectListener(Runnable reconnectListener) {
+    this.reconnectListener = reconnectListener;
   }
 
   @Override
-  public void onConnectionEstablished(WebSocketSession session) {
-    
-    super.onConnectionEstablished(session);
-    if (!isConnected) {
-      eventHandler.handleLedgerEvent(new ClientLedgerConnectEvent(this));
+  protected URI getConnectUri() {
+
+    if (refreshToken && authTokenSupplier != null) {
+      try {
+        authToken = authTokenSupplier.get();
+      } catch (RuntimeException re) {
+        log.warn("Unable to refresh auth token, reusing the current one: {}", re.getMessage());
+      }
     }
-    isConnected = true;
+    // The token the channel was created with is used for the first attempt only
+    refreshToken = true;
+    return URI.create(super.getConnectUri().toString() + "?token=" + authToken);
+  }
+
+  @Override
+  protected void onReconnected() {
+
+    log.info("Reconnected to ledger, resubscribing {} accounts",
+        subscriptionManager.getAccounts().size());
+    subscriptionManager.resubscribe().whenCompleteAsync((ok, ex) -> {
+      if (ex != null) {
+        log.error("Unable to resubscribe after reconnecting.", ex);
+      }
+      if (reconnectListener != null) {
+        reconnectListener.run();
+      }
+    });
+  }
+
+  /**
+   * Sets whether the event handler is notified when the channel first connects. Only one of the
+   * shards of a {@link ShardedLedgerWebSocketChannel} should raise the event, so the handler sees
+   * the adaptor connect once.
+   *
+   * @param raiseConnectEvent
+   *  True to raise the connect event, which is the default.
+   */
+  public void setRaiseConnectEvent(boolean raiseConnectEvent) {
+    this.raiseConnectEvent = raiseConnectEvent;
+  }
+
+  /**
+   * Sets the index to keep updated with the state of every transfer notified by the ledger.
+   *
+   * @param transferStateIndex
+   *  The index to update, or null to not track transfer state.
+   */
+  public void setTransferStateIndex(TransferStateIndex transferStateIndex) {
+    this.transferStateIndex = transferStateIndex;
+  }
+
+  /**
+   * Provides access to the manager of the accounts this channel receives notifications for.
+   */
+  public AccountSubscriptionManager getSubscriptionManager() {
+    return subscriptionManager;
+  }
+
+  /**
+   * Sets the dispatcher used to convert and handle notifications off the web socket read thread.
+   * Notifications are partitioned by the account sending the transfer or message, so that events
+   * for one account are handled in order.
+   *
+   * @param eventDispatcher
+   *  The dispatcher to use, or null to handle notifications on the read thread.
+   */
+  public void setEventDispatcher(PartitionedEventDispatcher eventDispatcher) {
+    this.eventDispatcher = eventDispatcher;
   }
 
   @Override
@@ -99,8 +203,8 @@ public class JsonRpcLedgerWebSocketChannel extends JsonRpcWebSocketChannel {
 
   @Override
   public void onConnectionClosed(CloseStatus status) {
-    
-    isConnected = false;
+
+    subscriptionManager.onDisconnected();
     super.onConnectionClosed(status);
   }
 
@@ -114,8 +218,30 @@ public class JsonRpcLedgerWebSocketChannel extends JsonRpcWebSocketChannel {
       JsonRpcRequestTransferNotificationParams transferNotification) {
     
     JsonLedgerTransfer transfer = transferNotification.getTransfer();
-    eventHandler.handleLedgerEvent(
-        new ClientLedgerTransferEvent(this, converter.convertJsonLedgerTransfer(transfer)));
+    dispatch(getPartitionKey(transfer), () -> handleLedgerTransfer(transfer));
+  }
+
+  /**
+   * Converts a transfer received from the ledger and notifies the event handler.
+   *
+   * @param transfer
+   *  The transfer sent by the ledger.
+   */
+  private void handleLedgerTransfer(JsonLedgerTransfer transfer) {
+
+    LedgerTransfer ledgerTransfer = converter.convertJsonLedgerTransfer(transfer);
+
+    if (transferStateIndex != null && transfer.getState() != null) {
+      try {
+        transferStateIndex.update(ledgerTransfer.getId(),
+            TransferState.fromName(transfer.getState()), transfer.getExpiresAt());
+      } catch (IllegalArgumentException iae) {
+        log.warn("Ignoring transfer {} with unknown state {}", ledgerTransfer.getId(),
+            transfer.getState());
+      }
+    }
+
+    eventHandler.handleLedgerEvent(new ClientLedgerTransferEvent(this, ledgerTransfer));
   }
 
   /**
@@ -129,8 +255,69 @@ public class JsonRpcLedgerWebSocketChannel extends JsonRpcWebSocketChannel {
     JsonLedgerMessage msg = ((JsonRpcRequestMessageNotificationParams) messageNotification)
         .getMessage();
     
-    eventHandler.handleLedgerEvent(
-        new ClientLedgerMessageEvent(this, converter.convertJsonLedgerMessage(msg)));
+    dispatch(getPartitionKey(msg), () -> eventHandler.handleLedgerEvent(
+        new ClientLedgerMessageEvent(this, converter.convertJsonLedgerMessage(msg))));
+  }
+
+  /**
+   * Returns the key a transfer notification is dispatched by, which is the URI of its debit
+   * account, so that it stays in order with the messages and other transfers of that account.
+   *
+   * @param transfer
+   *  The transfer sent by the ledger.
+   * @return
+   *  The URI of the first debit account, or null if the transfer has no debits.
+   */
+  public static URI getPartitionKey(JsonLedgerTransfer transfer) {
+
+    return transfer.getDebits() == null || transfer.getDebits().isEmpty()
+        ? null : transfer.getDebits().get(0).getAccount();
+  }
+
+  /**
+   * Returns the key a message notification is dispatched by, which is the URI of the sending
+   * account, as for the transfers debited from that account.
+   *
+   * @param message
+   *  The message sent by the ledger.
+   * @return
+   *  The URI of the account the message is from.
+   */
+  public static URI getPartitionKey(JsonLedgerMessage message) {
+    return message.getFrom();
+  }
+
+  /**
+   * Hands the handling of a notification to the event dispatcher, if there is one. If the
+   * dispatcher rejects it, the connection is failed so that the adaptor can reconnect rather than
+   * silently miss the event.
+   *
+   * @param account
+   *  The URI of the account the notification is partitioned by.
+   * @param task
+   *  The handling of the notification.
+   */
+  private void dispatch(URI account, Runnable task) {
+
+    if (eventDispatcher == null) {
+      task.run();
+      return;
+    }
+
+    try {
+      eventDispatcher.dispatch(account, task);
+    } catch (RejectedExecutionException ree) {
+      eventHandler.handleLedgerEvent(new ClientLedgerErrorEvent(this, ree));
+      WebSocketSession current = getSession();
+      if (current == null) {
+        return;
+      }
+      try {
+        current.close(CloseStatus.SERVICE_OVERLOAD);
+      } catch (IOException ioe) {
+        log.warn("Error closing overloaded web socket session.", ioe);
+      }
+    }
   }
 
   /**
@@ -0,0 +1,66 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcRequestMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of JSON-RPC requests sent to the ledger together, as a single JSON array in one web socket
+ * frame. See http://www.jsonrpc.org/specification#batch
+ *
+ * <p>The ledger may answer the requests of a batch in any order, in one or several frames, and
+ * each response is passed to the handler of its request.
+ */
+public class JsonRpcRequestBatch {
+
+  private final List<JsonRpcRequestMessage> requests = new ArrayList<>();
+  private final List<JsonRpcResponseHandler> handlers = new ArrayList<>();
+
+  /**
+   * Adds a request to the batch.
+   *
+   * @param request
+   *  The request to send. Requests with a handler must have an ID.
+   * @param responseHandler
+   *  A handler to invoke when a response is received, or null for a notification.
+   */
+  public void add(JsonRpcRequestMessage request, JsonRpcResponseHandler responseHandler) {
+
+    if (request.getId() == null && responseHandler != null) {
+      throw new IllegalArgumentException(
+          "No request ID provided. ResponseHandler can only be used when a request ID is present.");
+    }
+    requests.add(request);
+    handlers.add(responseHandler);
+  }
+
+  /** The number of requests in the batch. */
+  public int size() {
+    return requests.size();
+  }
+
+  /** Indicates whether the batch has no requests. */
+  public boolean isEmpty() {
+    return requests.isEmpty();
+  }
+
+  /**
+   * Provides access to the requests, in the order they were added.
+   */
+  public List<JsonRpcRequestMessage> getRequests() {
+    return Collections.unmodifiableList(requests);
+  }
+
+  /**
+   * Returns the handler of the request at the given position.
+   *
+   * @param index
+   *  The position of the request in the batch.
+   */
+  JsonRpcResponseHandler getHandler(int index) {
+    return handlers.get(index);
+  }
+
+}
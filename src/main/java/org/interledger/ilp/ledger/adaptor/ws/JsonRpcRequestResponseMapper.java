@@ -1,77 +1,177 @@
 package org.interledger.ilp.ledger.adaptor.ws;
 
+import org.interledger.ilp.ledger.adaptor.ws.HashedWheelTimer.Timeout;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcError;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcRequestMessage;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcResponseMessage;
 
-import java.util.Date;
+import java.io.Closeable;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * A timed cache used to link request and response messages exchanged with the REST ledger. Entries
- * older than a given expiry time are evicted.
- * 
- * <p>NOTE: timed eviction copied from:
- * http://stackoverflow.com/questions/3802370/java-time-based-map-cache-with-expiring-keys
- * 
- * <p>TODO: should we rather use a Guava cache instead of rolling our own?
+ * Links request and response messages exchanged with the REST ledger.
+ *
+ * <p>Each pending request has a single entry holding the request, its response handler and its
+ * timeout. Timeouts are scheduled on a shared {@link HashedWheelTimer}, so each request can have
+ * its own deadline and no thread is created per mapper. When a request times out, or the mapper is
+ * closed, its handler receives an error response. The timer thread only removes an expired request;
+ * its handler is called on a separate executor so that a slow handler cannot delay other timeouts.
+ *
+ * <p>The number of requests awaiting a response is capped, so a ledger that stops responding
+ * cannot make the table grow without bound.
  */
-public class JsonRpcRequestResponseMapper {
-
-  public static final int DEFAULT_EVICION_TIME_MILLIS = 1000;
- 
-  private Map<String, JsonRpcRequestMessage> requestMap =
-      new ConcurrentHashMap<String, JsonRpcRequestMessage>();
-  
-  private Map<String, JsonRpcResponseHandler> handlerMap =
-      new ConcurrentHashMap<String, JsonRpcResponseHandler>();
-  
-  private Map<String, Long> timeMap = new ConcurrentHashMap<String, Long>();
-  
-  private long expiryInMillis; 
+public class JsonRpcRequestResponseMapper implements Closeable {
+
+  public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+  public static final int DEFAULT_MAX_PENDING_REQUESTS = 1024;
+
+  // Implementation defined server errors, see http://www.jsonrpc.org/specification#error_object
+  public static final int TIMEOUT_ERROR_CODE = -32001;
+  public static final int CLOSED_ERROR_CODE = -32002;
+
+  private final Map<String, PendingRequest> pending = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final AtomicLong nextId = new AtomicLong();
+  private final HashedWheelTimer timer;
+  private final Executor handlerExecutor;
+  private final long defaultTimeoutMillis;
+  private final int maxPendingRequests;
+
+  private volatile boolean closed = false;
 
   /**
-   * Constructs a new <code>JsonRpcRequestResponseMapper</code> instance.
+   * Constructs a new <code>JsonRpcRequestResponseMapper</code> instance with the default timeout
+   * and limit on pending requests.
    */
   public JsonRpcRequestResponseMapper() {
-    this(DEFAULT_EVICION_TIME_MILLIS);
+    this(DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Constructs a new <code>JsonRpcRequestResponseMapper</code> instance.
+   *
+   * @param defaultTimeoutMillis
+   *  The amount of time to wait for a response to a request stored without a timeout of its own.
+   */
+  public JsonRpcRequestResponseMapper(long defaultTimeoutMillis) {
+    this(defaultTimeoutMillis, DEFAULT_MAX_PENDING_REQUESTS, HashedWheelTimer.getShared());
   }
 
   /**
    * Constructs a new <code>JsonRpcRequestResponseMapper</code> instance.
-   * 
-   * @param expiryInMillis
-   *  The amount of time a request can stay in the map for linking to a response before being
-   *      evicted.
+   *
+   * @param defaultTimeoutMillis
+   *  The amount of time to wait for a response to a request stored without a timeout of its own.
+   * @param maxPendingRequests
+   *  The maximum number of requests that can await a response at the same time.
+   * @param timer
+   *  The timer used to expire requests.
+   */
+  public JsonRpcRequestResponseMapper(long defaultTimeoutMillis, int maxPendingRequests,
+      HashedWheelTimer timer) {
+    this(defaultTimeoutMillis, maxPendingRequests, timer, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a new <code>JsonRpcRequestResponseMapper</code> instance.
+   *
+   * @param defaultTimeoutMillis
+   *  The amount of time to wait for a response to a request stored without a timeout of its own.
+   * @param maxPendingRequests
+   *  The maximum number of requests that can await a response at the same time.
+   * @param timer
+   *  The timer used to expire requests.
+   * @param handlerExecutor
+   *  The executor on which the handlers of expired requests are called.
    */
-  public JsonRpcRequestResponseMapper(long expiryInMillis) {
-    this.expiryInMillis = expiryInMillis;
-    initialize();
+  public JsonRpcRequestResponseMapper(long defaultTimeoutMillis, int maxPendingRequests,
+      HashedWheelTimer timer, Executor handlerExecutor) {
+
+    if (defaultTimeoutMillis <= 0 || maxPendingRequests <= 0) {
+      throw new IllegalArgumentException(
+          "defaultTimeoutMillis and maxPendingRequests must be positive.");
+    }
+    this.defaultTimeoutMillis = defaultTimeoutMillis;
+    this.maxPendingRequests = maxPendingRequests;
+    this.timer = timer;
+    this.handlerExecutor = handlerExecutor;
   }
 
   /**
-   * Stores a request message in the map for future linking.
+   * Generates an identifier for a new request, unique within this mapper.
+   */
+  public String nextRequestId() {
+    return Long.toString(nextId.incrementAndGet());
+  }
+
+  /**
+   * Stores a request message for future linking, with the default timeout.
    *
    * @param request
    *  The request to store.
    * @param responseHandler
    *  A handler to use when a response is received for the request.
    * @return
-   *  The previous handler associated with the request, or no previous handler exists.
+   *  The previous handler associated with the request, or null if no previous handler exists.
+   * @throws IllegalStateException
+   *  If the mapper is closed or too many requests are awaiting a response.
    */
   public JsonRpcResponseHandler storeRequest(JsonRpcRequestMessage request,
       JsonRpcResponseHandler responseHandler) {
+    return storeRequest(request, responseHandler, defaultTimeoutMillis);
+  }
+
+  /**
+   * Stores a request message for future linking.
+   *
+   * @param request
+   *  The request to store.
+   * @param responseHandler
+   *  A handler to use when a response is received for the request.
+   * @param timeoutMillis
+   *  The amount of time to wait for a response before the handler receives a timeout error.
+   * @return
+   *  The previous handler associated with the request, or null if no previous handler exists.
+   * @throws IllegalStateException
+   *  If the mapper is closed or too many requests are awaiting a response.
+   */
+  public JsonRpcResponseHandler storeRequest(JsonRpcRequestMessage request,
+      JsonRpcResponseHandler responseHandler, long timeoutMillis) {
 
     String id = request.getId();
     if (id == null) {
       throw new IllegalArgumentException("Request must have an ID.");
     }
+    if (closed) {
+      throw new IllegalStateException("Request mapper is closed.");
+    }
+    if (pendingCount.incrementAndGet() > maxPendingRequests) {
+      pendingCount.decrementAndGet();
+      throw new IllegalStateException(
+          "Too many requests awaiting a response. limit: " + maxPendingRequests);
+    }
+
+    PendingRequest entry = new PendingRequest(request, responseHandler);
+    PendingRequest previous = pending.put(id, entry);
+    if (previous != null) {
+      previous.cancelTimeout();
+      pendingCount.decrementAndGet();
+    }
+    entry.timeout = timer.newTimeout(() -> expire(id, entry), timeoutMillis,
+        TimeUnit.MILLISECONDS);
 
-    Date date = new Date();
-    timeMap.put(id, date.getTime());
-    requestMap.put(id, request);
-    return handlerMap.put(id, responseHandler);
+    if (closed && pending.remove(id, entry)) {
+      // Raced with close()
+      entry.cancelTimeout();
+      fail(id, entry, CLOSED_ERROR_CODE, "Request mapper closed before a response was received.");
+    }
+    return previous == null ? null : previous.handler;
   }
 
   /**
@@ -82,76 +182,122 @@ public class JsonRpcRequestResponseMapper {
    *  The response to handle.
    */
   public void handleResponse(JsonRpcResponseMessage response) {
-    
+
     String id = response.getId();
     if (id == null) {
       throw new IllegalArgumentException("Response must have an ID.");
     }
 
-    JsonRpcRequestMessage request = requestMap.get(id);
-    JsonRpcResponseHandler responseHandler = handlerMap.get(id);
-    remove(id);
+    PendingRequest entry = pending.remove(id);
+    if (entry == null) {
+      return;
+    }
+    entry.cancelTimeout();
+    pendingCount.decrementAndGet();
 
-    if (responseHandler != null) {
-      responseHandler.handleResponse(request, response);
+    if (entry.handler != null) {
+      entry.handler.handleResponse(entry.request, response);
     }
   }
 
-  /** Performs the initialization required. */
-  protected void initialize() {
-    new CleanerThread("JsonRpcResponseTimeoutMonitor").start();
+  /**
+   * Forgets a stored request without calling its handler, for example when it could not be sent.
+   *
+   * @param id
+   *  The identifier of the request.
+   * @return
+   *  True if the request was awaiting a response.
+   */
+  public boolean cancelRequest(String id) {
+
+    PendingRequest entry = pending.remove(id);
+    if (entry == null) {
+      return false;
+    }
+    entry.cancelTimeout();
+    pendingCount.decrementAndGet();
+    return true;
   }
 
   /**
-   * Removes entries from the internally managed maps for a given id.
+   * Indicates whether a response was generated by the mapper because the request timed out or the
+   * mapper was closed, rather than received from the ledger.
    *
-   * @param id
-   *  A unique request identifier
+   * @param response
+   *  The response passed to a handler.
    */
-  private void remove(String id) {
-    timeMap.remove(id);
-    handlerMap.remove(id);
-    requestMap.remove(id);
+  public static boolean isLocalError(JsonRpcResponseMessage response) {
+    return response instanceof LocalErrorResponse;
+  }
+
+  /** The number of requests awaiting a response. */
+  public int getPendingCount() {
+    return pendingCount.get();
   }
 
   /**
-   * The cleaner thread performs the cache eviction for the internal maps used by the mapper.
+   * Stops accepting requests and completes all pending requests with an error response.
    */
-  class CleanerThread extends Thread {
-    
-    public CleanerThread(String string) {
-      super(string);
-    }
+  @Override
+  public void close() {
 
-    @Override
-    public void run() {
-      while (true) {
-        cleanMap();
-        try {
-          Thread.sleep(expiryInMillis / 2);
-        } catch (InterruptedException ie) {
-          throw new RuntimeException(ie);
-        }
+    closed = true;
+    for (Map.Entry<String, PendingRequest> mapEntry : pending.entrySet()) {
+      if (pending.remove(mapEntry.getKey(), mapEntry.getValue())) {
+        mapEntry.getValue().cancelTimeout();
+        fail(mapEntry.getKey(), mapEntry.getValue(), CLOSED_ERROR_CODE,
+            "Request mapper closed before a response was received.");
       }
     }
+  }
+
+  private void expire(String id, PendingRequest entry) {
+
+    if (pending.remove(id, entry)) {
+      handlerExecutor.execute(() -> fail(id, entry, TIMEOUT_ERROR_CODE,
+          "Timed out waiting for response to request. id: " + id));
+    }
+  }
+
+  private void fail(String id, PendingRequest entry, int code, String message) {
+
+    pendingCount.decrementAndGet();
+    if (entry.handler != null) {
+      JsonRpcResponseMessage response = new LocalErrorResponse();
+      JsonRpcError error = new JsonRpcError();
+      error.setCode(code);
+      error.setMessage(message);
+      response.setId(id);
+      response.setError(error);
+      entry.handler.handleResponse(entry.request, response);
+    }
+  }
+
+  /**
+   * An error response generated by the mapper, told apart from errors sent by the ledger since the
+   * ledger may use the same codes.
+   */
+  private static final class LocalErrorResponse extends JsonRpcResponseMessage {}
+
+  /**
+   * A request awaiting a response.
+   */
+  private static final class PendingRequest {
+
+    private final JsonRpcRequestMessage request;
+    private final JsonRpcResponseHandler handler;
+    private volatile Timeout timeout;
+
+    private PendingRequest(JsonRpcRequestMessage request, JsonRpcResponseHandler handler) {
+      this.request = request;
+      this.handler = handler;
+    }
 
-    private void cleanMap() {
-      long currentTime = new Date().getTime();
-      for (String id : timeMap.keySet()) {
-        if (currentTime > (timeMap.get(id) + expiryInMillis)) {
-          JsonRpcRequestMessage request = requestMap.get(id);
-          JsonRpcResponseHandler responseHandler = handlerMap.get(id);
-          if (responseHandler != null) {
-            JsonRpcResponseMessage response = new JsonRpcResponseMessage();
-            JsonRpcError error = new JsonRpcError();
-            error.setCode(0); // TODO Use correct code
-            error.setMessage("Timed out waiting for response to request. id: " + id);
-            response.setId(id);
-            response.setError(error);
-            responseHandler.handleResponse(request, response);
-          }
-          remove(id);
-        }
+    private void cancelTimeout() {
+      // The timeout is set just after the entry is stored, so may not be there yet
+      Timeout current = timeout;
+      if (current != null) {
+        current.cancel();
       }
     }
   }
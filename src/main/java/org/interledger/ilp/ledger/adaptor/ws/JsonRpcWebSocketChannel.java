@@ -1,22 +1,37 @@
 package org.interledger.ilp.ledger.adaptor.ws;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.AdaptorStateException;
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.JsonRpcTimeoutException;
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.JsonRpcTransportException;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonCodec;
+import org.interledger.ilp.ledger.adaptor.rest.retry.RetryPolicy;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcMessage;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcRequestMessage;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcResponseMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.client.WebSocketConnectionManager;
+import org.springframework.web.socket.client.WebSocketClient;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Base class representing a JSON-RPC web socket channel.
@@ -25,16 +40,36 @@ public abstract class JsonRpcWebSocketChannel implements Closeable {
 
   protected final Logger log = LoggerFactory.getLogger(this.getClass());
 
-  private ObjectMapper jsonObjectMapper;
-  private WebSocketSession session;
+  public static final long DEFAULT_RECONNECT_BASE_DELAY_MILLIS = 500;
+  public static final long DEFAULT_RECONNECT_MAX_DELAY_MILLIS = 30_000;
+  public static final long DEFAULT_HEARTBEAT_INTERVAL_MILLIS = 15_000;
+  public static final int DEFAULT_MAX_MISSED_PONGS = 2;
+
+  private volatile WebSocketSession session;
+  private volatile WebSocketSendQueue sendQueue;
+  private volatile Heartbeat heartbeat;
   private JsonRpcWebSocketHandler handler;
-  private WebSocketConnectionManager connectionManager;
+  private WebSocketClient client;
+  private URI uri;
   private JsonRpcRequestResponseMapper responseMapper;
+  private RetryPolicy reconnectPolicy;
 
-  private boolean isClosing = false;
+  private final AtomicReference<ConnectionState> state =
+      new AtomicReference<>(ConnectionState.CLOSED);
+  private final List<ConnectionStateListener> stateListeners = new CopyOnWriteArrayList<>();
+  private volatile CompletableFuture<Void> connected = new CompletableFuture<>();
+  private volatile long connectStartNanos = 0;
+  private volatile Duration connectTime;
+  private volatile boolean isClosing = false;
+  private volatile boolean hasConnected = false;
   private boolean autoReconnect;
+  private int sendBufferSizeLimit = WebSocketSendQueue.DEFAULT_BUFFER_SIZE_LIMIT;
+  private long sendTimeLimitMillis = WebSocketSendQueue.DEFAULT_SEND_TIME_LIMIT_MILLIS;
+  private long heartbeatIntervalMillis = DEFAULT_HEARTBEAT_INTERVAL_MILLIS;
+  private int maxMissedPongs = DEFAULT_MAX_MISSED_PONGS;
   private int maxConnectAttempts;
-  private int connectAttempts = 0;
+  private final AtomicInteger connectAttempts = new AtomicInteger();
+  private final LatencyHistogram roundTripTimes = new LatencyHistogram();
 
   /**
    * Constructs a new <code>JsonRpcWebSocketChannel</code> instance.
@@ -44,53 +79,203 @@ public abstract class JsonRpcWebSocketChannel implements Closeable {
    * @param autoReconnect
    *  Indicates if the channel should automatically attempt to reconnect if disconnected.
    * @param maxConnectAttempts
-   *  The maximum number of attempts to try when establishing a connection.
+   *  The maximum number of consecutive attempts to try when establishing a connection, or 0 to
+   *      keep trying until the channel is closed.
    */
   public JsonRpcWebSocketChannel(URI uri, boolean autoReconnect, int maxConnectAttempts) {
     
-    this.jsonObjectMapper = new ObjectMapper();
-    this.handler = new JsonRpcWebSocketHandler(this, jsonObjectMapper);
-    
-    this.connectionManager = new WebSocketConnectionManager(new StandardWebSocketClient(), handler,
-        uri.toString());
+    this.handler = new JsonRpcWebSocketHandler(this, JsonCodec.getMapper());
+    this.client = new StandardWebSocketClient();
+    this.uri = uri;
     
-    this.responseMapper = new JsonRpcRequestResponseMapper(5 * 60 * 1000);
+    this.responseMapper = new JsonRpcRequestResponseMapper();
     this.autoReconnect = autoReconnect;
     this.maxConnectAttempts = maxConnectAttempts;
+
+    this.reconnectPolicy = new RetryPolicy();
+    this.reconnectPolicy.setBaseDelayMillis(DEFAULT_RECONNECT_BASE_DELAY_MILLIS);
+    this.reconnectPolicy.setMaxDelayMillis(DEFAULT_RECONNECT_MAX_DELAY_MILLIS);
   }
 
   /**
-   * Attempts to open (connect) the websocket channel.
+   * Attempts to open (connect) the websocket channel. The connection is established
+   * asynchronously, and retried with backoff if it fails and the channel reconnects automatically.
    */
   public void open() {
-    
-    connectAttempts++;
-    connectionManager.start();
-    // TODO Wait for connected event - this is a synchronous operation?
+    connectAsync();
+  }
+
+  /**
+   * Opens the channel, if it is not open already, and returns a future that completes once the
+   * first session is established. The future fails if the channel gives up connecting or is
+   * closed first.
+   */
+  public CompletableFuture<Void> connectAsync() {
+
+    if (!isClosing && moveTo(ConnectionState.CLOSED, ConnectionState.CONNECTING)) {
+      if (connected.isCompletedExceptionally()) {
+        // Opening again after giving up
+        connected = new CompletableFuture<>();
+        connectAttempts.set(0);
+      }
+      connect();
+    }
+    return connected;
   }
 
   @Override
   public void close() throws IOException {
-    
+
+    moveTo(ConnectionState.CLOSING);
     isClosing = true;
-    session.close();
-    connectionManager.stop();
+    try {
+      stopHeartbeat();
+      responseMapper.close();
+      connected.completeExceptionally(
+          new AdaptorStateException("Websocket channel closed before connecting."));
+      WebSocketSession current = session;
+      if (current != null) {
+        current.close();
+      }
+    } finally {
+      moveTo(ConnectionState.CLOSED);
+    }
   }
 
   /** Indicates whether the channel is able to send data. */
   public boolean canSend() {
     
-    return session.isOpen();
+    WebSocketSession current = session;
+    return current != null && current.isOpen();
   }
 
-  /** Indicates whether the channel is open or not.*/
+  /**
+   * Indicates whether the channel is open or not. An open channel may be waiting to connect or
+   * reconnect; use {@link #canSend()} to know whether it is connected.
+   */
   public boolean isOpen() {
-    
-    return connectionManager.isRunning();
+    return state.get().isActive();
+  }
+
+  /** The current state of the channel's connection. */
+  public ConnectionState getState() {
+    return state.get();
+  }
+
+  /**
+   * How long the last connection took to establish, from opening the channel or losing the
+   * previous connection, or null if the channel has not connected yet.
+   */
+  public Duration getConnectTime() {
+    return connectTime;
+  }
+
+  /**
+   * Adds a listener to notify when the connection state changes.
+   *
+   * @param listener
+   *  The listener to add.
+   */
+  public void addStateListener(ConnectionStateListener listener) {
+    stateListeners.add(listener);
+  }
+
+  /**
+   * Removes a listener added with {@link #addStateListener(ConnectionStateListener)}.
+   *
+   * @param listener
+   *  The listener to remove.
+   */
+  public void removeStateListener(ConnectionStateListener listener) {
+    stateListeners.remove(listener);
+  }
+
+  /**
+   * Sets the client used to establish connections, for example to configure its executor or
+   * SSL context. The channel uses a {@link StandardWebSocketClient} by default.
+   *
+   * @param client
+   *  The client to use from the next connection attempt.
+   */
+  public void setClient(WebSocketClient client) {
+    this.client = client;
+  }
+
+  /**
+   * Sets the backoff between reconnection attempts. The delay before each attempt is drawn at
+   * random up to an exponentially growing bound, so that many clients disconnected by a ledger
+   * restart do not all reconnect at the same time.
+   *
+   * @param reconnectPolicy
+   *  The policy whose base and maximum delays are used.
+   */
+  public void setReconnectPolicy(RetryPolicy reconnectPolicy) {
+    this.reconnectPolicy = reconnectPolicy;
+  }
+
+  /**
+   * Sets the limits on messages waiting to be sent, applied from the next connection.
+   *
+   * @param bufferSizeLimit
+   *  The maximum number of characters queued for sending. Sends beyond it fail.
+   * @param sendTimeLimit
+   *  The time a single send may take before the connection is considered stalled and closed.
+   */
+  public void setSendLimits(int bufferSizeLimit, Duration sendTimeLimit) {
+    this.sendBufferSizeLimit = bufferSizeLimit;
+    this.sendTimeLimitMillis = sendTimeLimit.toMillis();
+  }
+
+  /**
+   * Sets how often the connection is checked with a ping, applied from the next connection. A
+   * connection that misses several pongs in a row is treated as dead and replaced, without waiting
+   * for TCP to notice.
+   *
+   * @param interval
+   *  The time between pings, or zero to disable the heartbeat.
+   * @param maxMissedPongs
+   *  The number of consecutive pings left unanswered after which the connection is dead.
+   */
+  public void setHeartbeat(Duration interval, int maxMissedPongs) {
+
+    if (interval.isNegative() || maxMissedPongs <= 0) {
+      throw new IllegalArgumentException(
+          "interval must not be negative and maxMissedPongs positive.");
+    }
+    this.heartbeatIntervalMillis = interval.toMillis();
+    this.maxMissedPongs = maxMissedPongs;
+  }
+
+  /**
+   * Provides access to the round trip times of the heartbeat pings, which measure the latency of
+   * the ledger's web socket across all connections of this channel.
+   */
+  public LatencyHistogram getRoundTripTimes() {
+    return roundTripTimes;
+  }
+
+  /**
+   * Returns the URI to connect to. Subclasses can override this to change the URI between
+   * connection attempts, for example to use a fresh authorization token.
+   */
+  protected URI getConnectUri() {
+    return uri;
+  }
+
+  /** The number of requests sent over this channel that are awaiting a response. */
+  public int getPendingRequestCount() {
+    return responseMapper.getPendingCount();
+  }
+
+  /**
+   * Generates an identifier for a new request sent over this channel.
+   */
+  public String nextRequestId() {
+    return responseMapper.nextRequestId();
   }
 
   /**
-   * Sends a JSON-RPC request over the channel.
+   * Sends a JSON-RPC request over the channel, waiting for a response for the default time.
    *
    * @param request
    *  The JSON-RPC request to send.
@@ -99,25 +284,210 @@ public abstract class JsonRpcWebSocketChannel implements Closeable {
    */
   public void sendRpcRequest(JsonRpcRequestMessage request,
       JsonRpcResponseHandler responseHandler) {
+    sendRpcRequest(request, responseHandler, null);
+  }
+
+  /**
+   * Sends a JSON-RPC request over the channel. This method is safe to call from several threads;
+   * the request is queued and sent by whichever thread is currently writing to the connection.
+   *
+   * @param request
+   *  The JSON-RPC request to send.
+   * @param responseHandler
+   *  A handler to invoke when a response is recieved, or with an error response if none is
+   *      received in time.
+   * @param timeout
+   *  How long to wait for a response, or null to wait for the default time.
+   * @throws AdaptorStateException
+   *  If the channel is not connected, too much data is waiting to be sent, too many requests are
+   *      awaiting a response or the request cannot be serialized.
+   */
+  public void sendRpcRequest(JsonRpcRequestMessage request,
+      JsonRpcResponseHandler responseHandler, Duration timeout) {
 
     if (request.getId() == null && responseHandler != null) {
       throw new IllegalArgumentException(
           "No request ID provided. ResponseHandler can only be used when a request ID is present.");
     }
 
-    if (request.getId() != null) {
-      responseMapper.storeRequest(request, responseHandler);
+    WebSocketSendQueue queue = sendQueue;
+    if (queue == null) {
+      throw new AdaptorStateException("Websocket is disconnected. No session available to send.");
+    }
+
+    String id = request.getId();
+    if (id != null) {
+      storeRequest(request, responseHandler, timeout);
     }
 
     try {
-      String rpcPayload =
-          jsonObjectMapper.writeValueAsString(request).replaceAll("\r", "").replaceAll("\n", "");
-      log.trace("Sending Json Rpc message: " + rpcPayload);
-      session.sendMessage(new TextMessage(rpcPayload));
+      // The compact writer escapes line breaks inside strings, so the payload is a single line
+      String rpcPayload = JsonCodec.toJson(request);
+      log.trace("Sending Json Rpc message: {}", rpcPayload);
+      queue.send(new TextMessage(rpcPayload));
     } catch (JsonProcessingException jpe) {
-      log.error("Error serializing Json Rpc message.", jpe);
-    } catch (IOException ioe) {
-      throw new UncheckedIOException("Error sending message via websocket.", ioe);
+      if (id != null) {
+        responseMapper.cancelRequest(id);
+      }
+      throw new AdaptorStateException("Error serializing Json Rpc message.", jpe);
+    } catch (RuntimeException re) {
+      if (id != null) {
+        responseMapper.cancelRequest(id);
+      }
+      throw re;
+    }
+  }
+
+  /**
+   * Sends a JSON-RPC request over the channel and returns a future for its response, waiting for
+   * the default time.
+   *
+   * @param request
+   *  The JSON-RPC request to send. An ID is assigned if it has none.
+   * @see #call(JsonRpcRequestMessage, Duration)
+   */
+  public CompletableFuture<JsonRpcResponseMessage> call(JsonRpcRequestMessage request) {
+    return call(request, null);
+  }
+
+  /**
+   * Sends a JSON-RPC request over the channel and returns a future for its response.
+   *
+   * <p>The future completes with the response received from the ledger, including error
+   * responses. It completes exceptionally with a {@link JsonRpcTimeoutException} if no response
+   * arrives before the deadline, and with a {@link JsonRpcTransportException} if the request could
+   * not be sent or the channel was closed while waiting. Cancelling the future forgets the request,
+   * so a late response is dropped.
+   *
+   * @param request
+   *  The JSON-RPC request to send. An ID is assigned if it has none.
+   * @param deadline
+   *  How long to wait for a response, or null to wait for the default time.
+   */
+  public CompletableFuture<JsonRpcResponseMessage> call(JsonRpcRequestMessage request,
+      Duration deadline) {
+
+    if (request.getId() == null) {
+      request.setId(nextRequestId());
+    }
+    final String id = request.getId();
+    CompletableFuture<JsonRpcResponseMessage> future = new CompletableFuture<>();
+
+    try {
+      sendRpcRequest(request, (sent, response) -> {
+        if (!JsonRpcRequestResponseMapper.isLocalError(response)) {
+          future.complete(response);
+        } else if (response.getError().getCode()
+            == JsonRpcRequestResponseMapper.TIMEOUT_ERROR_CODE) {
+          future.completeExceptionally(
+              new JsonRpcTimeoutException(id, response.getError().getMessage()));
+        } else {
+          future.completeExceptionally(
+              new JsonRpcTransportException(id, response.getError().getMessage()));
+        }
+      }, deadline);
+    } catch (RuntimeException re) {
+      future.completeExceptionally(
+          new JsonRpcTransportException(id, "Unable to send request. id: " + id, re));
+      return future;
+    }
+
+    future.whenComplete((response, error) -> {
+      if (future.isCancelled()) {
+        responseMapper.cancelRequest(id);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Sends several JSON-RPC requests as one batch, in a single web socket frame, waiting for
+   * responses for the default time. A batch of one request is sent as a plain request.
+   *
+   * @param batch
+   *  The requests to send, with their response handlers.
+   * @throws AdaptorStateException
+   *  If the channel is not connected, too much data is waiting to be sent, too many requests are
+   *      awaiting a response or the batch cannot be serialized.
+   */
+  public void sendRpcBatch(JsonRpcRequestBatch batch) {
+    sendRpcBatch(batch, null);
+  }
+
+  /**
+   * Sends several JSON-RPC requests as one batch, in a single web socket frame. A batch of one
+   * request is sent as a plain request.
+   *
+   * @param batch
+   *  The requests to send, with their response handlers.
+   * @param timeout
+   *  How long to wait for each response, or null to wait for the default time.
+   * @throws AdaptorStateException
+   *  If the channel is not connected, too much data is waiting to be sent, too many requests are
+   *      awaiting a response or the batch cannot be serialized.
+   */
+  public void sendRpcBatch(JsonRpcRequestBatch batch, Duration timeout) {
+
+    if (batch.isEmpty()) {
+      return;
+    }
+    if (batch.size() == 1) {
+      sendRpcRequest(batch.getRequests().get(0), batch.getHandler(0), timeout);
+      return;
+    }
+
+    WebSocketSendQueue queue = sendQueue;
+    if (queue == null) {
+      throw new AdaptorStateException("Websocket is disconnected. No session available to send.");
+    }
+
+    String rpcPayload;
+    try {
+      rpcPayload = JsonCodec.toJson(batch.getRequests());
+    } catch (JsonProcessingException jpe) {
+      throw new AdaptorStateException("Error serializing Json Rpc batch.", jpe);
+    }
+
+    List<JsonRpcRequestMessage> requests = batch.getRequests();
+    int stored = 0;
+    try {
+      for (; stored < requests.size(); stored++) {
+        JsonRpcRequestMessage request = requests.get(stored);
+        if (request.getId() == null) {
+          continue;
+        }
+        storeRequest(request, batch.getHandler(stored), timeout);
+      }
+
+      log.trace("Sending Json Rpc batch: {}", rpcPayload);
+      queue.send(new TextMessage(rpcPayload));
+    } catch (RuntimeException re) {
+      for (int i = 0; i < stored; i++) {
+        if (requests.get(i).getId() != null) {
+          responseMapper.cancelRequest(requests.get(i).getId());
+        }
+      }
+      throw re;
+    }
+  }
+
+  /**
+   * Stores a request with the response mapper so that its response is passed to the handler.
+   *
+   * @throws AdaptorStateException
+   *  If the channel is closed or too many requests are awaiting a response.
+   */
+  private void storeRequest(JsonRpcRequestMessage request, JsonRpcResponseHandler responseHandler,
+      Duration timeout) {
+
+    try {
+      if (timeout == null) {
+        responseMapper.storeRequest(request, responseHandler);
+      } else {
+        responseMapper.storeRequest(request, responseHandler, timeout.toMillis());
+      }
+    } catch (IllegalStateException ise) {
+      throw new AdaptorStateException("Unable to send request. " + ise.getMessage(), ise);
     }
   }
 
@@ -130,9 +500,42 @@ public abstract class JsonRpcWebSocketChannel implements Closeable {
   public void onConnectionEstablished(WebSocketSession session) {
     
     this.session = session;
-    this.connectAttempts = 0;
+    this.sendQueue = new WebSocketSendQueue(session, sendBufferSizeLimit, sendTimeLimitMillis);
+    this.connectAttempts.set(0);
+    startHeartbeat(session);
+
+    if (isClosing) {
+      // The channel was closed while the connection was being established
+      try {
+        session.close();
+      } catch (IOException ioe) {
+        log.warn("Error closing web socket session.", ioe);
+      }
+      return;
+    }
+
+    final long started = connectStartNanos;
+    moveTo(ConnectionState.OPEN);
+    if (started != 0) {
+      connectTime = Duration.ofNanos(System.nanoTime() - started);
+      connectStartNanos = 0;
+      log.info("Websocket connected in {} ms", connectTime.toMillis());
+    }
+    connected.complete(null);
+
+    boolean reconnected = hasConnected;
+    hasConnected = true;
+    if (reconnected) {
+      onReconnected();
+    }
   }
 
+  /**
+   * Subclasses can override this method to restore any state the server lost with the previous
+   * connection, such as subscriptions. It is called after every connection but the first.
+   */
+  protected void onReconnected() {}
+
   /**
    * Subclasses should implement this method to processes messages received from the web socket
    * channel.
@@ -150,6 +553,44 @@ public abstract class JsonRpcWebSocketChannel implements Closeable {
    */
   public abstract void onTransportError(Throwable exception);
 
+  /**
+   * Records the round trip time of a heartbeat ping when its pong is received.
+   *
+   * @param message
+   *  The pong received from the channel.
+   */
+  public void onPong(PongMessage message) {
+
+    Heartbeat current = heartbeat;
+    if (current != null) {
+      current.onPong(message.getPayload());
+    }
+  }
+
+  /**
+   * Called by the handler when a session is closed. Sessions already given up on as dead are
+   * ignored, since the channel has moved on to a new connection.
+   *
+   * @param closed
+   *  The session that was closed.
+   * @param status
+   *  The close status.
+   */
+  void onSessionClosed(WebSocketSession closed, CloseStatus status) {
+
+    synchronized (this) {
+      if (closed != session) {
+        log.debug("Ignoring close of a replaced session, status: {}", status);
+        return;
+      }
+      session = null;
+      sendQueue = null;
+    }
+    stopHeartbeat();
+    moveTo(autoReconnect && !isClosing ? ConnectionState.RECONNECTING : ConnectionState.CLOSED);
+    onConnectionClosed(status);
+  }
+
   /**
    * Performs any activities required when the underlying connection is closed. 
    *
@@ -158,16 +599,8 @@ public abstract class JsonRpcWebSocketChannel implements Closeable {
    */
   public void onConnectionClosed(CloseStatus status) {
 
-    if (autoReconnect && !isClosing && (connectAttempts < maxConnectAttempts)) {
-
-      // Reconnecting
-      log.debug(
-          "Attempting to reconnect. " + "Attempt " + connectAttempts + " of " + maxConnectAttempts);
-      if (!this.session.isOpen()) {
-        connectionManager.stop();
-      }
-
-      connectionManager.start();
+    if (autoReconnect && !isClosing) {
+      scheduleReconnect();
     }
   }
 
@@ -183,6 +616,234 @@ public abstract class JsonRpcWebSocketChannel implements Closeable {
     }
   }
 
+  /**
+   * Starts an asynchronous connection attempt.
+   */
+  private void connect() {
+
+    connectAttempts.incrementAndGet();
+    try {
+      client.doHandshake(handler, new WebSocketHttpHeaders(), getConnectUri())
+          .addCallback(established -> { }, this::onConnectFailure);
+    } catch (RuntimeException re) {
+      onConnectFailure(re);
+    }
+  }
+
+  private void onConnectFailure(Throwable exception) {
+
+    log.warn("Unable to connect web socket: {}", exception.getMessage());
+    if (autoReconnect && !isClosing) {
+      scheduleReconnect();
+    } else {
+      giveUp("Unable to connect web socket: " + exception.getMessage());
+    }
+  }
+
+  /**
+   * Schedules the next connection attempt after a random, exponentially growing delay. The delay
+   * is waited on the shared timer, and the attempt itself runs on the common pool since refreshing
+   * the connect URI may block.
+   */
+  private void scheduleReconnect() {
+
+    int attempt = connectAttempts.get();
+    if (maxConnectAttempts > 0 && attempt >= maxConnectAttempts) {
+      log.error("Giving up reconnecting after {} attempts.", attempt);
+      giveUp("Unable to connect web socket after " + attempt + " attempts.");
+      return;
+    }
+
+    long delay = reconnectPolicy.getBackoffMillis(attempt + 1);
+    log.debug("Attempting to reconnect in {} ms. Attempt {}", delay, attempt + 1);
+    HashedWheelTimer.getShared().newTimeout(() -> ForkJoinPool.commonPool().execute(() -> {
+      if (!isClosing) {
+        connect();
+      }
+    }), delay, TimeUnit.MILLISECONDS);
+  }
+
+  private void giveUp(String reason) {
+
+    moveTo(ConnectionState.CLOSED);
+    connected.completeExceptionally(new AdaptorStateException(reason));
+  }
+
+  /**
+   * Moves the channel to a new state from whatever state it is in. Once the channel is closing it
+   * can only move on to closed, and once closed for good it stays closed.
+   *
+   * @param next
+   *  The state to move to.
+   * @return
+   *  True if the state changed.
+   */
+  private boolean moveTo(ConnectionState next) {
+
+    while (true) {
+      ConnectionState previous = state.get();
+      if (previous == next || previous == ConnectionState.CLOSING && next != ConnectionState.CLOSED
+          || previous == ConnectionState.CLOSED && isClosing) {
+        return false;
+      }
+      if (moveTo(previous, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Moves the channel from one state to another if it is still in the first, and notifies the
+   * listeners.
+   *
+   * @param previous
+   *  The state the channel is expected to be in.
+   * @param next
+   *  The state to move to.
+   * @return
+   *  True if the state changed.
+   */
+  private boolean moveTo(ConnectionState previous, ConnectionState next) {
+
+    if (!state.compareAndSet(previous, next)) {
+      return false;
+    }
+    if (next == ConnectionState.CONNECTING || next == ConnectionState.RECONNECTING) {
+      connectStartNanos = System.nanoTime();
+    }
+    log.debug("Websocket state changed from {} to {}", previous, next);
+    for (ConnectionStateListener listener : stateListeners) {
+      try {
+        listener.onStateChange(this, previous, next);
+      } catch (RuntimeException re) {
+        log.error("Error in connection state listener.", re);
+      }
+    }
+    return true;
+  }
+
+  private void startHeartbeat(WebSocketSession heartbeatSession) {
+
+    stopHeartbeat();
+    if (heartbeatIntervalMillis > 0 && !isClosing) {
+      Heartbeat started = new Heartbeat(heartbeatSession);
+      heartbeat = started;
+      started.schedule();
+    }
+  }
+
+  private void stopHeartbeat() {
+
+    Heartbeat current = heartbeat;
+    heartbeat = null;
+    if (current != null) {
+      current.stop();
+    }
+  }
+
+  /**
+   * Gives up on a connection that stopped answering pings. The channel behaves as if the ledger
+   * had closed it, so a reconnect starts at once, and the session is closed in the background
+   * since closing a half-open connection can block.
+   */
+  private void onConnectionDead(WebSocketSession dead, int missedPongs) {
+
+    synchronized (this) {
+      if (dead != session) {
+        return;
+      }
+      session = null;
+      sendQueue = null;
+    }
+    log.warn("No pong received for {} pings, treating the web socket connection as dead.",
+        missedPongs);
+    stopHeartbeat();
+    moveTo(autoReconnect && !isClosing ? ConnectionState.RECONNECTING : ConnectionState.CLOSED);
+
+    ForkJoinPool.commonPool().execute(() -> {
+      try {
+        dead.close(CloseStatus.SESSION_NOT_RELIABLE);
+      } catch (IOException ioe) {
+        log.debug("Error closing dead web socket session.", ioe);
+      }
+    });
+    onConnectionClosed(CloseStatus.SESSION_NOT_RELIABLE);
+  }
+
+  /**
+   * Sends pings on one session and checks that they are answered. Ticks run on the shared timer
+   * and the pings are sent from the common pool, since a send may block.
+   */
+  private final class Heartbeat {
+
+    private final WebSocketSession heartbeatSession;
+    private final AtomicInteger missedPongs = new AtomicInteger();
+    private volatile long pingSentNanos = 0;
+    private volatile HashedWheelTimer.Timeout timeout;
+    private volatile boolean stopped = false;
+
+    private Heartbeat(WebSocketSession heartbeatSession) {
+      this.heartbeatSession = heartbeatSession;
+    }
+
+    private void schedule() {
+      if (!stopped) {
+        timeout = HashedWheelTimer.getShared().newTimeout(
+            () -> ForkJoinPool.commonPool().execute(this::tick), heartbeatIntervalMillis,
+            TimeUnit.MILLISECONDS);
+      }
+    }
+
+    private void stop() {
+      stopped = true;
+      HashedWheelTimer.Timeout current = timeout;
+      if (current != null) {
+        current.cancel();
+      }
+    }
+
+    private void tick() {
+
+      if (stopped) {
+        return;
+      }
+      if (pingSentNanos != 0) {
+        int missed = missedPongs.incrementAndGet();
+        if (missed >= maxMissedPongs) {
+          onConnectionDead(heartbeatSession, missed);
+          return;
+        }
+      }
+
+      long sentNanos = System.nanoTime();
+      pingSentNanos = sentNanos;
+      WebSocketSendQueue queue = sendQueue;
+      try {
+        if (queue != null) {
+          ByteBuffer payload = ByteBuffer.allocate(Long.BYTES);
+          payload.putLong(0, sentNanos);
+          queue.send(new PingMessage(payload));
+        }
+      } catch (RuntimeException re) {
+        log.debug("Unable to send heartbeat ping: {}", re.getMessage());
+      }
+      schedule();
+    }
+
+    private void onPong(ByteBuffer payload) {
+
+      long sentNanos = pingSentNanos;
+      if (sentNanos == 0 || payload.remaining() < Long.BYTES
+          || payload.getLong(payload.position()) != sentNanos) {
+        // Unsolicited, or the answer to a ping already counted as missed
+        return;
+      }
+      roundTripTimes.record(System.nanoTime() - sentNanos, TimeUnit.NANOSECONDS);
+      pingSentNanos = 0;
+      missedPongs.set(0);
+    }
+  }
+
   /** Provides access to the underlying web socket handler. */ 
   protected JsonRpcWebSocketHandler getHandler() {
     return this.handler;
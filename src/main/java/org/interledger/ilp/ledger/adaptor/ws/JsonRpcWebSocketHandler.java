@@ -2,10 +2,12 @@ package org.interledger.ilp.ledger.adaptor.ws;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
@@ -17,7 +19,8 @@ public class JsonRpcWebSocketHandler extends TextWebSocketHandler {
 
   private static final Logger log = LoggerFactory.getLogger(JsonRpcWebSocketHandler.class);
 
-  private final ObjectMapper mapper;
+  private final ObjectReader reader;
+  private final ObjectReader batchReader;
   private JsonRpcWebSocketChannel channel;
 
   /**
@@ -29,7 +32,8 @@ public class JsonRpcWebSocketHandler extends TextWebSocketHandler {
    */
   public JsonRpcWebSocketHandler(JsonRpcWebSocketChannel channel, ObjectMapper mapper) {
     
-    this.mapper = mapper;
+    this.reader = mapper.readerFor(JsonRpcMessage.class);
+    this.batchReader = mapper.readerFor(JsonRpcMessage[].class);
     this.channel = channel;
   }
 
@@ -44,16 +48,49 @@ public class JsonRpcWebSocketHandler extends TextWebSocketHandler {
   @Override
   protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
     
-    log.trace("Json Rpc message received: " + message.getPayload());
+    String payload = message.getPayload();
+    log.trace("Json Rpc message received: {}", payload);
     try {
-      JsonRpcMessage rpcMessage = mapper.readValue(message.getPayload(), JsonRpcMessage.class);
-      this.channel.onMessage(rpcMessage);
+      if (isBatch(payload)) {
+        // The whole array is bound before any element is dispatched, so a malformed element
+        // rejects the batch; the elements are then dispatched in order, as if sent on their own
+        JsonRpcMessage[] batch = batchReader.readValue(payload);
+        for (JsonRpcMessage rpcMessage : batch) {
+          if (rpcMessage != null) {
+            this.channel.onMessage(rpcMessage);
+          }
+        }
+      } else {
+        JsonRpcMessage rpcMessage = reader.readValue(payload);
+        this.channel.onMessage(rpcMessage);
+      }
     } catch (JsonProcessingException jpe) {
       log.error("Invalid json-rpc message received:\n {}", message.getPayload(), jpe);
       throw jpe;
     }
   }
 
+  /**
+   * Indicates whether a payload is a JSON-RPC batch, that is a JSON array rather than an object.
+   */
+  private static boolean isBatch(String payload) {
+
+    for (int i = 0; i < payload.length(); i++) {
+      char ch = payload.charAt(i);
+      if (!Character.isWhitespace(ch)) {
+        return ch == '[';
+      }
+    }
+    return false;
+  }
+
+  @Override
+  protected void handlePongMessage(WebSocketSession session, PongMessage message)
+      throws Exception {
+
+    this.channel.onPong(message);
+  }
+
   @Override
   public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
     
@@ -66,7 +103,7 @@ public class JsonRpcWebSocketHandler extends TextWebSocketHandler {
   public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
     
     log.debug("Closing session id {}, close status is {} ", session.getId(), status);
-    this.channel.onConnectionClosed(status);
+    this.channel.onSessionClosed(session, status);
     super.afterConnectionClosed(session, status);
   }
 
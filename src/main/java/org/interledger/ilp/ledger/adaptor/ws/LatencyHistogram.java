@@ -0,0 +1,118 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size histogram of latencies with a relative precision of 12.5%.
+ *
+ * <p>Values are recorded in microseconds into buckets that double in width every eight buckets,
+ * so the whole range from one microsecond to hours fits in a few hundred counters. Recording is
+ * lock-free and allocation-free, which makes the histogram cheap enough to keep running at all
+ * times. Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a latency.
+   *
+   * @param duration
+   *  The latency.
+   * @param unit
+   *  The unit of the latency.
+   */
+  public void record(long duration, TimeUnit unit) {
+
+    long micros = Math.max(0, unit.toMicros(duration));
+    counts.incrementAndGet(indexOf(micros));
+    count.increment();
+    sum.add(micros);
+
+    long current = max.get();
+    while (micros > current && !max.compareAndSet(current, micros)) {
+      current = max.get();
+    }
+  }
+
+  /** The number of latencies recorded. */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /** The mean of the recorded latencies in microseconds, or 0 if none were recorded. */
+  public long getMeanMicros() {
+
+    long recorded = count.sum();
+    return recorded == 0 ? 0 : sum.sum() / recorded;
+  }
+
+  /** The largest recorded latency in microseconds. */
+  public long getMaxMicros() {
+    return max.get();
+  }
+
+  /**
+   * Returns a percentile of the recorded latencies.
+   *
+   * @param percentile
+   *  The percentile, between 0 and 100.
+   * @return
+   *  The latency in microseconds below which the given percentage of the recorded latencies fall,
+   *      or 0 if none were recorded.
+   */
+  public long getPercentileMicros(double percentile) {
+
+    long total = count.sum();
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(total * Math.min(100, percentile) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return Math.min(upperBoundOf(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  static int indexOf(long micros) {
+
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  static long upperBoundOf(int index) {
+
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram[count=" + getCount() + ", mean=" + getMeanMicros() + "us, p50="
+        + getPercentileMicros(50) + "us, p99=" + getPercentileMicros(99) + "us, max="
+        + getMaxMicros() + "us]";
+  }
+
+}
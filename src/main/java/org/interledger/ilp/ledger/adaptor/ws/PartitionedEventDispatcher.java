@@ -0,0 +1,218 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs notification handling off the web socket read thread, on a fixed set of worker threads.
+ *
+ * <p>Each task is dispatched with a partition key, typically an account. Tasks with the same key
+ * always run on the same worker, in the order they were dispatched, while tasks for different keys
+ * run in parallel. Each worker has a bounded queue, and an {@link OverflowPolicy} decides what
+ * happens when a slow handler lets it fill up.
+ */
+public class PartitionedEventDispatcher implements Closeable {
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  private static final Logger log = LoggerFactory.getLogger(PartitionedEventDispatcher.class);
+
+  /**
+   * What to do with a task when the queue of its partition is full.
+   */
+  public enum OverflowPolicy {
+
+    /** Wait for space in the queue, which applies back pressure to the web socket. */
+    BLOCK,
+
+    /** Discard the oldest queued task of the partition to make room. */
+    DROP_OLDEST,
+
+    /** Reject the task, so the caller can fail the connection and resynchronize. */
+    FAIL
+  }
+
+  private final BlockingQueue<Runnable>[] queues;
+  private final Thread[] workers;
+  private final OverflowPolicy overflowPolicy;
+  private final LongAdder dispatched = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  private volatile boolean closed = false;
+
+  /**
+   * Constructs a new <code>PartitionedEventDispatcher</code> instance with one partition per
+   * available processor, the default queue capacity and the {@link OverflowPolicy#BLOCK} policy.
+   */
+  public PartitionedEventDispatcher() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK);
+  }
+
+  /**
+   * Constructs a new <code>PartitionedEventDispatcher</code> instance. The worker threads are
+   * daemon threads, started immediately.
+   *
+   * @param partitions
+   *  The number of worker threads.
+   * @param queueCapacity
+   *  The maximum number of tasks queued for each worker.
+   * @param overflowPolicy
+   *  What to do with a task when the queue of its partition is full.
+   */
+  @SuppressWarnings("unchecked")
+  public PartitionedEventDispatcher(int partitions, int queueCapacity,
+      OverflowPolicy overflowPolicy) {
+
+    if (partitions <= 0 || queueCapacity <= 0) {
+      throw new IllegalArgumentException("partitions and queueCapacity must be positive.");
+    }
+    this.overflowPolicy = overflowPolicy;
+    this.queues = new BlockingQueue[partitions];
+    this.workers = new Thread[partitions];
+    for (int i = 0; i < partitions; i++) {
+      BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+      queues[i] = queue;
+      workers[i] = new Thread(() -> runWorker(queue), "LedgerEventDispatcher-" + i);
+      workers[i].setDaemon(true);
+      workers[i].start();
+    }
+  }
+
+  /**
+   * Queues a task on the partition of its key.
+   *
+   * @param key
+   *  The key whose tasks must run in order, or null for the first partition.
+   * @param task
+   *  The task to run.
+   * @throws RejectedExecutionException
+   *  If the dispatcher is closed, or the partition is full and the policy is
+   *      {@link OverflowPolicy#FAIL}, or the caller is interrupted while blocked.
+   */
+  public void dispatch(Object key, Runnable task) {
+
+    if (closed) {
+      throw new RejectedExecutionException("Dispatcher is closed.");
+    }
+
+    BlockingQueue<Runnable> queue = queues[partitionOf(key)];
+    switch (overflowPolicy) {
+      case BLOCK:
+        try {
+          queue.put(task);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new RejectedExecutionException("Interrupted while waiting to dispatch.", ie);
+        }
+        break;
+      case DROP_OLDEST:
+        while (!queue.offer(task)) {
+          if (queue.poll() != null) {
+            dropped.increment();
+          }
+        }
+        break;
+      default:
+        if (!queue.offer(task)) {
+          rejected.increment();
+          throw new RejectedExecutionException("Event queue is full. key: " + key);
+        }
+    }
+    dispatched.increment();
+  }
+
+  /** The number of partitions, and so of worker threads. */
+  public int getPartitionCount() {
+    return queues.length;
+  }
+
+  /** The number of tasks waiting in all partitions. */
+  public int getQueueDepth() {
+
+    int depth = 0;
+    for (BlockingQueue<Runnable> queue : queues) {
+      depth += queue.size();
+    }
+    return depth;
+  }
+
+  /**
+   * The number of tasks waiting in one partition.
+   *
+   * @param partition
+   *  The index of the partition.
+   */
+  public int getQueueDepth(int partition) {
+    return queues[partition].size();
+  }
+
+  /** The number of tasks accepted since the dispatcher was created. */
+  public long getDispatchedCount() {
+    return dispatched.sum();
+  }
+
+  /**
+   * The number of queued tasks discarded by the {@link OverflowPolicy#DROP_OLDEST} policy.
+   */
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  /**
+   * The number of tasks rejected by the {@link OverflowPolicy#FAIL} policy.
+   */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * Stops the worker threads. Tasks that are still queued are discarded.
+   */
+  @Override
+  public void close() {
+
+    closed = true;
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+  }
+
+  private int partitionOf(Object key) {
+
+    if (key == null) {
+      return 0;
+    }
+    int hash = key.hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), queues.length);
+  }
+
+  private void runWorker(BlockingQueue<Runnable> queue) {
+
+    while (!closed) {
+      Runnable task;
+      try {
+        task = queue.take();
+      } catch (InterruptedException ie) {
+        continue;
+      }
+      try {
+        task.run();
+      } catch (RuntimeException re) {
+        log.error("Error handling ledger event.", re);
+      }
+    }
+
+    if (!queue.isEmpty()) {
+      log.warn("Discarding {} queued ledger events.", queue.size());
+      queue.clear();
+    }
+  }
+
+}
@@ -0,0 +1,162 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Spreads the notifications of the accounts the adaptor watches over several web socket channels
+ * to the same ledger.
+ *
+ * <p>A single channel decodes every notification on its one read thread, which limits throughput
+ * to what one core can parse. Each shard is a separate {@link JsonRpcLedgerWebSocketChannel} with
+ * its own connection, read thread and subscription set, and accounts are assigned to shards with a
+ * {@link ConsistentHashRing}. All shards usually share one event handler and
+ * {@link PartitionedEventDispatcher}, so events for an account keep their order.
+ */
+public class ShardedLedgerWebSocketChannel implements Closeable {
+
+  private final ConsistentHashRing<JsonRpcLedgerWebSocketChannel> ring;
+
+  /**
+   * Constructs a new <code>ShardedLedgerWebSocketChannel</code> instance.
+   *
+   * @param shards
+   *  The channels to spread accounts over. Their order decides which accounts each one receives.
+   */
+  public ShardedLedgerWebSocketChannel(List<JsonRpcLedgerWebSocketChannel> shards) {
+    this.ring = new ConsistentHashRing<>(shards);
+  }
+
+  /**
+   * Constructs a new <code>ShardedLedgerWebSocketChannel</code> instance with a single shard.
+   *
+   * @param channel
+   *  The channel receiving the notifications of all accounts.
+   */
+  public ShardedLedgerWebSocketChannel(JsonRpcLedgerWebSocketChannel channel) {
+    this(Collections.singletonList(channel));
+  }
+
+  /**
+   * Opens every shard.
+   */
+  public void open() {
+
+    for (JsonRpcLedgerWebSocketChannel shard : getShards()) {
+      shard.open();
+    }
+  }
+
+  /**
+   * Opens every shard and returns a future that completes once all of them are connected.
+   */
+  public CompletableFuture<Void> connectAsync() {
+
+    List<JsonRpcLedgerWebSocketChannel> shards = getShards();
+    CompletableFuture<?>[] connected = new CompletableFuture<?>[shards.size()];
+    for (int i = 0; i < connected.length; i++) {
+      connected[i] = shards.get(i).connectAsync();
+    }
+    return CompletableFuture.allOf(connected);
+  }
+
+  /**
+   * Closes every shard, even if closing one of them fails.
+   */
+  @Override
+  public void close() throws IOException {
+
+    IOException failure = null;
+    for (JsonRpcLedgerWebSocketChannel shard : getShards()) {
+      try {
+        shard.close();
+      } catch (IOException ioe) {
+        failure = ioe;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /** Indicates whether all shards are open. */
+  public boolean isOpen() {
+
+    for (JsonRpcLedgerWebSocketChannel shard : getShards()) {
+      if (!shard.isOpen()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indicates whether the shard of an account is able to send data.
+   *
+   * @param account
+   *  The account, as represented by a URI on the REST ledger.
+   */
+  public boolean canSend(URI account) {
+    return getShard(account).canSend();
+  }
+
+  /**
+   * Provides access to the shards, in the order they were given.
+   */
+  public List<JsonRpcLedgerWebSocketChannel> getShards() {
+    return ring.getNodes();
+  }
+
+  /**
+   * Returns the shard that receives the notifications of an account.
+   *
+   * @param account
+   *  The account, as represented by a URI on the REST ledger.
+   */
+  public JsonRpcLedgerWebSocketChannel getShard(URI account) {
+    return ring.get(account);
+  }
+
+  /**
+   * Subscribes the shard of an account to its notifications.
+   *
+   * @param account
+   *  The account to receive notifications for, as represented by a URI on the REST ledger.
+   * @return
+   *  A future that completes when the ledger has acknowledged the subscription.
+   */
+  public CompletableFuture<Void> subscribe(URI account) {
+    return getShard(account).getSubscriptionManager().subscribe(account);
+  }
+
+  /**
+   * Stops receiving the notifications of an account.
+   *
+   * @param account
+   *  The account to stop receiving notifications for.
+   * @return
+   *  A future that completes when the ledger has acknowledged the change.
+   */
+  public CompletableFuture<Void> unsubscribe(URI account) {
+    return getShard(account).getSubscriptionManager().unsubscribe(account);
+  }
+
+  /**
+   * Returns the accounts that notifications should be received for, across all shards.
+   */
+  public Set<URI> getAccounts() {
+
+    Set<URI> accounts = new LinkedHashSet<>();
+    for (JsonRpcLedgerWebSocketChannel shard : getShards()) {
+      accounts.addAll(shard.getSubscriptionManager().getAccounts());
+    }
+    return accounts;
+  }
+
+}
@@ -0,0 +1,165 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.AdaptorStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serializes concurrent sends on a web socket session, which only supports one sender at a time.
+ *
+ * <p>Messages are added to a lock-free queue. The thread that finds the queue idle becomes its
+ * writer and sends messages until the queue is empty, while other threads return as soon as their
+ * message is queued. No thread is created and no sender ever waits on a lock.
+ *
+ * <p>The characters waiting to be sent are limited, so a slow or stalled connection cannot buffer
+ * without bound. If a single send takes longer than the time limit, the session is closed, which
+ * lets the channel reconnect rather than queue behind a dead connection.
+ */
+public class WebSocketSendQueue {
+
+  public static final int DEFAULT_BUFFER_SIZE_LIMIT = 1024 * 1024;
+  public static final long DEFAULT_SEND_TIME_LIMIT_MILLIS = 10_000;
+
+  private static final Logger log = LoggerFactory.getLogger(WebSocketSendQueue.class);
+
+  private final WebSocketSession session;
+  private final int bufferSizeLimit;
+  private final long sendTimeLimitNanos;
+
+  private final Queue<WebSocketMessage<?>> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wip = new AtomicInteger();
+  private final AtomicLong bufferSize = new AtomicLong();
+  private volatile long sendStartNanos = 0;
+
+  /**
+   * Constructs a new <code>WebSocketSendQueue</code> instance with the default limits.
+   *
+   * @param session
+   *  The session to send on.
+   */
+  public WebSocketSendQueue(WebSocketSession session) {
+    this(session, DEFAULT_BUFFER_SIZE_LIMIT, DEFAULT_SEND_TIME_LIMIT_MILLIS);
+  }
+
+  /**
+   * Constructs a new <code>WebSocketSendQueue</code> instance.
+   *
+   * @param session
+   *  The session to send on.
+   * @param bufferSizeLimit
+   *  The maximum number of characters waiting to be sent.
+   * @param sendTimeLimitMillis
+   *  The time a single send may take before the session is considered stalled and closed.
+   */
+  public WebSocketSendQueue(WebSocketSession session, int bufferSizeLimit,
+      long sendTimeLimitMillis) {
+
+    if (bufferSizeLimit <= 0 || sendTimeLimitMillis <= 0) {
+      throw new IllegalArgumentException(
+          "bufferSizeLimit and sendTimeLimitMillis must be positive.");
+    }
+    this.session = session;
+    this.bufferSizeLimit = bufferSizeLimit;
+    this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+  }
+
+  /**
+   * Queues a message and, if no other thread is sending, sends queued messages until there are
+   * none left.
+   *
+   * @param message
+   *  The message to send.
+   * @throws AdaptorStateException
+   *  If the session is closed, the send buffer is full or the session has stalled.
+   */
+  public void send(WebSocketMessage<?> message) {
+
+    if (!session.isOpen()) {
+      throw new AdaptorStateException("Websocket is disconnected. No session available to send.");
+    }
+    checkSendTime();
+
+    int size = message.getPayloadLength();
+    if (bufferSize.addAndGet(size) > bufferSizeLimit) {
+      bufferSize.addAndGet(-size);
+      throw new AdaptorStateException(
+          "Websocket send buffer is full. limit: " + bufferSizeLimit + " characters");
+    }
+    queue.add(message);
+
+    if (wip.getAndIncrement() == 0) {
+      drain();
+    }
+  }
+
+  /** The number of characters waiting to be sent. */
+  public long getBufferSize() {
+    return bufferSize.get();
+  }
+
+  /**
+   * Sends messages until the queue is empty and no other thread has queued one in the meantime.
+   * Only the thread that moved the work counter from zero runs this, so there is a single writer.
+   */
+  private void drain() {
+
+    int missed = 1;
+    while (true) {
+      for (WebSocketMessage<?> message = queue.poll(); message != null; message = queue.poll()) {
+        bufferSize.addAndGet(-message.getPayloadLength());
+        sendStartNanos = System.nanoTime();
+        try {
+          session.sendMessage(message);
+        } catch (IOException | RuntimeException ex) {
+          log.error("Error sending message via websocket, closing the session.", ex);
+          discardQueued();
+          closeSession(CloseStatus.SERVER_ERROR);
+        } finally {
+          sendStartNanos = 0;
+        }
+      }
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        return;
+      }
+    }
+  }
+
+  private void checkSendTime() {
+
+    long started = sendStartNanos;
+    if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+      log.error("Websocket send has not completed in {} ms, closing the session.",
+          TimeUnit.NANOSECONDS.toMillis(sendTimeLimitNanos));
+      closeSession(CloseStatus.SESSION_NOT_RELIABLE);
+      throw new AdaptorStateException("Websocket send time limit exceeded.");
+    }
+  }
+
+  private void discardQueued() {
+
+    for (WebSocketMessage<?> message = queue.poll(); message != null; message = queue.poll()) {
+      bufferSize.addAndGet(-message.getPayloadLength());
+    }
+  }
+
+  private void closeSession(CloseStatus status) {
+
+    try {
+      session.close(status);
+    } catch (IOException ioe) {
+      log.warn("Error closing web socket session.", ioe);
+    }
+  }
+
+}
@@ -2,16 +2,27 @@ package org.interledger.ilp.ledger.adaptor.ws.jsonrpc;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 import java.io.IOException;
 
 /**
  * A custom deserializer for JSON-RPC messages.
+ *
+ * <p>Messages are parsed in a single pass. The target class is picked as soon as the
+ * <code>method</code> property is read, or a <code>result</code> or <code>error</code> property
+ * shows the message is a response, and the rest of the message is bound directly from the stream.
+ * Only the properties that come before that point are copied into a {@link TokenBuffer}, which is
+ * usually just <code>jsonrpc</code> and <code>id</code>.
+ *
+ * <p>Notification params are bound to {@link JsonRpcRequestTransferNotificationParams} or
+ * {@link JsonRpcRequestMessageNotificationParams} by the type id in their <code>event</code>
+ * property, which the ledger sends first, so they are not buffered either.
  */
 public class JsonRpcMessageDeserializer extends StdDeserializer<JsonRpcMessage> {
 
@@ -21,37 +32,96 @@ public class JsonRpcMessageDeserializer extends StdDeserializer<JsonRpcMessage>
     super(JsonRpcMessage.class);
   }
 
+  /**
+   * Returns the class of request messages with the given method.
+   *
+   * @param method
+   *  The value of the <code>method</code> property.
+   * @return
+   *  The message class, or null if the method is not supported.
+   */
+  static Class<? extends JsonRpcMessage> getRequestType(String method) {
+
+    if (method == null) {
+      return null;
+    }
+    switch (method) {
+      case "connect":
+        return JsonRpcConnectNotification.class;
+      case "notify":
+        return JsonRpcNotification.class;
+      case "subscribe_account":
+        return JsonRpcSubscribeAccountRequest.class;
+      default:
+        return null;
+    }
+  }
+
   @Override
   public JsonRpcMessage deserialize(JsonParser jp, DeserializationContext ctxt)
       throws IOException, JsonProcessingException {
 
-    ObjectMapper mapper = (ObjectMapper) jp.getCodec();
-    ObjectNode root = (ObjectNode) mapper.readTree(jp);
-
-    Class<? extends JsonRpcMessage> rpcClass = null;
-    JsonNode methodNode = root.get("method");
+    if (!jp.isExpectedStartObjectToken()) {
+      return (JsonRpcMessage) ctxt.handleUnexpectedToken(JsonRpcMessage.class, jp);
+    }
 
-    if (methodNode == null || methodNode.isMissingNode() || !methodNode.isValueNode()) {
-      rpcClass = JsonRpcResponseMessage.class;
-    } else if (methodNode.isValueNode()) {
+    TokenBuffer buffer = new TokenBuffer(jp, ctxt);
+    buffer.writeStartObject();
 
-      String method = methodNode.asText();
+    for (JsonToken token = jp.nextToken(); token == JsonToken.FIELD_NAME; token = jp.nextToken()) {
+      String name = jp.getCurrentName();
+      jp.nextToken();
 
-      if ("connect".equals(method)) {
-        rpcClass = JsonRpcConnectNotification.class;
-      }
-      if ("notify".equals(method)) {
-        rpcClass = JsonRpcNotification.class;
+      if ("method".equals(name)) {
+        String method = jp.getValueAsString();
+        Class<? extends JsonRpcMessage> rpcClass = getRequestType(method);
+        if (rpcClass == null) {
+          // The method may be an object or an array, which must be skipped as a whole
+          jp.skipChildren();
+          skipRemainingFields(jp);
+          return null;
+        }
+        buffer.writeFieldName(name);
+        return readRemaining(buffer, jp, ctxt, rpcClass);
       }
-      if ("subscribe_account".equals(method)) {
-        rpcClass = JsonRpcSubscribeAccountRequest.class;
+
+      buffer.writeFieldName(name);
+      if ("result".equals(name) || "error".equals(name)) {
+        // Only responses have a result or an error, so the value can be read in place
+        return readRemaining(buffer, jp, ctxt, JsonRpcResponseMessage.class);
       }
+      buffer.copyCurrentStructure(jp);
     }
 
-    if (rpcClass == null) {
-      return null;
+    // No method, so this is a response without a result or an error
+    buffer.writeEndObject();
+    JsonParser bufferParser = buffer.asParser(jp);
+    bufferParser.nextToken();
+    return ctxt.readValue(bufferParser, JsonRpcResponseMessage.class);
+  }
+
+  /**
+   * Binds a message from the buffered properties followed by the rest of the stream. The last
+   * buffered token is a property name and the stream is positioned on its value.
+   */
+  private JsonRpcMessage readRemaining(TokenBuffer buffer, JsonParser jp,
+      DeserializationContext ctxt, Class<? extends JsonRpcMessage> rpcClass) throws IOException {
+
+    // Continue with the value the stream is positioned on once the buffer is exhausted
+    JsonParser parser = JsonParserSequence.createFlattened(true, buffer.asParser(jp), jp);
+    parser.nextToken();
+
+    JsonDeserializer<Object> deserializer =
+        ctxt.findRootValueDeserializer(ctxt.constructType(rpcClass));
+    return (JsonRpcMessage) deserializer.deserialize(parser, ctxt);
+  }
+
+  private void skipRemainingFields(JsonParser jp) throws IOException {
+
+    for (JsonToken token = jp.nextToken(); token == JsonToken.FIELD_NAME; token = jp.nextToken()) {
+      jp.nextToken();
+      jp.skipChildren();
     }
-    return mapper.readValue(root.traverse(), rpcClass);
   }
 
 }
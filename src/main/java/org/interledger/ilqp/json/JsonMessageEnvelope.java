@@ -4,8 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonCodec;
 import org.interledger.ilp.ledger.model.MessageData;
 import org.interledger.ilp.ledger.model.MessageEnvelope;
 
@@ -41,13 +40,7 @@ public abstract class JsonMessageEnvelope implements MessageEnvelope {
   
   @Override
   public String toString() {
-    
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(this);
-    } catch (JsonProcessingException jpe) {
-      throw new RuntimeException(jpe);
-    }
+    return JsonCodec.toPrettyJson(this);
   }
   
 }
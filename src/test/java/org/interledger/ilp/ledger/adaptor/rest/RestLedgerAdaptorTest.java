@@ -0,0 +1,73 @@
+package org.interledger.ilp.ledger.adaptor.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.interledger.ilp.ledger.adaptor.rest.transport.HttpTransport;
+import org.interledger.ilp.ledger.adaptor.ws.PartitionedEventDispatcher;
+import org.junit.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the lifecycle of the resources held by the {@link RestLedgerAdaptor} class.
+ */
+public class RestLedgerAdaptorTest {
+
+  private final RestLedgerAdaptor adaptor = new RestLedgerAdaptor(new RestTemplateBuilder(),
+      URI.create("http://ledger.example.com"));
+
+  @Test
+  public void shutdownLeavesSharedTransportAndDispatcherOpen() throws Exception {
+
+    MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{}"));
+    server.start();
+    HttpTransport sharedTransport = new HttpTransport();
+    PartitionedEventDispatcher sharedDispatcher = new PartitionedEventDispatcher();
+    try {
+      adaptor.setHttpTransport(sharedTransport);
+      adaptor.setEventDispatcher(sharedDispatcher);
+      adaptor.shutdown();
+
+      RestTemplate restTemplate = new RestTemplate(sharedTransport.getRequestFactory());
+      assertEquals(HttpStatus.OK,
+          restTemplate.getForEntity(server.url("/").uri(), String.class).getStatusCode());
+
+      CountDownLatch handled = new CountDownLatch(1);
+      sharedDispatcher.dispatch("alice", handled::countDown);
+      assertTrue(handled.await(5, TimeUnit.SECONDS));
+    } finally {
+      sharedDispatcher.close();
+      sharedTransport.close();
+      server.shutdown();
+    }
+  }
+
+  @Test
+  public void shutdownClosesTheDispatcherItCreated() {
+
+    PartitionedEventDispatcher created = adaptor.getEventDispatcher();
+    adaptor.shutdown();
+
+    try {
+      created.dispatch("alice", () -> { });
+      fail("Expected the dispatcher to be closed.");
+    } catch (RejectedExecutionException ree) {
+      // expected
+    }
+    assertNotSame(created, adaptor.getEventDispatcher());
+    adaptor.shutdown();
+  }
+
+}
@@ -0,0 +1,77 @@
+package org.interledger.ilp.ledger.adaptor.rest.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link ConcurrentLruCache} class.
+ */
+public class ConcurrentLruCacheTest {
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    ConcurrentLruCache<String, Integer> cache = new ConcurrentLruCache<>(2, 1);
+
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.get("a");
+    cache.put("c", 3);
+
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals(Integer.valueOf(3), cache.get("c"));
+    assertEquals(1, cache.getStats().getEvictionCount());
+  }
+
+  @Test
+  public void countsHitsAndMisses() {
+    ConcurrentLruCache<String, Integer> cache = new ConcurrentLruCache<>(16);
+    AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(Integer.valueOf(42), cache.computeIfAbsent("key", key -> {
+        loads.incrementAndGet();
+        return 42;
+      }));
+    }
+
+    CacheStats stats = cache.getStats();
+    assertEquals(1, loads.get());
+    assertEquals(9, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(1, stats.getSize());
+  }
+
+  @Test
+  public void countsInvalidValuesAsEvictions() {
+    ConcurrentLruCache<String, Integer> cache = new ConcurrentLruCache<>(16);
+
+    cache.put("expired", 1);
+    cache.put("valid", 2);
+    assertNull(cache.get("expired", value -> value > 1));
+    assertEquals(Integer.valueOf(2), cache.get("valid", value -> value > 1));
+
+    CacheStats stats = cache.getStats();
+    assertEquals(1, stats.getEvictionCount());
+    assertEquals(1, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(1, stats.getSize());
+  }
+
+  @Test
+  public void neverExceedsMaximumSize() {
+    ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(100);
+
+    for (int i = 0; i < 10000; i++) {
+      cache.put(i, i);
+    }
+
+    assertTrue(cache.size() <= 100);
+  }
+
+}
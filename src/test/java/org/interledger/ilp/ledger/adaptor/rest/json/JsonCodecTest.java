@@ -0,0 +1,75 @@
+package org.interledger.ilp.ledger.adaptor.rest.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcNotification;
+import org.interledger.ilqp.json.JsonErrorResponseEnvelope;
+import org.interledger.ilqp.json.JsonMessageEnvelope;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests the {@link JsonCodec} class.
+ */
+public class JsonCodecTest {
+
+  @Test
+  public void cachesReadersPerType() {
+    assertSame(JsonCodec.readerFor(JsonError.class), JsonCodec.readerFor(JsonError.class));
+  }
+
+  @Test(expected = UnrecognizedPropertyException.class)
+  public void rejectsUnknownProperties() throws Exception {
+    JsonCodec.fromJson("{\"id\":\"NotFoundError\",\"debug\":{}}", JsonError.class);
+  }
+
+  @Test
+  public void restMapperIgnoresUnknownProperties() throws Exception {
+    JsonError error = JsonCodec.getRestMapper()
+        .readValue("{\"id\":\"NotFoundError\",\"debug\":{}}", JsonError.class);
+
+    assertEquals("NotFoundError", error.getId());
+    assertNull(error.getMessage());
+  }
+
+  @Test
+  public void cachedReaderDecodesJsonRpcMessages() throws Exception {
+
+    String json = "{\"jsonrpc\":\"2.0\",\"id\":null,\"method\":\"notify\",\"params\":{"
+        + "\"event\":\"transfer.update\",\"resource\":{\"id\":\"adrian\",\"state\":\"executed\"}}}";
+
+    JsonRpcMessage message = JsonCodec.fromJson(json, JsonRpcMessage.class);
+    assertTrue(message instanceof JsonRpcNotification);
+  }
+
+  @Test
+  public void convertsMapsWithoutReserializing() throws Exception {
+
+    Map<String, Object> error = new HashMap<>();
+    error.put("id", "InvalidBodyError");
+    error.put("message", "Invalid method");
+
+    Map<String, Object> data = new HashMap<>();
+    data.put("id", "102be9cb-0dce-48fc-bce8-9fdcd3084f08");
+    data.put("method", "error");
+    data.put("data", error);
+
+    JsonErrorResponseEnvelope envelope =
+        JsonCodec.convertValue(data, JsonErrorResponseEnvelope.class);
+    assertEquals("InvalidBodyError", envelope.getData().getId());
+
+    // The pretty printed form used by toString() must read back as the same envelope
+    JsonMessageEnvelope parsed = JsonCodec.fromJson(envelope.toString(), JsonMessageEnvelope.class);
+    assertTrue(parsed instanceof JsonErrorResponseEnvelope);
+    assertFalse(JsonCodec.toJson(envelope).contains("\n"));
+  }
+
+}
@@ -0,0 +1,110 @@
+package org.interledger.ilp.ledger.adaptor.rest.money;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.javamoney.moneta.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+
+/**
+ * Tests the {@link FixedPointAmountCodec} class.
+ */
+public class FixedPointAmountCodecTest {
+
+  private static final CurrencyUnit ZAR = Monetary.getCurrency("ZAR");
+
+  private final FixedPointAmountCodec codec = new FixedPointAmountCodec(ZAR, 10, 2);
+  private final FixedPointAmountCodec wideCodec = new FixedPointAmountCodec(ZAR, 30, 2);
+
+  @Test
+  public void parsesUnits() {
+    assertEquals(1234, codec.parseUnits("12.34"));
+    assertEquals(1230, codec.parseUnits("12.3"));
+    assertEquals(1200, codec.parseUnits("12"));
+    assertEquals(-50, codec.parseUnits("-0.5"));
+    assertEquals(1234, codec.parseUnits("12.340"));
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void rejectsUnitsBeyondScale() {
+    codec.parseUnits("12.345");
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void rejectsUnitsBeyondPrecision() {
+    codec.parseUnits("123456789.00");
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void rejectsMalformedAmounts() {
+    codec.parseUnits("12,34");
+  }
+
+  @Test
+  public void formatsUnits() {
+    assertEquals("12.34", codec.formatUnits(1234));
+    assertEquals("0.05", codec.formatUnits(5));
+    assertEquals("-0.50", codec.formatUnits(-50));
+    assertEquals("0.00", codec.formatUnits(0));
+    assertEquals("99999999.99", codec.formatUnits(9_999_999_999L));
+    assertEquals("-92233720368547758.08", wideCodec.formatUnits(Long.MIN_VALUE));
+    assertEquals("7", new FixedPointAmountCodec(ZAR, 10, 0).formatUnits(7));
+  }
+
+  @Test
+  public void parsesMonetaryAmounts() {
+    MonetaryAmount amount = codec.parse("100.31");
+    assertEquals(ZAR, amount.getCurrency());
+    assertEquals(0, new BigDecimal("100.31")
+        .compareTo(amount.getNumber().numberValue(BigDecimal.class)));
+
+    // Too large for a long, handled by BigDecimal
+    String large = "123456789012345678901234.5";
+    assertEquals(0, new BigDecimal(large)
+        .compareTo(wideCodec.parse(large).getNumber().numberValue(BigDecimal.class)));
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void rejectsMonetaryAmountsBeyondScale() {
+    codec.parse("0.125");
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void rejectsMonetaryAmountsBeyondPrecision() {
+    codec.parse("123456789.5");
+  }
+
+  @Test
+  public void formatsMonetaryAmounts() {
+    assertEquals("100.00", codec.format(Money.of(100, ZAR)));
+    assertEquals("0.13", codec.format(Money.of(new BigDecimal("0.1300"), ZAR)));
+    assertEquals("100.31", codec.format(codec.parse("100.31")));
+    assertEquals("123456789012345678901234.50",
+        wideCodec.format(Money.of(new BigDecimal("123456789012345678901234.5"), ZAR)));
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void doesNotRoundWhenFormatting() {
+    codec.format(Money.of(new BigDecimal("0.125"), ZAR));
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void rejectsFormattingBeyondPrecision() {
+    codec.format(Money.of(100_000_000, ZAR));
+  }
+
+  @Test
+  public void roundTripsUnits() {
+    for (long units = -100_000; units <= 100_000; units += 7) {
+      assertEquals(units, codec.parseUnits(codec.formatUnits(units)));
+    }
+    assertTrue(wideCodec.parseUnits(wideCodec.formatUnits(Long.MAX_VALUE)) == Long.MAX_VALUE);
+  }
+
+}
@@ -0,0 +1,59 @@
+package org.interledger.ilp.ledger.adaptor.rest.money;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.interledger.ilp.InterledgerAddress;
+import org.interledger.ilp.ledger.money.format.LedgerSpecificDecimalMonetaryAmountFormat;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import javax.money.Monetary;
+import javax.money.format.MonetaryAmountFormat;
+
+/**
+ * Tests the {@link LedgerFormatRegistry} class.
+ */
+public class LedgerFormatRegistryTest {
+
+  private static final MonetaryAmountFormat ZAR_FORMAT =
+      new LedgerSpecificDecimalMonetaryAmountFormat(Monetary.getCurrency("ZAR"), 10, 2);
+  private static final MonetaryAmountFormat JPY_FORMAT =
+      new LedgerSpecificDecimalMonetaryAmountFormat(Monetary.getCurrency("JPY"), 10, 0);
+
+  private final LedgerFormatRegistry registry = new LedgerFormatRegistry();
+
+  @Test
+  public void findsLongestMatchingPrefix() {
+    registry.register(new InterledgerAddress("za.zar."), ZAR_FORMAT, null);
+    registry.register(new InterledgerAddress("za.zar.saturn."), JPY_FORMAT, null);
+
+    assertSame(JPY_FORMAT, registry.find(new InterledgerAddress("za.zar.saturn.")));
+    assertSame(JPY_FORMAT, registry.find(new InterledgerAddress("za.zar.saturn.bob")));
+    assertSame(ZAR_FORMAT, registry.find(new InterledgerAddress("za.zar.mars.alice")));
+    assertNull(registry.find(new InterledgerAddress("us.usd.red.")));
+  }
+
+  @Test
+  public void expiresFormats() {
+    registry.register(new InterledgerAddress("za.zar."), ZAR_FORMAT, null);
+    registry.register(new InterledgerAddress("za.zar.saturn."), JPY_FORMAT, Duration.ZERO);
+
+    // The expired, more specific format is dropped and the shorter prefix matches instead
+    assertSame(ZAR_FORMAT, registry.find(new InterledgerAddress("za.zar.saturn.bob")));
+    assertEquals(1, registry.size());
+  }
+
+  @Test
+  public void evictsExpiredFormats() {
+    registry.register(new InterledgerAddress("za.zar."), ZAR_FORMAT, Duration.ZERO);
+    registry.register(new InterledgerAddress("jp.jpy."), JPY_FORMAT, Duration.ofMinutes(1));
+
+    registry.evictExpired();
+    assertEquals(1, registry.size());
+    assertSame(JPY_FORMAT, registry.find(new InterledgerAddress("jp.jpy.")));
+  }
+
+}
@@ -0,0 +1,125 @@
+package org.interledger.ilp.ledger.adaptor.rest.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.http.NoHttpResponseException;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLHandshakeException;
+
+/**
+ * Tests the {@link Retrier}, {@link RetryPolicy} and {@link RetryBudget} classes.
+ */
+public class RetrierTest {
+
+  @Test
+  public void classifiesRetryableFailures() {
+    RetryPolicy policy = new RetryPolicy();
+
+    assertTrue(policy.isRetryable(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+    assertTrue(policy.isRetryable(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+    assertTrue(policy.isRetryable(
+        new ResourceAccessException("timeout", new SocketTimeoutException())));
+    assertTrue(policy.isRetryable(
+        new ResourceAccessException("refused", new ConnectException("Connection refused"))));
+    assertTrue(policy.isRetryable(
+        new ResourceAccessException("dropped", new NoHttpResponseException("No response"))));
+    assertFalse(policy.isRetryable(
+        new ResourceAccessException("dns", new UnknownHostException("ledger.example.com"))));
+    assertFalse(policy.isRetryable(
+        new ResourceAccessException("tls", new SSLHandshakeException("Bad certificate"))));
+    assertFalse(policy.isRetryable(new ResourceAccessException("unknown")));
+    assertFalse(policy.isRetryable(new HttpServerErrorException(HttpStatus.NOT_IMPLEMENTED)));
+    assertFalse(policy.isRetryable(new HttpClientErrorException(HttpStatus.NOT_FOUND)));
+    assertFalse(policy.isRetryable(new IllegalStateException()));
+  }
+
+  @Test
+  public void backoffIsCappedAndJittered() {
+    RetryPolicy policy = new RetryPolicy();
+    policy.setBaseDelayMillis(100);
+    policy.setMaxDelayMillis(1000);
+
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(policy.getBackoffMillis(1) <= 100);
+      assertTrue(policy.getBackoffMillis(3) <= 400);
+      assertTrue(policy.getBackoffMillis(40) <= 1000);
+    }
+  }
+
+  @Test
+  public void emptyBudgetStopsRetries() {
+    RetryPolicy policy = new RetryPolicy();
+    policy.setMaxAttempts(10);
+    policy.setBaseDelayMillis(0);
+    Retrier retrier = new Retrier(policy, new RetryBudget(0, 2));
+
+    AtomicInteger attempts = new AtomicInteger();
+    try {
+      retrier.execute("test", () -> {
+        attempts.incrementAndGet();
+        throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+      });
+      fail("Expected the request to fail.");
+    } catch (HttpServerErrorException expected) {
+      // The initial attempt plus the two retries in the budget
+      assertEquals(3, attempts.get());
+    }
+
+    assertEquals(2, retrier.getRetryCount());
+    assertEquals(1, retrier.getBudgetExhaustedCount());
+    assertEquals(0, retrier.getBudget().getAvailableRetries());
+  }
+
+  @Test
+  public void budgetIsRefilledByRequests() {
+    RetryBudget budget = new RetryBudget(0.5, 1);
+
+    assertTrue(budget.tryAcquireRetry());
+    assertFalse(budget.tryAcquireRetry());
+
+    budget.onRequest();
+    assertFalse(budget.tryAcquireRetry());
+    budget.onRequest();
+    assertTrue(budget.tryAcquireRetry());
+  }
+
+  @Test
+  public void asyncRequestIsRetriedUntilItSucceeds() throws Exception {
+    RetryPolicy policy = new RetryPolicy();
+    policy.setBaseDelayMillis(1);
+    Retrier retrier = new Retrier(policy, new RetryBudget());
+
+    AtomicInteger attempts = new AtomicInteger();
+    CompletableFuture<String> result = retrier.executeAsync("test", () -> {
+      CompletableFuture<String> future = new CompletableFuture<>();
+      if (attempts.incrementAndGet() < 3) {
+        future.completeExceptionally(new ResourceAccessException("connection reset",
+            new SocketException("Connection reset")));
+      } else {
+        future.complete("done");
+      }
+      return future;
+    });
+
+    assertEquals("done", result.get(5, TimeUnit.SECONDS));
+    assertEquals(3, attempts.get());
+    assertEquals(2, retrier.getRetryCount());
+  }
+
+}
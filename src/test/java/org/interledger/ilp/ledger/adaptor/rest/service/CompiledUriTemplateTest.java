@@ -0,0 +1,77 @@
+package org.interledger.ilp.ledger.adaptor.rest.service;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Tests the {@link CompiledUriTemplate} class.
+ */
+public class CompiledUriTemplateTest {
+
+  private static final String ACCOUNT = "https://ledger.example.com/ledger/accounts/{name}";
+  private static final String FULFILLMENT =
+      "https://ledger.example.com/ledger/transfers/{id}/fulfillment";
+
+  @Test
+  public void expandsAndExtractsWithoutSuffix() {
+    CompiledUriTemplate template = new CompiledUriTemplate(ACCOUNT);
+
+    URI uri = template.getUri("alice");
+
+    assertEquals(URI.create("https://ledger.example.com/ledger/accounts/alice"), uri);
+    assertEquals("alice", template.extractToken(uri));
+  }
+
+  @Test
+  public void expandsAndExtractsWithSuffix() {
+    CompiledUriTemplate template = new CompiledUriTemplate(FULFILLMENT);
+    UUID transferId = UUID.randomUUID();
+
+    URI uri = template.getUri(transferId.toString());
+
+    assertEquals(URI.create("https://ledger.example.com/ledger/transfers/" + transferId
+        + "/fulfillment"), uri);
+    assertEquals(transferId.toString(), template.extractToken(uri));
+    assertEquals(transferId, template.extractUuid(uri));
+  }
+
+  @Test
+  public void encodesUnsafeCharacters() {
+    CompiledUriTemplate template = new CompiledUriTemplate(ACCOUNT);
+
+    URI uri = template.getUri("bob smith/2");
+
+    assertEquals("https://ledger.example.com/ledger/accounts/bob%20smith/2", uri.toString());
+    assertEquals("bob%20smith/2", template.extractToken(uri));
+  }
+
+  @Test
+  public void matchesSpringUriTemplate() {
+    org.springframework.web.util.UriTemplate spring =
+        new org.springframework.web.util.UriTemplate(FULFILLMENT);
+    CompiledUriTemplate template = new CompiledUriTemplate(FULFILLMENT);
+
+    String[] values = {"abc", "a.b-c_d~e", "x:y@z", "a b", "50%", "a/b", "a?b", "a#b",
+        "caf\u00e9", "\u20ac/\u00fc?#"}; // e acute, euro sign, u umlaut
+    for (String value : values) {
+      assertEquals(spring.expand(value), template.getUri(value));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUriThatDoesNotMatch() {
+    new CompiledUriTemplate(FULFILLMENT)
+        .extractToken(URI.create("https://ledger.example.com/ledger/accounts/alice"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsInvalidUuid() {
+    CompiledUriTemplate template = new CompiledUriTemplate(FULFILLMENT);
+    template.extractUuid(template.getUri("155dff3f-4915-44df-a707-acc4b527bcbg"));
+  }
+
+}
@@ -0,0 +1,111 @@
+package org.interledger.ilp.ledger.adaptor.rest.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.interledger.ilp.InterledgerAddress;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransfer;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransferAccountEntry;
+import org.interledger.ilp.ledger.model.LedgerTransfer;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Tests the {@link LazyLedgerTransfer} class.
+ */
+public class LazyLedgerTransferTest extends RestLedgerServiceTestBase {
+
+  @Test
+  public void decodesPropertiesOnFirstAccess() {
+    UUID transferId = UUID.randomUUID();
+    LedgerTransfer transfer = converter.convertJsonLedgerTransfer(
+        createJsonTransfer(transferId, URI.create("bad:condition")));
+
+    assertTrue(transfer instanceof LazyLedgerTransfer);
+    assertEquals(transferId, transfer.getId());
+    assertEquals(new InterledgerAddress("za.zar.ledger.alice"), transfer.getFromAccount());
+    assertEquals(new InterledgerAddress("za.zar.ledger.bob"), transfer.getToAccount());
+    assertEquals(0, new BigDecimal("12.34")
+        .compareTo(transfer.getAmount().getNumber().numberValue(BigDecimal.class)));
+    assertArrayEquals("memo".getBytes(StandardCharsets.UTF_8), transfer.getData());
+    assertTrue(transfer.isAuthorized());
+    assertNull(transfer.getCancellationCondition());
+
+    // The malformed condition only fails when it is read
+    try {
+      transfer.getExecutionCondition();
+      fail("Expected the execution condition to fail to parse.");
+    } catch (RuntimeException re) {
+      assertEquals("Error parsing execution condition.", re.getMessage());
+    }
+  }
+
+  @Test
+  public void setValuesReplaceDecodedValues() {
+    LazyLedgerTransfer transfer = (LazyLedgerTransfer) converter.convertJsonLedgerTransfer(
+        createJsonTransfer(UUID.randomUUID(), null));
+
+    transfer.setExecutionCondition(null);
+    transfer.setAmount(null);
+    assertNull(transfer.getExecutionCondition());
+    assertNull(transfer.getAmount());
+  }
+
+  @Test
+  public void cachesParsedConditions() {
+    URI condition = URI.create(
+        "ni:///sha-256;47DEQpj8HBSa-_TImW-5JCeuQeRkm5NMpJWZG3hSuFU?fpt=preimage-sha-256&cost=0");
+    LedgerTransfer prepared = converter.convertJsonLedgerTransfer(
+        createJsonTransfer(UUID.randomUUID(), condition));
+    LedgerTransfer executed = converter.convertJsonLedgerTransfer(
+        createJsonTransfer(UUID.randomUUID(), condition));
+
+    assertSame(prepared.getExecutionCondition(), executed.getExecutionCondition());
+    assertEquals(1, converter.getConditionCacheStats().getHitCount());
+    assertEquals(1, converter.getConditionCacheStats().getMissCount());
+  }
+
+  @Test
+  public void doesNotCacheConditionsOfExpiredTransfers() {
+    URI condition = URI.create("ni:///sha-256;expired?fpt=preimage-sha-256&cost=0");
+    JsonLedgerTransfer jsonTransfer = createJsonTransfer(UUID.randomUUID(), condition);
+    jsonTransfer.setExpiresAt(ZonedDateTime.now().minusMinutes(1));
+
+    converter.convertJsonLedgerTransfer(jsonTransfer).getExecutionCondition();
+    converter.convertJsonLedgerTransfer(jsonTransfer).getExecutionCondition();
+    assertEquals(0, converter.getConditionCacheStats().getHitCount());
+    assertEquals(2, converter.getConditionCacheStats().getMissCount());
+  }
+
+  private JsonLedgerTransfer createJsonTransfer(UUID transferId, URI executionCondition) {
+
+    JsonLedgerTransferAccountEntry debit = new JsonLedgerTransferAccountEntry();
+    debit.setAccount(URI.create(BASE_URL + "/accounts/alice"));
+    debit.setAmount("12.34");
+    debit.setAuthorized(true);
+    debit.setMemo(Base64.getEncoder().encodeToString("memo".getBytes(StandardCharsets.UTF_8)));
+
+    JsonLedgerTransferAccountEntry credit = new JsonLedgerTransferAccountEntry();
+    credit.setAccount(URI.create(BASE_URL + "/accounts/bob"));
+    credit.setAmount("12.34");
+
+    JsonLedgerTransfer transfer = new JsonLedgerTransfer();
+    transfer.setId(URI.create(BASE_URL + "/transfers/" + transferId));
+    transfer.setDebits(Collections.singletonList(debit));
+    transfer.setCredits(Collections.singletonList(credit));
+    transfer.setExecutionCondition(executionCondition);
+    return transfer;
+  }
+
+}
@@ -5,6 +5,8 @@ import static org.springframework.test.web.client.match.MockRestRequestMatchers.
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.AdaptorStateException;
+import org.interledger.ilp.ledger.adaptor.ws.JsonRpcLedgerWebSocketChannel;
 import org.interledger.ilp.ledger.model.AccountInfo;
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
@@ -13,6 +15,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 
 import java.net.URI;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Basic tests of the {@link RestLedgerAccountService} class.
@@ -27,7 +30,8 @@ public class RestLedgerAccountServiceTest extends RestLedgerServiceTestBase {
     mockServer.expect(requestTo(BASE_URL + "/accounts/bob")).andExpect(method(HttpMethod.GET))
         .andRespond(withSuccess(responseBody, MediaType.APPLICATION_JSON));
     
-    RestLedgerAccountService service = new RestLedgerAccountService(converter, restTemplate, null);
+    RestLedgerAccountService service = new RestLedgerAccountService(converter, restTemplate,
+        (JsonRpcLedgerWebSocketChannel) null);
     
     AccountInfo info = service.getAccountInfo(URI.create(BASE_URL + "/accounts/bob"));
     
@@ -36,5 +40,37 @@ public class RestLedgerAccountServiceTest extends RestLedgerServiceTestBase {
     //we don't inspect the account information returned here to avoid testing the RestJsonConverter
     assertNotNull(info);
   }
+
+  @Test(expected = AdaptorStateException.class)
+  public void acceptsASingleWebSocketChannel() throws Exception {
+
+    JsonRpcLedgerWebSocketChannel channel = new JsonRpcLedgerWebSocketChannel(
+        URI.create("ws://ledger.example.com/websocket"), "token", null, converter);
+    RestLedgerAccountService service =
+        new RestLedgerAccountService(converter, restTemplate, channel);
+
+    // The channel is wrapped rather than ignored, and it is not connected
+    service.subscribeToAccountNotifications(URI.create(BASE_URL + "/accounts/bob"));
+  }
+
+  @Test
+  public void getLedgerInfoAsyncSuccess() throws Exception {
+
+    Resource responseBody = new ClassPathResource("ledger_account.json", this.getClass());
+
+    asyncMockServer.expect(requestTo(BASE_URL + "/accounts/bob"))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withSuccess(responseBody, MediaType.APPLICATION_JSON));
+
+    RestLedgerAccountService service = new RestLedgerAccountService(converter, restTemplate,
+        asyncRestTemplate, null);
+
+    AccountInfo info = service.getAccountInfoAsync(URI.create(BASE_URL + "/accounts/bob"))
+        .get(5, TimeUnit.SECONDS);
+
+    asyncMockServer.verify();
+
+    assertNotNull(info);
+  }
 }
 
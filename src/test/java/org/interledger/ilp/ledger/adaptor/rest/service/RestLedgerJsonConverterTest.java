@@ -0,0 +1,33 @@
+package org.interledger.ilp.ledger.adaptor.rest.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.interledger.ilp.InterledgerAddress;
+import org.junit.Test;
+
+import java.net.URI;
+
+/**
+ * Tests the {@link RestLedgerJsonConverter} class.
+ */
+public class RestLedgerJsonConverterTest extends RestLedgerServiceTestBase {
+
+  @Test
+  public void accountConversionIsCachedInBothDirections() {
+    URI accountUri = URI.create(BASE_URL + "/accounts/alice");
+
+    InterledgerAddress address = converter.convertAccountUriToAddress(accountUri);
+    assertEquals(new InterledgerAddress("za.zar.ledger.alice"), address);
+
+    // Both directions are now served from the caches
+    assertSame(address, converter.convertAccountUriToAddress(accountUri));
+    assertSame(accountUri, converter.convertAccountAddressToUri(address));
+
+    assertEquals(1, converter.getAccountAddressCacheStats().getHitCount());
+    assertEquals(1, converter.getAccountAddressCacheStats().getMissCount());
+    assertEquals(1, converter.getAccountUriCacheStats().getHitCount());
+    assertEquals(0, converter.getAccountUriCacheStats().getMissCount());
+  }
+
+}
@@ -6,6 +6,7 @@ import org.junit.Before;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
@@ -19,6 +20,8 @@ public abstract class RestLedgerServiceTestBase {
   
   protected MockRestServiceServer mockServer;
   protected RestTemplate restTemplate;
+  protected MockRestServiceServer asyncMockServer;
+  protected AsyncRestTemplate asyncRestTemplate;
   protected RestLedgerJsonConverter converter;
   
   /**
@@ -29,6 +32,10 @@ public abstract class RestLedgerServiceTestBase {
     this.restTemplate = new RestTemplate();
     this.mockServer = MockRestServiceServer.bindTo(this.restTemplate).ignoreExpectOrder(true)
         .build();
+
+    this.asyncRestTemplate = new AsyncRestTemplate();
+    this.asyncMockServer = MockRestServiceServer.bindTo(this.asyncRestTemplate)
+        .ignoreExpectOrder(true).build();
     
     ObjectMapper mapper = new ObjectMapper();
     Resource responseBody = new ClassPathResource("ledger_metadata.json", this.getClass());
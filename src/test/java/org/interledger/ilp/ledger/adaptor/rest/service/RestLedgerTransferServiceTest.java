@@ -1,21 +1,42 @@
 package org.interledger.ilp.ledger.adaptor.rest.service;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.client.ExpectedCount.times;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 import org.interledger.ilp.InterledgerAddress;
 import org.interledger.ilp.client.model.ClientLedgerTransfer;
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.RestServiceException;
+import org.interledger.ilp.ledger.adaptor.rest.retry.Retrier;
+import org.interledger.ilp.ledger.adaptor.rest.retry.RetryBudget;
+import org.interledger.ilp.ledger.adaptor.rest.retry.RetryPolicy;
+import org.interledger.ilp.ledger.adaptor.rest.state.TransferState;
+import org.interledger.ilp.ledger.model.LedgerTransfer;
 import org.interledger.ilp.ledger.model.TransferRejectedReason;
 import org.interledger.ilp.ledger.money.format.LedgerSpecificDecimalMonetaryAmountFormat;
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpServerErrorException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.money.Monetary;
 import javax.money.format.MonetaryAmountFormat;
@@ -71,4 +92,253 @@ public class RestLedgerTransferServiceTest extends RestLedgerServiceTestBase {
     mockServer.verify();
   }
 
+  @Test
+  public void sendLedgerTransferAsyncSuccess() throws Exception {
+    UUID transferId = UUID.fromString("155dff3f-4915-44df-a707-acc4b527bcbd");
+
+    Resource responseBody = new ClassPathResource("ledger_transfer_simple.json", this.getClass());
+
+    asyncMockServer.expect(requestTo(BASE_URL + "/transfers/" + transferId.toString()))
+        .andExpect(method(HttpMethod.PUT))
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
+        .andRespond(withSuccess(responseBody, MediaType.APPLICATION_JSON));
+
+    MonetaryAmountFormat format = new LedgerSpecificDecimalMonetaryAmountFormat(
+        Monetary.getCurrency("ZAR"), 10, 2);
+
+    ClientLedgerTransfer transfer = new ClientLedgerTransfer();
+    transfer.setId(transferId);
+    transfer.setFromAccount(new InterledgerAddress("za.zar.ledger.alice"));
+    transfer.setToAccount(new InterledgerAddress("za.zar.ledger.bob"));
+    transfer.setAmount(format.parse("10"));
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate,
+        asyncRestTemplate);
+    service.sendTransferAsync(transfer).get(5, TimeUnit.SECONDS);
+
+    asyncMockServer.verify();
+  }
+
+  @Test
+  public void sendLedgerRejectionsBulkPartialFailure() throws Exception {
+    List<LedgerTransfer> transfers = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      ClientLedgerTransfer transfer = new ClientLedgerTransfer();
+      transfer.setId(UUID.randomUUID());
+      transfers.add(transfer);
+
+      boolean fail = (i == 2);
+      asyncMockServer
+          .expect(requestTo(BASE_URL + "/transfers/" + transfer.getId() + "/rejection"))
+          .andExpect(method(HttpMethod.PUT))
+          .andRespond(fail
+              ? withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON)
+                  .body("{\"id\":\"NotFoundError\",\"message\":\"Unknown transfer\"}")
+              : withSuccess("REJECTED_BY_RECEIVER", MediaType.TEXT_PLAIN));
+    }
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate,
+        asyncRestTemplate);
+
+    Map<UUID, TransferResult> results = service.rejectTransfers(transfers,
+        TransferRejectedReason.REJECTED_BY_RECEIVER, 2);
+
+    asyncMockServer.verify();
+
+    assertEquals(5, results.size());
+    for (int i = 0; i < 5; i++) {
+      TransferResult result = results.get(transfers.get(i).getId());
+      assertEquals(i != 2, result.isSuccess());
+    }
+    assertTrue(results.get(transfers.get(2).getId()).getError() instanceof RestServiceException);
+  }
+
+  @Test
+  public void sendLedgerRejectionAsyncNotFound() throws Exception {
+    UUID transferId = UUID.randomUUID();
+
+    asyncMockServer
+        .expect(requestTo(BASE_URL + "/transfers/" + transferId.toString() + "/rejection"))
+        .andExpect(method(HttpMethod.PUT))
+        .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON)
+            .body("{\"id\":\"NotFoundError\",\"message\":\"Unknown transfer\"}"));
+
+    ClientLedgerTransfer transfer = new ClientLedgerTransfer();
+    transfer.setId(transferId);
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate,
+        asyncRestTemplate);
+
+    try {
+      service.rejectTransferAsync(transfer, TransferRejectedReason.REJECTED_BY_RECEIVER)
+          .get(5, TimeUnit.SECONDS);
+      fail("Expected the rejection to fail.");
+    } catch (ExecutionException ee) {
+      assertTrue(ee.getCause() instanceof RestServiceException);
+      assertEquals("NotFoundError", ((RestServiceException) ee.getCause()).getId());
+    }
+
+    asyncMockServer.verify();
+  }
+
+  @Test
+  public void sendLedgerRejectionRetriedAfterServiceUnavailable() throws Exception {
+    UUID transferId = UUID.randomUUID();
+    String rejectionUrl = BASE_URL + "/transfers/" + transferId.toString() + "/rejection";
+
+    mockServer.expect(requestTo(rejectionUrl)).andExpect(method(HttpMethod.PUT))
+        .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+    mockServer.expect(requestTo(rejectionUrl)).andExpect(method(HttpMethod.PUT))
+        .andRespond(withSuccess("REJECTED_BY_RECEIVER", MediaType.TEXT_PLAIN));
+
+    ClientLedgerTransfer transfer = new ClientLedgerTransfer();
+    transfer.setId(transferId);
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate);
+    service.setRetrier(createFastRetrier(3));
+    service.rejectTransfer(transfer, TransferRejectedReason.REJECTED_BY_RECEIVER);
+
+    mockServer.verify();
+    assertEquals(1, service.getRetrier().getRetryCount());
+  }
+
+  @Test
+  public void sendLedgerRejectionAsyncGivesUpAfterMaxAttempts() throws Exception {
+    UUID transferId = UUID.randomUUID();
+
+    asyncMockServer
+        .expect(times(2),
+            requestTo(BASE_URL + "/transfers/" + transferId.toString() + "/rejection"))
+        .andExpect(method(HttpMethod.PUT))
+        .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+
+    ClientLedgerTransfer transfer = new ClientLedgerTransfer();
+    transfer.setId(transferId);
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate,
+        asyncRestTemplate);
+    service.setRetrier(createFastRetrier(2));
+
+    try {
+      service.rejectTransferAsync(transfer, TransferRejectedReason.REJECTED_BY_RECEIVER)
+          .get(5, TimeUnit.SECONDS);
+      fail("Expected the rejection to fail.");
+    } catch (ExecutionException ee) {
+      assertTrue(ee.getCause() instanceof HttpServerErrorException);
+    }
+
+    asyncMockServer.verify();
+  }
+
+  @Test
+  public void getTransferState() {
+    UUID transferId = UUID.randomUUID();
+
+    mockServer.expect(requestTo(BASE_URL + "/transfers/" + transferId.toString() + "/state"))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withSuccess("{\"type\":\"ed25519-sha512\",\"message\":{\"id\":\""
+            + BASE_URL + "/transfers/" + transferId + "\",\"state\":\"executed\"},"
+            + "\"signer\":\"" + BASE_URL + "\",\"signature\":\"sig\"}",
+            MediaType.APPLICATION_JSON));
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate);
+
+    assertEquals(TransferState.EXECUTED, service.getTransferState(transferId));
+    mockServer.verify();
+  }
+
+  @Test
+  public void getTransfer() {
+    UUID transferId = UUID.fromString("155dff3f-4915-44df-a707-acc4b527bcbd");
+
+    Resource responseBody = new ClassPathResource("ledger_transfer_simple.json", this.getClass());
+
+    mockServer.expect(requestTo(BASE_URL + "/transfers/" + transferId.toString()))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withSuccess(responseBody, MediaType.APPLICATION_JSON));
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate);
+
+    assertEquals(transferId, service.getTransfer(transferId).getId());
+    mockServer.verify();
+  }
+
+  private static Retrier createFastRetrier(int maxAttempts) {
+    RetryPolicy policy = new RetryPolicy();
+    policy.setMaxAttempts(maxAttempts);
+    policy.setBaseDelayMillis(1);
+    return new Retrier(policy, new RetryBudget());
+  }
+
+
+  @Test
+  public void bulkRejectsDuplicateIdsBeforeSendingAnything() {
+    UUID transferId = UUID.randomUUID();
+    List<LedgerTransfer> transfers = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      ClientLedgerTransfer transfer = new ClientLedgerTransfer();
+      transfer.setId(transferId);
+      transfers.add(transfer);
+    }
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate,
+        asyncRestTemplate);
+
+    try {
+      service.rejectTransfers(transfers, TransferRejectedReason.REJECTED_BY_RECEIVER, 2);
+      fail("Expected the batch to be rejected.");
+    } catch (IllegalArgumentException iae) {
+      // expected
+    }
+    asyncMockServer.verify();
+  }
+
+  @Test
+  public void bulkBoundsRequestsInFlightAndReportsEachFailure() {
+    List<LedgerTransfer> transfers = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      ClientLedgerTransfer transfer = new ClientLedgerTransfer();
+      transfer.setId(UUID.randomUUID());
+      transfers.add(transfer);
+    }
+    IllegalStateException notSent = new IllegalStateException("Unable to send");
+    IllegalStateException failed = new IllegalStateException("Request failed");
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    RestLedgerTransferService service = new RestLedgerTransferService(converter, restTemplate,
+        asyncRestTemplate) {
+      @Override
+      public CompletableFuture<Void> rejectTransferAsync(LedgerTransfer transfer,
+          TransferRejectedReason reason) {
+        if (transfer == transfers.get(3)) {
+          throw notSent;
+        }
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return CompletableFuture.runAsync(() -> {
+          try {
+            Thread.sleep(20);
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+          }
+          inFlight.decrementAndGet();
+          if (transfer == transfers.get(5)) {
+            throw failed;
+          }
+        });
+      }
+    };
+
+    Map<UUID, TransferResult> results = service.rejectTransfers(transfers,
+        TransferRejectedReason.REJECTED_BY_RECEIVER, 2);
+
+    assertEquals(8, results.size());
+    assertTrue(maxInFlight.get() <= 2);
+    assertSame(notSent, results.get(transfers.get(3).getId()).getError());
+    assertSame(failed, results.get(transfers.get(5).getId()).getError());
+    for (int i = 0; i < 8; i++) {
+      assertEquals(i != 3 && i != 5, results.get(transfers.get(i).getId()).isSuccess());
+    }
+  }
+
 }
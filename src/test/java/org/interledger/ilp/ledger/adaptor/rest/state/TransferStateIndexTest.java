@@ -0,0 +1,187 @@
+package org.interledger.ilp.ledger.adaptor.rest.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tests the {@link TransferStateIndex} class.
+ */
+public class TransferStateIndexTest {
+
+  private MutableClock clock;
+  private TransferStateIndex index;
+
+  @Before
+  public void setUp() {
+    clock = new MutableClock();
+    index = new TransferStateIndex(16, 60000, clock);
+  }
+
+  @Test
+  public void tracksStateUntilExpiry() {
+    UUID transferId = UUID.randomUUID();
+    ZonedDateTime expiresAt = clock.instant().plusSeconds(10).atZone(ZoneOffset.UTC);
+
+    assertNull(index.get(transferId));
+
+    index.update(transferId, TransferState.PREPARED, expiresAt);
+    assertEquals(TransferState.PREPARED, index.get(transferId));
+
+    index.update(transferId, TransferState.EXECUTED, expiresAt);
+    assertEquals(TransferState.EXECUTED, index.get(transferId));
+
+    clock.advance(10000);
+    assertNull(index.get(transferId));
+
+    index.evictExpired();
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void finalStateIsNotReplaced() {
+    UUID transferId = UUID.randomUUID();
+
+    index.update(transferId, TransferState.REJECTED, null);
+    index.update(transferId, TransferState.PREPARED, null);
+    index.update(transferId, TransferState.EXECUTED, null);
+
+    assertEquals(TransferState.REJECTED, index.get(transferId));
+  }
+
+  @Test
+  public void growsAndRemovesWithoutLosingEntries() {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      UUID id = new UUID(i % 7, i);
+      ids.add(id);
+      index.update(id, TransferState.PREPARED, null);
+    }
+    assertEquals(5000, index.size());
+
+    for (int i = 0; i < ids.size(); i += 2) {
+      index.remove(ids.get(i));
+    }
+
+    assertEquals(2500, index.size());
+    for (int i = 0; i < ids.size(); i++) {
+      assertEquals(i % 2 == 0 ? null : TransferState.PREPARED, index.get(ids.get(i)));
+    }
+  }
+
+  @Test
+  public void sweepKeepsLiveEntriesReachable() {
+    ZonedDateTime soon = clock.instant().plusSeconds(10).atZone(ZoneOffset.UTC);
+    ZonedDateTime later = clock.instant().plusSeconds(100).atZone(ZoneOffset.UTC);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      UUID id = new UUID(i % 7, i);
+      ids.add(id);
+      index.update(id, TransferState.PREPARED, i % 3 == 0 ? later : soon);
+    }
+
+    clock.advance(10000);
+    index.evictExpired();
+
+    assertEquals(1667, index.size());
+    for (int i = 0; i < ids.size(); i++) {
+      assertEquals(i % 3 == 0 ? TransferState.PREPARED : null, index.get(ids.get(i)));
+    }
+
+    clock.advance(90000);
+    index.evictExpired();
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void lateFinalStateIsRecorded() {
+    UUID rejected = UUID.randomUUID();
+    UUID prepared = UUID.randomUUID();
+    ZonedDateTime expiredAt = clock.instant().minusSeconds(1).atZone(ZoneOffset.UTC);
+
+    index.update(rejected, TransferState.REJECTED, expiredAt);
+    index.update(prepared, TransferState.PREPARED, expiredAt);
+
+    assertEquals(TransferState.REJECTED, index.get(rejected));
+    assertNull(index.get(prepared));
+  }
+
+  @Test
+  public void lateFinalStateSurvivesAnEarlierExpiredState() {
+    UUID transferId = UUID.randomUUID();
+    ZonedDateTime expiredAt = clock.instant().minusSeconds(1).atZone(ZoneOffset.UTC);
+
+    index.update(transferId, TransferState.REJECTED, expiredAt);
+    index.update(transferId, TransferState.PREPARED, expiredAt);
+    assertEquals(TransferState.REJECTED, index.get(transferId));
+
+    // An earlier state does not shorten the expiry of the final state either
+    index.update(transferId, TransferState.PREPARED,
+        clock.instant().plusSeconds(1).atZone(ZoneOffset.UTC));
+    clock.advance(30000);
+    assertEquals(TransferState.REJECTED, index.get(transferId));
+  }
+
+  @Test
+  public void entriesWithoutExpiryUseDefaultTimeToLive() {
+    UUID transferId = UUID.randomUUID();
+    index.update(transferId, TransferState.PROPOSED, null);
+
+    clock.advance(59999);
+    assertEquals(TransferState.PROPOSED, index.get(transferId));
+    clock.advance(1);
+    assertNull(index.get(transferId));
+  }
+
+  @Test
+  public void listsTransfersThatAreNotFinal() {
+    UUID prepared = UUID.randomUUID();
+    UUID executed = UUID.randomUUID();
+    UUID expired = UUID.randomUUID();
+    ZonedDateTime expiresAt = clock.instant().plusSeconds(10).atZone(ZoneOffset.UTC);
+
+    index.update(prepared, TransferState.PREPARED, null);
+    index.update(executed, TransferState.EXECUTED, null);
+    index.update(expired, TransferState.PROPOSED, expiresAt);
+    clock.advance(10000);
+
+    assertEquals(Collections.singletonList(prepared), index.getPendingTransferIds());
+  }
+
+  private static class MutableClock extends Clock {
+
+    private long millis = 1000000;
+
+    void advance(long delta) {
+      millis += delta;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+
+}
@@ -0,0 +1,209 @@
+package org.interledger.ilp.ledger.adaptor.rest.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * Tests the {@link HttpTransport} protocol modes against a local stand-in server.
+ */
+public class HttpTransportTest {
+
+  private static final char[] PASSWORD = "password".toCharArray();
+
+  private MockWebServer server;
+  private HttpTransport transport;
+
+  @Before
+  public void setUp() {
+    server = new MockWebServer();
+  }
+
+  /**
+   * Closes the transport and stops the server.
+   */
+  @After
+  public void tearDown() throws Exception {
+    if (transport != null) {
+      transport.close();
+    }
+    server.shutdown();
+  }
+
+  @Test
+  public void h2cMultiplexesConcurrentRequestsOverOneConnection() throws Exception {
+
+    server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+    server.start();
+    for (int i = 0; i < 9; i++) {
+      server.enqueue(new MockResponse().setBody("{}").setHeadersDelay(200, TimeUnit.MILLISECONDS));
+    }
+
+    HttpTransportConfig config = new HttpTransportConfig();
+    config.setProtocol(HttpProtocol.H2C);
+    transport = new HttpTransport(config);
+
+    RestTemplate restTemplate = new RestTemplate(transport.getRequestFactory());
+    assertEquals(HttpStatus.OK,
+        restTemplate.getForEntity(server.url("/sync").uri(), String.class).getStatusCode());
+
+    AsyncRestTemplate asyncRestTemplate = new AsyncRestTemplate(
+        transport.getAsyncRequestFactory());
+    List<ListenableFuture<ResponseEntity<String>>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(asyncRestTemplate.getForEntity(server.url("/async/" + i).uri(), String.class));
+    }
+    for (ListenableFuture<ResponseEntity<String>> future : futures) {
+      assertEquals(HttpStatus.OK, future.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
+
+    assertEquals(9, server.getRequestCount());
+    PoolStats stats = transport.getPoolStats();
+    assertEquals(0, stats.getLeased());
+    assertEquals("All requests shared one connection", 1, stats.getAvailable());
+    assertEquals(config.getMaxConnectionsTotal(), stats.getMax());
+  }
+
+  @Test
+  public void http2IsNegotiatedOverTls() throws Exception {
+
+    RecordedRequest request = getOverTls(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
+    // The stand-in server only reports HTTP/2 requests with their pseudo-headers
+    assertEquals("https", request.getHeader(":scheme"));
+  }
+
+  @Test
+  public void http2FallsBackToHttp11() throws Exception {
+
+    RecordedRequest request = getOverTls(Collections.singletonList(Protocol.HTTP_1_1));
+
+    assertNull(request.getHeader(":scheme"));
+    assertNotNull(request.getHeader("Host"));
+  }
+
+  /**
+   * Sends a request in HTTP/2 mode to a TLS server offering the given protocols through ALPN.
+   */
+  private RecordedRequest getOverTls(List<Protocol> serverProtocols) throws Exception {
+
+    KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    try (InputStream in = getClass().getResourceAsStream("localhost.p12")) {
+      keyStore.load(in, PASSWORD);
+    }
+    KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(
+        KeyManagerFactory.getDefaultAlgorithm());
+    keyManagers.init(keyStore, PASSWORD);
+    TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(
+        TrustManagerFactory.getDefaultAlgorithm());
+    trustManagers.init(keyStore);
+
+    SSLContext serverContext = SSLContext.getInstance("TLS");
+    serverContext.init(keyManagers.getKeyManagers(), null, null);
+    SSLContext clientContext = SSLContext.getInstance("TLS");
+    clientContext.init(null, trustManagers.getTrustManagers(), null);
+
+    server.useHttps(serverContext.getSocketFactory(), false);
+    server.setProtocols(serverProtocols);
+    server.start();
+    server.enqueue(new MockResponse().setBody("{}"));
+
+    HttpTransportConfig config = new HttpTransportConfig();
+    config.setProtocol(HttpProtocol.HTTP_2);
+    config.setSslContext(clientContext);
+    config.setTrustManager((X509TrustManager) trustManagers.getTrustManagers()[0]);
+    transport = new HttpTransport(config);
+
+    RestTemplate restTemplate = new RestTemplate(transport.getRequestFactory());
+    ResponseEntity<String> response = restTemplate.getForEntity(
+        server.url("/").newBuilder().host("localhost").build().uri(), String.class);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    return server.takeRequest();
+  }
+
+  @Test
+  public void http11IsTheDefault() throws Exception {
+
+    server.start();
+    server.enqueue(new MockResponse().setBody("{}"));
+
+    transport = new HttpTransport();
+
+    RestTemplate restTemplate = new RestTemplate(transport.getRequestFactory());
+    assertEquals(HttpStatus.OK,
+        restTemplate.getForEntity(server.url("/").uri(), String.class).getStatusCode());
+    assertEquals(HttpProtocol.HTTP_1_1, transport.getConfig().getProtocol());
+    assertEquals(1, transport.getPoolStats().getAvailable());
+  }
+
+  @Test
+  public void closeStopsTheLazilyCreatedAsyncClient() throws Exception {
+
+    transport = new HttpTransport();
+    HttpComponentsAsyncClientHttpRequestFactory factory =
+        (HttpComponentsAsyncClientHttpRequestFactory) transport.getAsyncRequestFactory();
+    assertTrue(factory.getHttpAsyncClient().isRunning());
+
+    transport.close();
+    transport = null;
+    assertFalse(factory.getHttpAsyncClient().isRunning());
+  }
+
+
+  @Test
+  public void asyncClientClosesIdleConnections() throws Exception {
+
+    server.start();
+    for (int i = 0; i < 3; i++) {
+      server.enqueue(new MockResponse().setBody("{}"));
+    }
+
+    HttpTransportConfig config = new HttpTransportConfig();
+    config.setIdleConnectionTimeoutMillis(100);
+    transport = new HttpTransport(config);
+    AsyncRestTemplate asyncRestTemplate = new AsyncRestTemplate(
+        transport.getAsyncRequestFactory());
+
+    asyncRestTemplate.getForEntity(server.url("/").uri(), String.class).get(5, TimeUnit.SECONDS);
+    asyncRestTemplate.getForEntity(server.url("/").uri(), String.class).get(5, TimeUnit.SECONDS);
+    assertEquals(0, server.takeRequest().getSequenceNumber());
+    assertEquals("Connection is reused while fresh", 1,
+        server.takeRequest().getSequenceNumber());
+
+    Thread.sleep(500);
+    asyncRestTemplate.getForEntity(server.url("/").uri(), String.class).get(5, TimeUnit.SECONDS);
+    assertEquals("Idle connection was evicted", 0, server.takeRequest().getSequenceNumber());
+  }
+
+}
@@ -0,0 +1,209 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcError;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcRequestMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcResponseMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcSubscribeAccountRequest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link AccountSubscriptionManager} class.
+ */
+public class AccountSubscriptionManagerTest {
+
+  private static final URI ALICE = URI.create("https://ledger.example.com/accounts/alice");
+  private static final URI BOB = URI.create("https://ledger.example.com/accounts/bob");
+
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer("TestTimer", 10, TimeUnit.MILLISECONDS, 16);
+  private final RecordingChannel channel = new RecordingChannel();
+  private final AccountSubscriptionManager manager =
+      new AccountSubscriptionManager(channel, 20, timer);
+
+  @After
+  public void tearDown() {
+    timer.close();
+  }
+
+  @Test
+  public void coalescesChangesIntoOneRequest() throws Exception {
+    CompletableFuture<Void> first = manager.subscribe(ALICE);
+    CompletableFuture<Void> second = manager.subscribe(Arrays.asList(BOB, ALICE));
+    assertSame(first, second);
+
+    Sent sent = channel.sent.poll(5, TimeUnit.SECONDS);
+    assertEquals(Arrays.asList(ALICE, BOB), sent.request.getParams().getAccounts());
+    assertFalse(first.isDone());
+
+    sent.respond(true, null);
+    first.get(1, TimeUnit.SECONDS);
+    assertEquals(manager.getAccounts(), manager.getAcknowledgedAccounts());
+
+    // Every request carries the full set, so removing an account sends the remaining ones
+    final CompletableFuture<Void> removed = manager.unsubscribe(ALICE);
+    sent = channel.sent.poll(5, TimeUnit.SECONDS);
+    assertEquals(Arrays.asList(BOB), sent.request.getParams().getAccounts());
+    sent.respond(true, null);
+    removed.get(1, TimeUnit.SECONDS);
+    assertTrue(channel.sent.isEmpty());
+  }
+
+  @Test
+  public void failsWhenTheLedgerRejectsTheSubscription() throws Exception {
+    CompletableFuture<Void> future = manager.subscribe(ALICE);
+
+    JsonRpcError error = new JsonRpcError();
+    error.setMessage("Not authorized");
+    channel.sent.poll(5, TimeUnit.SECONDS).respond(null, error);
+
+    try {
+      future.get(1, TimeUnit.SECONDS);
+      fail("Expected the subscription to fail.");
+    } catch (ExecutionException ee) {
+      assertTrue(ee.getCause().getMessage().contains("Not authorized"));
+    }
+    assertTrue(future.isCompletedExceptionally());
+    assertTrue(manager.getAcknowledgedAccounts().isEmpty());
+  }
+
+  @Test
+  public void subscribingAgainAfterAFailureSendsANewRequest() throws Exception {
+    final CompletableFuture<Void> failed = manager.subscribe(ALICE);
+    JsonRpcError error = new JsonRpcError();
+    error.setMessage("Not authorized");
+    channel.sent.poll(5, TimeUnit.SECONDS).respond(null, error);
+    assertTrue(failed.handle((result, ex) -> ex != null).get(1, TimeUnit.SECONDS));
+
+    CompletableFuture<Void> retried = manager.subscribe(ALICE);
+    assertNotSame(failed, retried);
+    Sent sent = channel.sent.poll(5, TimeUnit.SECONDS);
+    assertEquals(Arrays.asList(ALICE), sent.request.getParams().getAccounts());
+    sent.respond(true, null);
+    retried.get(1, TimeUnit.SECONDS);
+
+    // Once acknowledged, subscribing again needs no further request
+    assertTrue(manager.subscribe(ALICE).isDone());
+    assertTrue(channel.sent.isEmpty());
+
+    // The ledger forgets the subscriptions of a closed connection
+    manager.onDisconnected();
+    CompletableFuture<Void> afterDisconnect = manager.subscribe(ALICE);
+    assertFalse(afterDisconnect.isDone());
+    channel.sent.poll(5, TimeUnit.SECONDS).respond(true, null);
+    afterDisconnect.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void slowSendDoesNotHoldUpTheTimer() throws Exception {
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    final AccountSubscriptionManager slowManager =
+        new AccountSubscriptionManager(channel, 20, timer, executor);
+    channel.sendLatch = new CountDownLatch(1);
+    try {
+      final CompletableFuture<Void> future = slowManager.subscribe(ALICE);
+      final Sent sent = channel.sent.poll(5, TimeUnit.SECONDS);
+
+      // The send is still blocked, yet another timeout on the same timer fires
+      CountDownLatch fired = new CountDownLatch(1);
+      timer.newTimeout(fired::countDown, 20, TimeUnit.MILLISECONDS);
+      assertTrue(fired.await(1, TimeUnit.SECONDS));
+
+      channel.sendLatch.countDown();
+      sent.respond(true, null);
+      future.get(1, TimeUnit.SECONDS);
+    } finally {
+      channel.sendLatch.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void resubscribesAfterDisconnect() throws Exception {
+    CompletableFuture<Void> future = manager.subscribe(ALICE);
+    channel.sent.poll(5, TimeUnit.SECONDS).respond(true, null);
+    future.get(1, TimeUnit.SECONDS);
+
+    manager.onDisconnected();
+    assertTrue(manager.getAcknowledgedAccounts().isEmpty());
+
+    future = manager.resubscribe();
+    Sent sent = channel.sent.poll(5, TimeUnit.SECONDS);
+    assertEquals(Arrays.asList(ALICE), sent.request.getParams().getAccounts());
+    sent.respond(true, null);
+    future.get(1, TimeUnit.SECONDS);
+    assertEquals(manager.getAccounts(), manager.getAcknowledgedAccounts());
+  }
+
+  private static class Sent {
+
+    private final JsonRpcSubscribeAccountRequest request;
+    private final JsonRpcResponseHandler handler;
+
+    private Sent(JsonRpcSubscribeAccountRequest request, JsonRpcResponseHandler handler) {
+      this.request = request;
+      this.handler = handler;
+    }
+
+    private void respond(Object result, JsonRpcError error) {
+      JsonRpcResponseMessage response = new JsonRpcResponseMessage();
+      response.setId(request.getId());
+      response.setResult(result);
+      response.setError(error);
+      handler.handleResponse(request, response);
+    }
+  }
+
+  private static class RecordingChannel extends JsonRpcWebSocketChannel {
+
+    private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+    private volatile CountDownLatch sendLatch;
+
+    private RecordingChannel() {
+      super(URI.create("ws://ledger.example.com/websocket"), false, 1);
+    }
+
+    @Override
+    public boolean canSend() {
+      return true;
+    }
+
+    @Override
+    public void sendRpcRequest(JsonRpcRequestMessage request,
+        JsonRpcResponseHandler responseHandler, Duration timeout) {
+      sent.add(new Sent((JsonRpcSubscribeAccountRequest) request, responseHandler));
+      CountDownLatch latch = sendLatch;
+      if (latch != null) {
+        try {
+          // Blocks like a slow web socket write
+          latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    @Override
+    public void onTransportError(Throwable exception) {}
+  }
+
+}
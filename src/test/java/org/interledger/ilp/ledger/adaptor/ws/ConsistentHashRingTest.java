@@ -0,0 +1,59 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the {@link ConsistentHashRing} class.
+ */
+public class ConsistentHashRingTest {
+
+  private static final int KEYS = 10000;
+
+  @Test
+  public void assignsKeysStablyAndEvenly() {
+    ConsistentHashRing<String> ring = new ConsistentHashRing<>(Arrays.asList("a", "b", "c", "d"));
+    ConsistentHashRing<String> same = new ConsistentHashRing<>(Arrays.asList("a", "b", "c", "d"));
+
+    int[] counts = new int[4];
+    for (int i = 0; i < KEYS; i++) {
+      URI account = account(i);
+      assertEquals(ring.get(account), same.get(account));
+      counts[ring.indexOf(account)]++;
+    }
+
+    for (int count : counts) {
+      assertTrue("Uneven spread: " + Arrays.toString(counts),
+          count > KEYS / 4 * 0.7 && count < KEYS / 4 * 1.3);
+    }
+  }
+
+  @Test
+  public void addingANodeOnlyMovesKeysToIt() {
+    List<String> nodes = Arrays.asList("a", "b", "c", "d");
+    ConsistentHashRing<String> four = new ConsistentHashRing<>(nodes);
+    ConsistentHashRing<String> five = new ConsistentHashRing<>(Arrays.asList("a", "b", "c", "d",
+        "e"));
+
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      URI account = account(i);
+      if (!four.get(account).equals(five.get(account))) {
+        assertEquals("e", five.get(account));
+        moved++;
+      }
+    }
+    assertTrue("Moved " + moved + " keys", moved > KEYS / 5 * 0.7 && moved < KEYS / 5 * 1.3);
+  }
+
+  private static URI account(int index) {
+    return URI.create("https://ledger.example.com/accounts/user" + index);
+  }
+
+}
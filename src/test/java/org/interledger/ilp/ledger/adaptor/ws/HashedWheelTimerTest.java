@@ -0,0 +1,53 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.interledger.ilp.ledger.adaptor.ws.HashedWheelTimer.Timeout;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link HashedWheelTimer} class.
+ */
+public class HashedWheelTimerTest {
+
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer("TestTimer", 10, TimeUnit.MILLISECONDS, 4);
+
+  @After
+  public void tearDown() {
+    timer.close();
+  }
+
+  @Test
+  public void runsTasksAfterTheirDelay() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(2);
+    final long start = System.nanoTime();
+    timer.newTimeout(latch::countDown, 20, TimeUnit.MILLISECONDS);
+    // Longer than a full turn of the wheel
+    timer.newTimeout(latch::countDown, 100, TimeUnit.MILLISECONDS);
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  public void doesNotRunCancelledTasks() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    Timeout timeout = timer.newTimeout(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+    assertTrue(timeout.cancel());
+    assertFalse(timeout.cancel());
+
+    CountDownLatch latch = new CountDownLatch(1);
+    timer.newTimeout(latch::countDown, 50, TimeUnit.MILLISECONDS);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(0, runs.get());
+  }
+
+}
@@ -0,0 +1,43 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerMessage;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransfer;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerTransferAccountEntry;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Collections;
+
+/**
+ * Tests the {@link JsonRpcLedgerWebSocketChannel} class.
+ */
+public class JsonRpcLedgerWebSocketChannelTest {
+
+  private static final URI ALICE = URI.create("https://ledger.example.com/accounts/alice");
+  private static final URI BOB = URI.create("https://ledger.example.com/accounts/bob");
+
+  @Test
+  public void partitionsTransfersAndMessagesByTheSameAccountKey() {
+    JsonLedgerTransferAccountEntry debit = new JsonLedgerTransferAccountEntry();
+    debit.setAccount(URI.create(ALICE.toString()));
+    JsonLedgerTransferAccountEntry credit = new JsonLedgerTransferAccountEntry();
+    credit.setAccount(BOB);
+    JsonLedgerTransfer transfer = new JsonLedgerTransfer();
+    transfer.setDebits(Collections.singletonList(debit));
+    transfer.setCredits(Collections.singletonList(credit));
+
+    JsonLedgerMessage message = new JsonLedgerMessage();
+    message.setFrom(URI.create(ALICE.toString()));
+    message.setTo(BOB);
+
+    assertEquals(JsonRpcLedgerWebSocketChannel.getPartitionKey(transfer),
+        JsonRpcLedgerWebSocketChannel.getPartitionKey(message));
+    assertEquals(ALICE, JsonRpcLedgerWebSocketChannel.getPartitionKey(message));
+
+    assertNull(JsonRpcLedgerWebSocketChannel.getPartitionKey(new JsonLedgerTransfer()));
+  }
+
+}
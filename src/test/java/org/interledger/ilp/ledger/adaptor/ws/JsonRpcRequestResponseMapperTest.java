@@ -0,0 +1,137 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcRequestMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcResponseMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcSubscribeAccountRequest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link JsonRpcRequestResponseMapper} class.
+ */
+public class JsonRpcRequestResponseMapperTest {
+
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer("TestTimer", 10, TimeUnit.MILLISECONDS, 16);
+  private final JsonRpcRequestResponseMapper mapper =
+      new JsonRpcRequestResponseMapper(60_000, 2, timer);
+  private final BlockingQueue<JsonRpcResponseMessage> responses = new ArrayBlockingQueue<>(10);
+
+  @After
+  public void tearDown() {
+    timer.close();
+  }
+
+  @Test
+  public void linksResponsesToRequests() {
+    JsonRpcRequestMessage request = createRequest();
+    mapper.storeRequest(request, (req, rsp) -> {
+      assertSame(request, req);
+      responses.add(rsp);
+    });
+    assertEquals(1, mapper.getPendingCount());
+
+    JsonRpcResponseMessage response = new JsonRpcResponseMessage();
+    response.setId(request.getId());
+    mapper.handleResponse(response);
+    mapper.handleResponse(response);
+
+    assertEquals(1, responses.size());
+    assertSame(response, responses.poll());
+    assertEquals(0, mapper.getPendingCount());
+  }
+
+  @Test
+  public void timesOutRequestsAtTheirOwnDeadline() throws InterruptedException {
+    JsonRpcRequestMessage request = createRequest();
+    mapper.storeRequest(request, (req, rsp) -> responses.add(rsp), 50);
+
+    JsonRpcResponseMessage response = responses.poll(5, TimeUnit.SECONDS);
+    assertEquals(request.getId(), response.getId());
+    assertEquals(JsonRpcRequestResponseMapper.TIMEOUT_ERROR_CODE, response.getError().getCode());
+    assertEquals(0, mapper.getPendingCount());
+  }
+
+  @Test
+  public void callsTimeoutHandlersOffTheTimerThread() throws InterruptedException {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    JsonRpcRequestResponseMapper mapper =
+        new JsonRpcRequestResponseMapper(60_000, 2, timer, executor);
+    BlockingQueue<Thread> threads = new ArrayBlockingQueue<>(10);
+    CountDownLatch release = new CountDownLatch(1);
+    mapper.storeRequest(createRequest(), (req, rsp) -> {
+      threads.add(Thread.currentThread());
+      try {
+        release.await();
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+    }, 20);
+    mapper.storeRequest(createRequest(), (req, rsp) -> responses.add(rsp), 50);
+
+    // The second request expires while the first handler is still blocked
+    final Thread handlerThread = threads.poll(5, TimeUnit.SECONDS);
+    final JsonRpcResponseMessage response = responses.poll(5, TimeUnit.SECONDS);
+    release.countDown();
+    executor.shutdown();
+
+    assertNotSame(Thread.currentThread(), handlerThread);
+    assertTrue(!"TestTimer".equals(handlerThread.getName()));
+    assertEquals(JsonRpcRequestResponseMapper.TIMEOUT_ERROR_CODE, response.getError().getCode());
+  }
+
+  @Test
+  public void capsPendingRequests() {
+    mapper.storeRequest(createRequest(), null);
+    mapper.storeRequest(createRequest(), null);
+    try {
+      mapper.storeRequest(createRequest(), null);
+      fail("Expected the third request to be rejected.");
+    } catch (IllegalStateException ise) {
+      assertEquals(2, mapper.getPendingCount());
+    }
+  }
+
+  @Test
+  public void failsPendingRequestsOnClose() {
+    mapper.storeRequest(createRequest(), (req, rsp) -> responses.add(rsp));
+    mapper.close();
+
+    assertEquals(JsonRpcRequestResponseMapper.CLOSED_ERROR_CODE,
+        responses.poll().getError().getCode());
+    assertNull(responses.poll());
+    try {
+      mapper.storeRequest(createRequest(), null);
+      fail("Expected the closed mapper to reject requests.");
+    } catch (IllegalStateException ise) {
+      assertTrue(ise.getMessage().contains("closed"));
+    }
+  }
+
+  @Test
+  public void generatesDistinctIds() {
+    assertNotEquals(mapper.nextRequestId(), mapper.nextRequestId());
+  }
+
+  private JsonRpcRequestMessage createRequest() {
+    JsonRpcRequestMessage request = new JsonRpcSubscribeAccountRequest();
+    request.setId(mapper.nextRequestId());
+    return request;
+  }
+
+}
@@ -0,0 +1,327 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.AdaptorStateException;
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.JsonRpcTimeoutException;
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.JsonRpcTransportException;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcRequestMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcResponseMessage;
+import org.interledger.ilp.ledger.adaptor.ws.jsonrpc.JsonRpcSubscribeAccountRequest;
+import org.junit.Test;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests the {@link JsonRpcWebSocketChannel} class against a stub session.
+ */
+public class JsonRpcWebSocketChannelTest {
+
+  private final List<String> frames = new CopyOnWriteArrayList<>();
+  private final StubWebSocketSession session = new StubWebSocketSession() {
+    @Override
+    protected void onSend(WebSocketMessage<?> message) {
+      if (message instanceof TextMessage) {
+        frames.add(((TextMessage) message).getPayload());
+      }
+    }
+  };
+  private final JsonRpcWebSocketChannel channel =
+      new JsonRpcWebSocketChannel(URI.create("ws://ledger.example.com/websocket"), false, 1) {
+        @Override
+        public void onMessage(JsonRpcMessage message) {
+          if (message instanceof JsonRpcResponseMessage) {
+            onResponse((JsonRpcResponseMessage) message);
+          }
+        }
+
+        @Override
+        public void onTransportError(Throwable exception) {}
+      };
+
+  @Test
+  public void sendsBatchInOneFrameAndDispatchesEachResponse() throws Exception {
+    channel.onConnectionEstablished(session);
+
+    Map<String, Object> results = new ConcurrentHashMap<>();
+    JsonRpcRequestBatch batch = new JsonRpcRequestBatch();
+    for (int i = 0; i < 3; i++) {
+      JsonRpcSubscribeAccountRequest request = new JsonRpcSubscribeAccountRequest();
+      request.setId(channel.nextRequestId());
+      batch.add(request, (req, response) -> results.put(req.getId(), response.getResult()));
+    }
+    channel.sendRpcBatch(batch);
+
+    assertEquals(1, frames.size());
+    assertTrue(frames.get(0).startsWith("[{"));
+
+    // Responses to a batch may come back in any order
+    channel.getHandler().handleMessage(session, new TextMessage(
+        "[{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"result\":3},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":1},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":2}]"));
+
+    assertEquals(3, results.size());
+    assertEquals(2, results.get("2"));
+  }
+
+  @Test
+  public void sendBatchFailsWhenARequestCannotBeSerialized() {
+    channel.onConnectionEstablished(session);
+
+    JsonRpcRequestBatch batch = new JsonRpcRequestBatch();
+    JsonRpcSubscribeAccountRequest request = new JsonRpcSubscribeAccountRequest();
+    request.setId(channel.nextRequestId());
+    batch.add(request, (req, response) -> { });
+    UnserializableRequest unserializable = new UnserializableRequest();
+    unserializable.setId(channel.nextRequestId());
+    batch.add(unserializable, (req, response) -> { });
+
+    try {
+      channel.sendRpcBatch(batch);
+      fail("Expected the batch to be refused.");
+    } catch (AdaptorStateException ase) {
+      assertTrue(ase.getCause() instanceof JsonProcessingException);
+    }
+    assertEquals(0, channel.getPendingRequestCount());
+    assertTrue(frames.isEmpty());
+  }
+
+  @Test
+  public void measuresRoundTripsAndDropsConnectionsThatStopAnswering() throws Exception {
+    AtomicBoolean answering = new AtomicBoolean(true);
+    AtomicReference<JsonRpcWebSocketChannel> channelRef = new AtomicReference<>();
+    StubWebSocketSession pingedSession = new StubWebSocketSession() {
+      @Override
+      protected void onSend(WebSocketMessage<?> message) {
+        if (message instanceof PingMessage && answering.get()) {
+          channelRef.get().onPong(new PongMessage(((PingMessage) message).getPayload()));
+        }
+      }
+    };
+    CountDownLatch closed = new CountDownLatch(1);
+    AtomicReference<CloseStatus> closeStatus = new AtomicReference<>();
+    JsonRpcWebSocketChannel heartbeatChannel =
+        new JsonRpcWebSocketChannel(URI.create("ws://ledger.example.com/websocket"), false, 1) {
+          @Override
+          public void onConnectionClosed(CloseStatus status) {
+            closeStatus.set(status);
+            closed.countDown();
+          }
+
+          @Override
+          public void onTransportError(Throwable exception) {}
+        };
+    channelRef.set(heartbeatChannel);
+    heartbeatChannel.setHeartbeat(Duration.ofMillis(100), 2);
+    heartbeatChannel.onConnectionEstablished(pingedSession);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (heartbeatChannel.getRoundTripTimes().getCount() < 2 && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertTrue(heartbeatChannel.getRoundTripTimes().getCount() >= 2);
+    assertTrue(heartbeatChannel.canSend());
+
+    answering.set(false);
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    assertEquals(CloseStatus.SESSION_NOT_RELIABLE, closeStatus.get());
+    assertFalse(heartbeatChannel.canSend());
+  }
+
+  @Test
+  public void callCompletesWithResponseOrTimesOut() throws Exception {
+    channel.onConnectionEstablished(session);
+
+    CompletableFuture<JsonRpcResponseMessage> answered =
+        channel.call(new JsonRpcSubscribeAccountRequest(), Duration.ofSeconds(5));
+    CompletableFuture<JsonRpcResponseMessage> unanswered =
+        channel.call(new JsonRpcSubscribeAccountRequest(), Duration.ofMillis(50));
+    assertEquals(2, frames.size());
+
+    channel.getHandler().handleMessage(session,
+        new TextMessage("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":2}"));
+    assertEquals(2, answered.get(5, TimeUnit.SECONDS).getResult());
+
+    try {
+      unanswered.get(5, TimeUnit.SECONDS);
+      fail("Expected the call to time out.");
+    } catch (ExecutionException ee) {
+      assertTrue(ee.getCause() instanceof JsonRpcTimeoutException);
+      assertEquals("2", ((JsonRpcTimeoutException) ee.getCause()).getRequestId());
+    }
+  }
+
+  @Test
+  public void callFailsWhenDisconnectedAndForgetsCancelledRequests() throws Exception {
+    CompletableFuture<JsonRpcResponseMessage> disconnected =
+        channel.call(new JsonRpcSubscribeAccountRequest());
+    try {
+      disconnected.get(5, TimeUnit.SECONDS);
+      fail("Expected the call to fail.");
+    } catch (ExecutionException ee) {
+      assertTrue(ee.getCause() instanceof JsonRpcTransportException);
+    }
+
+    channel.onConnectionEstablished(session);
+    JsonRpcSubscribeAccountRequest request = new JsonRpcSubscribeAccountRequest();
+    CompletableFuture<JsonRpcResponseMessage> cancelled = channel.call(request);
+    assertEquals(1, channel.getPendingRequestCount());
+    assertTrue(cancelled.cancel(false));
+    assertEquals(0, channel.getPendingRequestCount());
+
+    // A late response to a cancelled call is dropped
+    channel.getHandler().handleMessage(session, new TextMessage(
+        "{\"jsonrpc\":\"2.0\",\"id\":\"" + request.getId() + "\",\"result\":true}"));
+    assertTrue(cancelled.isCancelled());
+  }
+
+  @Test
+  public void callFailsWhenTheRequestCannotBeSerialized() throws Exception {
+    channel.onConnectionEstablished(session);
+
+    CompletableFuture<JsonRpcResponseMessage> unserializable =
+        channel.call(new UnserializableRequest(), Duration.ofSeconds(5));
+    try {
+      unserializable.get(5, TimeUnit.SECONDS);
+      fail("Expected the call to fail.");
+    } catch (ExecutionException ee) {
+      assertTrue(ee.getCause() instanceof JsonRpcTransportException);
+      assertTrue(ee.getCause().getCause() instanceof AdaptorStateException);
+    }
+    assertEquals(0, channel.getPendingRequestCount());
+    assertTrue(frames.isEmpty());
+  }
+
+  @Test
+  public void sendFailsWithAdaptorStateExceptionWhenTooManyRequestsArePending() {
+    channel.onConnectionEstablished(session);
+    for (int i = 0; i < JsonRpcRequestResponseMapper.DEFAULT_MAX_PENDING_REQUESTS; i++) {
+      channel.call(new JsonRpcSubscribeAccountRequest());
+    }
+
+    JsonRpcSubscribeAccountRequest request = new JsonRpcSubscribeAccountRequest();
+    request.setId(channel.nextRequestId());
+    try {
+      channel.sendRpcRequest(request, (sent, response) -> { });
+      fail("Expected the request to be refused.");
+    } catch (AdaptorStateException ase) {
+      assertTrue(ase.getCause() instanceof IllegalStateException);
+    }
+    assertEquals(JsonRpcRequestResponseMapper.DEFAULT_MAX_PENDING_REQUESTS,
+        channel.getPendingRequestCount());
+  }
+
+  @Test
+  public void connectAsyncCompletesOnceOpenAndReportsEachTransition() throws Exception {
+    SettableListenableFuture<WebSocketSession> handshake = new SettableListenableFuture<>();
+    List<String> transitions = new CopyOnWriteArrayList<>();
+    JsonRpcWebSocketChannel reconnectingChannel =
+        new JsonRpcWebSocketChannel(URI.create("ws://ledger.example.com/websocket"), true, 0) {
+          @Override
+          public void onTransportError(Throwable exception) {}
+        };
+    reconnectingChannel.setClient(new StubWebSocketClient(handshake));
+    reconnectingChannel.setHeartbeat(Duration.ZERO, 1);
+    reconnectingChannel.addStateListener(
+        (changed, previous, current) -> transitions.add(previous + ">" + current));
+
+    CompletableFuture<Void> connected = reconnectingChannel.connectAsync();
+    assertSame(connected, reconnectingChannel.connectAsync());
+    assertEquals(ConnectionState.CONNECTING, reconnectingChannel.getState());
+    assertFalse(connected.isDone());
+
+    reconnectingChannel.onConnectionEstablished(session);
+    connected.get(5, TimeUnit.SECONDS);
+    assertEquals(ConnectionState.OPEN, reconnectingChannel.getState());
+    assertNotNull(reconnectingChannel.getConnectTime());
+
+    reconnectingChannel.onSessionClosed(session, CloseStatus.GOING_AWAY);
+    assertEquals(ConnectionState.RECONNECTING, reconnectingChannel.getState());
+    assertTrue(reconnectingChannel.isOpen());
+
+    reconnectingChannel.close();
+    assertEquals(ConnectionState.CLOSED, reconnectingChannel.getState());
+    assertFalse(reconnectingChannel.isOpen());
+    assertEquals(Arrays.asList("CLOSED>CONNECTING", "CONNECTING>OPEN", "OPEN>RECONNECTING",
+        "RECONNECTING>CLOSING", "CLOSING>CLOSED"), transitions);
+  }
+
+  @Test
+  public void connectAsyncFailsWhenTheChannelGivesUp() throws Exception {
+    SettableListenableFuture<WebSocketSession> handshake = new SettableListenableFuture<>();
+    handshake.setException(new IOException("Connection refused"));
+    channel.setClient(new StubWebSocketClient(handshake));
+
+    try {
+      channel.connectAsync().get(5, TimeUnit.SECONDS);
+      fail("Expected connecting to fail.");
+    } catch (ExecutionException ee) {
+      assertTrue(ee.getCause() instanceof AdaptorStateException);
+    }
+    assertEquals(ConnectionState.CLOSED, channel.getState());
+  }
+
+  /**
+   * A client whose handshakes all return the same future.
+   */
+  private static class UnserializableRequest extends JsonRpcRequestMessage {
+
+    public Object getParams() {
+      throw new IllegalStateException("Cannot serialize params.");
+    }
+  }
+
+  private static class StubWebSocketClient implements WebSocketClient {
+
+    private final ListenableFuture<WebSocketSession> handshake;
+
+    private StubWebSocketClient(ListenableFuture<WebSocketSession> handshake) {
+      this.handshake = handshake;
+    }
+
+    @Override
+    public ListenableFuture<WebSocketSession> doHandshake(WebSocketHandler webSocketHandler,
+        String uriTemplate, Object... uriVariables) {
+      return handshake;
+    }
+
+    @Override
+    public ListenableFuture<WebSocketSession> doHandshake(WebSocketHandler webSocketHandler,
+        WebSocketHttpHeaders headers, URI uri) {
+      return handshake;
+    }
+  }
+
+}
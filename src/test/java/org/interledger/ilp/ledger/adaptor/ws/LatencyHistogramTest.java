@@ -0,0 +1,44 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link LatencyHistogram} class.
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void reportsPercentilesWithinBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i, TimeUnit.MILLISECONDS);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500_500, histogram.getMeanMicros());
+    assertEquals(1_000_000, histogram.getMaxMicros());
+    assertWithin(500_000, histogram.getPercentileMicros(50));
+    assertWithin(990_000, histogram.getPercentileMicros(99));
+    assertEquals(1_000_000, histogram.getPercentileMicros(100));
+  }
+
+  @Test
+  public void bucketsCoverTheWholeRange() {
+    for (long micros : new long[] {0, 7, 8, 15, 16, 1000, 123_456_789, Long.MAX_VALUE}) {
+      int index = LatencyHistogram.indexOf(micros);
+      assertTrue(micros <= LatencyHistogram.upperBoundOf(index));
+      assertTrue(index == 0 || micros > LatencyHistogram.upperBoundOf(index - 1));
+    }
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue("Expected about " + expected + " but was " + actual,
+        actual >= expected && actual <= expected * 1.125);
+  }
+
+}
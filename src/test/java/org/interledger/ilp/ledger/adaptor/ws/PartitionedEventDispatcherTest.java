@@ -0,0 +1,101 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.interledger.ilp.ledger.adaptor.ws.PartitionedEventDispatcher.OverflowPolicy;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link PartitionedEventDispatcher} class.
+ */
+public class PartitionedEventDispatcherTest {
+
+  private PartitionedEventDispatcher dispatcher;
+
+  @After
+  public void tearDown() {
+    dispatcher.close();
+  }
+
+  @Test
+  public void keepsEventsForOneKeyInOrder() throws InterruptedException {
+    dispatcher = new PartitionedEventDispatcher(4, 1000, OverflowPolicy.BLOCK);
+    List<Integer> alice = Collections.synchronizedList(new ArrayList<>());
+    List<Integer> bob = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch done = new CountDownLatch(2000);
+
+    for (int i = 0; i < 1000; i++) {
+      int event = i;
+      dispatcher.dispatch("alice", () -> {
+        alice.add(event);
+        done.countDown();
+      });
+      dispatcher.dispatch("bob", () -> {
+        bob.add(event);
+        done.countDown();
+      });
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, alice.get(i).intValue());
+      assertEquals(i, bob.get(i).intValue());
+    }
+    assertEquals(2000, dispatcher.getDispatchedCount());
+  }
+
+  @Test
+  public void dropsOldestEventsWhenFull() throws InterruptedException {
+    dispatcher = new PartitionedEventDispatcher(1, 2, OverflowPolicy.DROP_OLDEST);
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    dispatcher.dispatch("alice", () -> block(blocked, release));
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+    for (int i = 0; i < 5; i++) {
+      dispatcher.dispatch("alice", () -> { });
+    }
+    assertEquals(2, dispatcher.getQueueDepth());
+    assertEquals(3, dispatcher.getDroppedCount());
+    release.countDown();
+  }
+
+  @Test
+  public void rejectsEventsWhenFull() throws InterruptedException {
+    dispatcher = new PartitionedEventDispatcher(1, 1, OverflowPolicy.FAIL);
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    dispatcher.dispatch("alice", () -> block(blocked, release));
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+    dispatcher.dispatch("alice", () -> { });
+    try {
+      dispatcher.dispatch("alice", () -> { });
+      fail("Expected the full queue to reject the event.");
+    } catch (RejectedExecutionException ree) {
+      assertEquals(1, dispatcher.getRejectedCount());
+      assertEquals(1, dispatcher.getQueueDepth(0));
+    }
+    release.countDown();
+  }
+
+  private static void block(CountDownLatch blocked, CountDownLatch release) {
+    blocked.countDown();
+    try {
+      release.await();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,48 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests the {@link ShardedLedgerWebSocketChannel} class.
+ */
+public class ShardedLedgerWebSocketChannelTest {
+
+  @Test
+  public void subscribesEachAccountOnItsShardOnly() {
+    List<JsonRpcLedgerWebSocketChannel> shards = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      shards.add(new JsonRpcLedgerWebSocketChannel(URI.create("ws://ledger.example.com/websocket"),
+          "token", null, null));
+    }
+    ShardedLedgerWebSocketChannel channel = new ShardedLedgerWebSocketChannel(shards);
+
+    Set<JsonRpcLedgerWebSocketChannel> used = new HashSet<>();
+    for (int i = 0; i < 30; i++) {
+      URI account = URI.create("https://ledger.example.com/accounts/user" + i);
+      channel.subscribe(account);
+
+      JsonRpcLedgerWebSocketChannel shard = channel.getShard(account);
+      used.add(shard);
+      for (JsonRpcLedgerWebSocketChannel other : shards) {
+        assertEquals(other == shard,
+            other.getSubscriptionManager().getAccounts().contains(account));
+      }
+    }
+
+    assertEquals(3, used.size());
+    assertEquals(30, channel.getAccounts().size());
+    assertFalse(channel.isOpen());
+    assertTrue(channel.getShards().containsAll(shards));
+  }
+
+}
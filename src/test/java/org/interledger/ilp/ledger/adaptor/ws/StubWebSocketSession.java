@@ -0,0 +1,124 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A web socket session without a connection, for tests. Sent messages are passed to
+ * {@link #onSend(WebSocketMessage)}, which tests override to record or delay them.
+ */
+class StubWebSocketSession implements WebSocketSession {
+
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private volatile CloseStatus closeStatus;
+
+  /**
+   * Called for each message sent on the session.
+   *
+   * @param message
+   *  The message sent.
+   */
+  protected void onSend(WebSocketMessage<?> message) throws IOException {}
+
+  /** The status the session was closed with, or null if it is open. */
+  CloseStatus getCloseStatus() {
+    return closeStatus;
+  }
+
+  @Override
+  public void sendMessage(WebSocketMessage<?> message) throws IOException {
+    if (closeStatus != null) {
+      throw new IOException("Session is closed.");
+    }
+    onSend(message);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return closeStatus == null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    close(CloseStatus.NORMAL);
+  }
+
+  @Override
+  public void close(CloseStatus status) throws IOException {
+    closeStatus = status;
+  }
+
+  @Override
+  public String getId() {
+    return "stub";
+  }
+
+  @Override
+  public URI getUri() {
+    return URI.create("ws://ledger.example.com/websocket");
+  }
+
+  @Override
+  public HttpHeaders getHandshakeHeaders() {
+    return new HttpHeaders();
+  }
+
+  @Override
+  public Map<String, Object> getAttributes() {
+    return attributes;
+  }
+
+  @Override
+  public Principal getPrincipal() {
+    return null;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return null;
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return null;
+  }
+
+  @Override
+  public String getAcceptedProtocol() {
+    return null;
+  }
+
+  @Override
+  public void setTextMessageSizeLimit(int messageSizeLimit) {}
+
+  @Override
+  public int getTextMessageSizeLimit() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public void setBinaryMessageSizeLimit(int messageSizeLimit) {}
+
+  @Override
+  public int getBinaryMessageSizeLimit() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public List<WebSocketExtension> getExtensions() {
+    return Collections.emptyList();
+  }
+
+}
@@ -0,0 +1,126 @@
+package org.interledger.ilp.ledger.adaptor.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.interledger.ilp.ledger.adaptor.rest.exceptions.AdaptorStateException;
+import org.junit.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link WebSocketSendQueue} class.
+ */
+public class WebSocketSendQueueTest {
+
+  @Test
+  public void concurrentSendersNeverOverlap() throws Exception {
+    AtomicBoolean sending = new AtomicBoolean();
+    AtomicBoolean overlapped = new AtomicBoolean();
+    AtomicInteger sent = new AtomicInteger();
+    StubWebSocketSession session = new StubWebSocketSession() {
+      @Override
+      protected void onSend(WebSocketMessage<?> message) {
+        if (!sending.compareAndSet(false, true)) {
+          overlapped.set(true);
+        }
+        Thread.yield();
+        sent.incrementAndGet();
+        sending.set(false);
+      }
+    };
+    WebSocketSendQueue queue = new WebSocketSendQueue(session);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      threads.add(new Thread(() -> {
+        for (int j = 0; j < 500; j++) {
+          queue.send(new TextMessage("{\"id\":" + j + "}"));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertFalse(overlapped.get());
+    assertEquals(4000, sent.get());
+    assertEquals(0, queue.getBufferSize());
+  }
+
+  @Test
+  public void rejectsMessagesBeyondTheBufferLimit() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    StubWebSocketSession session = blockingSession(started, release);
+    WebSocketSendQueue queue = new WebSocketSendQueue(session, 10, 60_000);
+
+    Thread writer = new Thread(() -> queue.send(new TextMessage("first")));
+    writer.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    queue.send(new TextMessage("12345"));
+    queue.send(new TextMessage("12345"));
+    try {
+      queue.send(new TextMessage("1"));
+      fail("Expected the send buffer to be full.");
+    } catch (AdaptorStateException ase) {
+      assertEquals(10, queue.getBufferSize());
+    }
+
+    release.countDown();
+    writer.join();
+    assertEquals(0, queue.getBufferSize());
+  }
+
+  @Test
+  public void closesTheSessionWhenASendStalls() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    StubWebSocketSession session = blockingSession(started, release);
+    WebSocketSendQueue queue = new WebSocketSendQueue(session, 1024, 20);
+
+    Thread writer = new Thread(() -> queue.send(new TextMessage("first")));
+    writer.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    Thread.sleep(50);
+
+    try {
+      queue.send(new TextMessage("second"));
+      fail("Expected the send time limit to be exceeded.");
+    } catch (AdaptorStateException ase) {
+      assertEquals(CloseStatus.SESSION_NOT_RELIABLE, session.getCloseStatus());
+    }
+
+    release.countDown();
+    writer.join();
+  }
+
+  private static StubWebSocketSession blockingSession(CountDownLatch started,
+      CountDownLatch release) {
+
+    return new StubWebSocketSession() {
+      @Override
+      protected void onSend(WebSocketMessage<?> message) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+}
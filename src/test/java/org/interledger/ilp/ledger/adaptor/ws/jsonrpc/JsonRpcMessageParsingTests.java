@@ -3,8 +3,10 @@ package org.interledger.ilp.ledger.adaptor.ws.jsonrpc;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.interledger.ilp.ledger.adaptor.rest.json.JsonLedgerMessage;
 import org.interledger.ilqp.json.JsonErrorResponseEnvelope;
 import org.interledger.ilqp.json.JsonMessageEnvelope;
+import org.interledger.ilqp.json.JsonQuoteResponseEnvelope;
 import org.junit.Test;
 import org.springframework.util.Assert;
 
@@ -14,6 +16,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -67,6 +70,90 @@ public class JsonRpcMessageParsingTests {
 
   }
 
+  @Test
+  public final void parseLedgerMessageDataAsEnvelope()
+      throws JsonParseException, JsonMappingException, IOException, URISyntaxException {
+
+    ObjectMapper mapper = new ObjectMapper();
+    String message = getJson("message_notification.json");
+    JsonRpcNotification rpcNotification =
+        (JsonRpcNotification) mapper.readValue(message, JsonRpcMessage.class);
+    JsonLedgerMessage ledgerMessage =
+        ((JsonRpcRequestMessageNotificationParams) rpcNotification.getParams()).getMessage();
+    Assert.isInstanceOf(JsonErrorResponseEnvelope.class, ledgerMessage.getData());
+
+    // The method does not need to come first
+    String quoteResponse = getJson("quote_response_data.json")
+        .replace("\"method\": \"quote_response\",", "");
+    quoteResponse = quoteResponse.substring(0, quoteResponse.lastIndexOf('}'))
+        + ", \"method\": \"quote_response\"}";
+    ledgerMessage = mapper.readValue("{\"data\": " + quoteResponse + "}", JsonLedgerMessage.class);
+    Assert.isInstanceOf(JsonQuoteResponseEnvelope.class, ledgerMessage.getData());
+    Assert.isTrue("100.31".equals(
+        ((JsonQuoteResponseEnvelope) ledgerMessage.getData()).getData().getSourceAmount()));
+
+    // Data with an unknown method stays a map and anything else is left as is
+    ledgerMessage = mapper.readValue("{\"data\": {\"method\": \"other\", \"x\": [1]}}",
+        JsonLedgerMessage.class);
+    Assert.isInstanceOf(Map.class, ledgerMessage.getData());
+    ledgerMessage = mapper.readValue("{\"data\": \"aGVsbG8=\"}", JsonLedgerMessage.class);
+    Assert.isTrue("aGVsbG8=".equals(ledgerMessage.getData()));
+  }
+
+  @Test
+  public final void parseJsonRpcMessagesInAnyPropertyOrder() throws IOException {
+
+    ObjectMapper mapper = new ObjectMapper();
+    String message = "{\"params\":{\"id\":\"" + UUID.randomUUID() + "\","
+        + "\"event\":\"transfer.update\",\"resource\":{\"id\":\"adrian\"}},"
+        + "\"id\":null,\"method\":\"notify\",\"jsonrpc\":\"2.0\"}";
+    JsonRpcNotification rpcNotification =
+        (JsonRpcNotification) mapper.readValue(message, JsonRpcMessage.class);
+    Assert.isTrue("notify".equals(rpcNotification.getMethod()));
+    Assert.isInstanceOf(JsonRpcRequestTransferNotificationParams.class,
+        rpcNotification.getParams());
+
+    message = "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-1,\"message\":\"bad\"},\"id\":\"7\"}";
+    JsonRpcResponseMessage response =
+        (JsonRpcResponseMessage) mapper.readValue(message, JsonRpcMessage.class);
+    Assert.isTrue("7".equals(response.getId()));
+    Assert.isTrue("bad".equals(response.getError().getMessage()));
+
+    response = (JsonRpcResponseMessage) mapper.readValue("{\"id\":\"8\"}", JsonRpcMessage.class);
+    Assert.isTrue("8".equals(response.getId()));
+
+    // Unsupported methods are skipped without failing the rest of the stream
+    JsonRpcMessage[] messages = mapper.readValue("[{\"method\":\"other\",\"params\":{\"a\":[1]}},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":null,\"method\":\"connect\"}]", JsonRpcMessage[].class);
+    Assert.isNull(messages[0]);
+    Assert.isInstanceOf(JsonRpcConnectNotification.class, messages[1]);
+
+    // A method that is not a string is skipped as a whole, including nested values
+    messages = mapper.readValue("[{\"method\":{\"name\":\"notify\",\"x\":[{\"y\":1}]},"
+        + "\"id\":\"1\"},{\"method\":[\"connect\",{}],\"params\":{}},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":null,\"method\":\"connect\"}]", JsonRpcMessage[].class);
+    Assert.isTrue(messages.length == 3);
+    Assert.isNull(messages[0]);
+    Assert.isNull(messages[1]);
+    Assert.isInstanceOf(JsonRpcConnectNotification.class, messages[2]);
+  }
+
+  @Test
+  public final void parseJsonRpcBatch() throws IOException {
+
+    ObjectMapper mapper = new ObjectMapper();
+    String message = "[{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":2},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":null,\"method\":\"unknown\",\"params\":{}},"
+        + "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"error\":{\"code\":-32601,"
+        + "\"message\":\"Method not found\"}}]";
+    JsonRpcMessage[] batch = mapper.readValue(message, JsonRpcMessage[].class);
+
+    Assert.isTrue(batch.length == 3);
+    Assert.isTrue("1".equals(batch[0].getId()));
+    Assert.isNull(batch[1]);
+    Assert.isTrue(((JsonRpcResponseMessage) batch[2]).getError().getCode() == -32601);
+  }
+
   @Test
   public final void parseClientErrorMessageEnevelope()
       throws JsonParseException, JsonMappingException, IOException, URISyntaxException {
@@ -79,6 +166,20 @@ public class JsonRpcMessageParsingTests {
   }
 
 
+  @Test
+  public final void parseJsonRpcTransferNotificationFrame()
+      throws JsonParseException, JsonMappingException, IOException, URISyntaxException {
+
+    ObjectMapper mapper = new ObjectMapper();
+    String message = getJson("transfer_notification.json");
+    JsonRpcNotification rpcNotification =
+        (JsonRpcNotification) mapper.readValue(message, JsonRpcMessage.class);
+    JsonRpcRequestTransferNotificationParams params =
+        (JsonRpcRequestTransferNotificationParams) rpcNotification.getParams();
+    Assert.isTrue("executed".equals(params.getTransfer().getState()));
+    Assert.isTrue(params.getTransfer().getDebits().size() == 1);
+  }
+
   @Test
   public final void parseJsonRpcTransferNotificationRequest()
       throws JsonParseException, JsonMappingException, IOException {